@@ -0,0 +1,140 @@
+package com.multilingo.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-message CPU cost of storing and reading message text through
+ * {@link MessageContentCodec}, and prints the bytes it saves on each corpus.
+ * <p>
+ * The corpora are generated from a fixed seed: everyday chat lines, which stay
+ * under the threshold and should cost nothing; long-form prose of 1 to 6 KB in
+ * English and Spanish; and pasted application logs of 40 to 200 lines with the
+ * occasional stack trace. Compare the saving printed at setup with the encode
+ * and decode times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageContentCodecBenchmark {
+
+    private static final int MESSAGES = 200;
+
+    private static final String[] WORDS = {
+            "the", "we", "you", "meeting", "tomorrow", "document", "project", "send", "review", "think",
+            "should", "before", "after", "team", "customer", "release", "deadline", "question", "update", "change",
+            "because", "maybe", "already", "still", "morning", "afternoon", "report", "budget", "plan", "idea",
+            "la", "reunión", "mañana", "proyecto", "equipo", "cliente", "porque", "todavía", "ya", "informe",
+            "presupuesto", "pregunta", "cambio", "entrega", "semana", "antes", "después", "creo", "que", "para"
+    };
+    private static final String[] LEVELS = {"INFO ", "INFO ", "INFO ", "DEBUG", "WARN ", "ERROR"};
+    private static final String[] LOGGERS = {
+            "c.m.Message.MessageService", "c.m.Message.MessageWriter", "c.m.translation.TranslationBatcher",
+            "o.h.engine.jdbc.spi.SqlExceptionHelper", "o.s.web.servlet.DispatcherServlet", "c.z.hikari.pool.HikariPool"
+    };
+
+    @Param({"chat", "prose", "log"})
+    public String corpus;
+
+    private MessageContentCodec codec;
+    private String[] texts;
+    private String[] stored;
+
+    @Setup
+    public void setUp() {
+        codec = new MessageContentCodec(true, 1024);
+        Random random = new Random(42);
+        texts = new String[MESSAGES];
+        stored = new String[MESSAGES];
+        long textBytes = 0;
+        long storedBytes = 0;
+        for (int i = 0; i < MESSAGES; i++) {
+            texts[i] = switch (corpus) {
+                case "chat" -> sentence(random, 3 + random.nextInt(18));
+                case "prose" -> prose(random, 1024 + random.nextInt(5 * 1024));
+                case "log" -> log(random, 40 + random.nextInt(160));
+                default -> throw new IllegalArgumentException("Unknown corpus: " + corpus);
+            };
+            stored[i] = codec.encode(texts[i]);
+            textBytes += texts[i].getBytes(StandardCharsets.UTF_8).length;
+            storedBytes += stored[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+        System.out.printf("%n%s: %d bytes of text stored as %d bytes (%.1f%% saved)%n",
+                corpus, textBytes, storedBytes, 100.0 * (textBytes - storedBytes) / textBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void encode(Blackhole blackhole) {
+        for (String text : texts) {
+            blackhole.consume(codec.encode(text));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void decode(Blackhole blackhole) {
+        for (String value : stored) {
+            blackhole.consume(MessageContentCodec.decode(value));
+        }
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i == 0) {
+                sentence.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sentence.append(' ').append(word);
+            }
+        }
+        return sentence.append(random.nextInt(4) == 0 ? '?' : '.').toString();
+    }
+
+    private static String prose(Random random, int length) {
+        StringBuilder prose = new StringBuilder();
+        while (prose.length() < length) {
+            prose.append(sentence(random, 8 + random.nextInt(18)));
+            prose.append(random.nextInt(6) == 0 ? "\n\n" : " ");
+        }
+        return prose.toString();
+    }
+
+    private static String log(Random random, int lines) {
+        StringBuilder log = new StringBuilder();
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 9, 30);
+        for (int i = 0; i < lines; i++) {
+            time = time.plusNanos(random.nextInt(900_000_000));
+            String level = LEVELS[random.nextInt(LEVELS.length)];
+            log.append(time).append(' ').append(level)
+                    .append(" [http-nio-8080-exec-").append(1 + random.nextInt(10)).append("] ")
+                    .append(LOGGERS[random.nextInt(LOGGERS.length)]).append(" - ");
+            if (level.equals("ERROR")) {
+                log.append("Request failed for conversation ").append(random.nextInt(100_000)).append('\n')
+                        .append("java.lang.IllegalStateException: Connection is closed\n")
+                        .append("\tat com.zaxxer.hikari.pool.ProxyConnection.checkClosed(ProxyConnection.java:515)\n")
+                        .append("\tat com.zaxxer.hikari.pool.HikariProxyConnection.prepareStatement(HikariProxyConnection.java)\n")
+                        .append("\tat com.multilingo.Message.MessageWriter.write(MessageWriter.java:")
+                        .append(80 + random.nextInt(40)).append(")\n");
+            } else {
+                log.append("Loaded page of ").append(1 + random.nextInt(50)).append(" messages for conversation ")
+                        .append(random.nextInt(100_000)).append(" in ").append(random.nextInt(40)).append(" ms\n");
+            }
+        }
+        return log.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package com.multilingo.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures messages written per second over a single connection to a local
+ * PostgreSQL, by the number of messages committed together.
+ * <p>
+ * Each message is one insert plus the update of its conversation's
+ * last_message_at, as written by {@link MessageWriter}. A group size of 1 is a
+ * transaction per send; larger groups are what {@link MessageWriteBuffer} commits
+ * under load, with the inserts sent as one JDBC batch and one update per
+ * conversation. The messages are spread over a handful of conversations.
+ * <p>
+ * Point {@code -Dbenchmark.jdbc.url} (and {@code .user}/{@code .password}) at a
+ * scratch database; the benchmark creates and drops its own tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class MessageGroupCommitBenchmark {
+
+    private static final int MESSAGES = 1000;
+    private static final int CONVERSATIONS = 8;
+
+    @Param({"1", "10", "50", "100"})
+    public int groupSize;
+
+    private Connection connection;
+    private PreparedStatement nextIds;
+    private PreparedStatement insertMessage;
+    private PreparedStatement updateConversation;
+    private LocalDateTime sentAt;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url",
+                        "jdbc:postgresql://localhost:5432/multilingo_dev?reWriteBatchedInserts=true"),
+                System.getProperty("benchmark.jdbc.user", "postgres"),
+                System.getProperty("benchmark.jdbc.password", "postgres"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS benchmark_group_messages");
+            statement.execute("DROP TABLE IF EXISTS benchmark_group_conversations");
+            statement.execute("DROP SEQUENCE IF EXISTS benchmark_group_messages_seq");
+            statement.execute("CREATE TABLE benchmark_group_conversations ("
+                    + "id BIGINT PRIMARY KEY, last_message_at TIMESTAMP)");
+            statement.execute("CREATE TABLE benchmark_group_messages ("
+                    + "id BIGINT PRIMARY KEY, conversation_id BIGINT NOT NULL, "
+                    + "sender_id BIGINT NOT NULL, content TEXT NOT NULL, sent_at TIMESTAMP NOT NULL)");
+            statement.execute("CREATE SEQUENCE benchmark_group_messages_seq START WITH 50 INCREMENT BY 50");
+            statement.execute("INSERT INTO benchmark_group_conversations (id) "
+                    + "SELECT generate_series(1, " + CONVERSATIONS + ")");
+        }
+
+        nextIds = connection.prepareStatement("SELECT nextval('benchmark_group_messages_seq')");
+        insertMessage = connection.prepareStatement("INSERT INTO benchmark_group_messages "
+                + "(id, conversation_id, sender_id, content, sent_at) VALUES (?, ?, ?, ?, ?)");
+        updateConversation = connection.prepareStatement(
+                "UPDATE benchmark_group_conversations SET last_message_at = ? WHERE id = ?");
+        sentAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE benchmark_group_messages");
+            statement.execute("DROP TABLE benchmark_group_conversations");
+            statement.execute("DROP SEQUENCE benchmark_group_messages_seq");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long writeMessages() throws SQLException {
+        long checksum = 0;
+        long id = 0;
+        long idsLeft = 0;
+        for (int start = 0; start < MESSAGES; start += groupSize) {
+            int end = Math.min(start + groupSize, MESSAGES);
+            Timestamp[] lastMessageAt = new Timestamp[CONVERSATIONS];
+            for (int i = start; i < end; i++) {
+                if (idsLeft == 0) {
+                    try (ResultSet value = nextIds.executeQuery()) {
+                        value.next();
+                        id = value.getLong(1) - 49;
+                        idsLeft = 50;
+                    }
+                }
+                int conversation = i % CONVERSATIONS;
+                sentAt = sentAt.plusNanos(1000);
+                Timestamp timestamp = Timestamp.valueOf(sentAt);
+                insertMessage.setLong(1, id);
+                insertMessage.setLong(2, conversation + 1);
+                insertMessage.setLong(3, i % 3);
+                insertMessage.setString(4, "message " + i);
+                insertMessage.setTimestamp(5, timestamp);
+                insertMessage.addBatch();
+                lastMessageAt[conversation] = timestamp;
+                checksum += id++;
+                idsLeft--;
+            }
+            insertMessage.executeBatch();
+
+            for (int conversation = 0; conversation < CONVERSATIONS; conversation++) {
+                if (lastMessageAt[conversation] != null) {
+                    updateConversation.setTimestamp(1, lastMessageAt[conversation]);
+                    updateConversation.setLong(2, conversation + 1);
+                    updateConversation.addBatch();
+                }
+            }
+            updateConversation.executeBatch();
+            connection.commit();
+        }
+        return checksum;
+    }
+}
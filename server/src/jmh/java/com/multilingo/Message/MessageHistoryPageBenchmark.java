@@ -0,0 +1,109 @@
+package com.multilingo.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures fetching a page of conversation history as the conversation grows.
+ * <p>
+ * Runs the keyset queries behind {@link MessageRepository#findLatestHistoryPage} and
+ * {@link MessageRepository#findHistoryPageBefore} against an in-memory H2 database
+ * with the (conversation_id, sent_at, id) index. The latency should stay flat from
+ * a thousand to ten million messages, since each page is an index seek followed by
+ * reading one page of rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+public class MessageHistoryPageBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int messageCount;
+
+    private Connection connection;
+    private PreparedStatement latestPage;
+    private PreparedStatement pageBefore;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:history;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS messages");
+            statement.execute("CREATE TABLE messages ("
+                    + "id BIGINT PRIMARY KEY, conversation_id BIGINT NOT NULL, "
+                    + "sent_at TIMESTAMP NOT NULL, content VARCHAR(255) NOT NULL)");
+            // A second, small conversation so the index is not trivially single-valued
+            statement.execute("INSERT INTO messages "
+                    + "SELECT X, CASE WHEN MOD(X, 1000) = 0 THEN 2 ELSE 1 END, "
+                    + "DATEADD('SECOND', X, TIMESTAMP '2024-01-01 00:00:00'), CONCAT('message ', X) "
+                    + "FROM SYSTEM_RANGE(1, " + messageCount + ")");
+            statement.execute("CREATE INDEX idx_messages_conversation_sent_at ON messages (conversation_id, sent_at, id)");
+        }
+
+        latestPage = connection.prepareStatement("SELECT id, sent_at, content FROM messages "
+                + "WHERE conversation_id = ? "
+                + "ORDER BY sent_at DESC, id DESC LIMIT ?");
+        pageBefore = connection.prepareStatement("SELECT id, sent_at, content FROM messages "
+                + "WHERE conversation_id = ? AND (sent_at < ? OR (sent_at = ? AND id < ?)) "
+                + "ORDER BY sent_at DESC, id DESC LIMIT ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE messages");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long newestPage() throws SQLException {
+        latestPage.setLong(1, 1L);
+        latestPage.setInt(2, PAGE_SIZE + 1);
+        return drain(latestPage);
+    }
+
+    @Benchmark
+    public long pageFromMiddleOfHistory() throws SQLException {
+        long cursorId = messageCount / 2 + 1;
+        Timestamp cursorSentAt = Timestamp.valueOf(START.plusSeconds(cursorId));
+        pageBefore.setLong(1, 1L);
+        pageBefore.setTimestamp(2, cursorSentAt);
+        pageBefore.setTimestamp(3, cursorSentAt);
+        pageBefore.setLong(4, cursorId);
+        pageBefore.setInt(5, PAGE_SIZE + 1);
+        return drain(pageBefore);
+    }
+
+    private static long drain(PreparedStatement query) throws SQLException {
+        long checksum = 0;
+        try (ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                checksum += rows.getLong(1) + rows.getString(3).length();
+            }
+        }
+        return checksum;
+    }
+}
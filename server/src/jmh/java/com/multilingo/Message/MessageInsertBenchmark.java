@@ -0,0 +1,140 @@
+package com.multilingo.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures message insert throughput against a local PostgreSQL, before and after
+ * the switch from identity columns to pooled sequences.
+ * <p>
+ * {@link #identityInserts} inserts each row on its own and reads back the generated
+ * ID, which is what Hibernate has to do with {@code GenerationType.IDENTITY}.
+ * {@link #pooledSequenceBatchedInserts} draws one sequence value per 50 rows and
+ * sends the rows in JDBC batches of 50, as Hibernate does with the pooled
+ * {@code messages_seq} and {@code hibernate.jdbc.batch_size=50}.
+ * <p>
+ * Point {@code -Dbenchmark.jdbc.url} (and {@code .user}/{@code .password}) at a
+ * scratch database; the benchmark creates and drops its own tables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+public class MessageInsertBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    private Connection connection;
+    private PreparedStatement identityInsert;
+    private PreparedStatement nextId;
+    private PreparedStatement pooledInsert;
+    private Timestamp sentAt;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("benchmark.jdbc.url",
+                        "jdbc:postgresql://localhost:5432/multilingo_dev?reWriteBatchedInserts=true"),
+                System.getProperty("benchmark.jdbc.user", "postgres"),
+                System.getProperty("benchmark.jdbc.password", "postgres"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS benchmark_messages_identity");
+            statement.execute("DROP TABLE IF EXISTS benchmark_messages_pooled");
+            statement.execute("DROP SEQUENCE IF EXISTS benchmark_messages_seq");
+            statement.execute("CREATE TABLE benchmark_messages_identity ("
+                    + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, conversation_id BIGINT NOT NULL, "
+                    + "sender_id BIGINT NOT NULL, content TEXT NOT NULL, sent_at TIMESTAMP NOT NULL)");
+            statement.execute("CREATE TABLE benchmark_messages_pooled ("
+                    + "id BIGINT PRIMARY KEY, conversation_id BIGINT NOT NULL, "
+                    + "sender_id BIGINT NOT NULL, content TEXT NOT NULL, sent_at TIMESTAMP NOT NULL)");
+            statement.execute("CREATE SEQUENCE benchmark_messages_seq START WITH " + BATCH_SIZE + " INCREMENT BY " + BATCH_SIZE);
+        }
+
+        identityInsert = connection.prepareStatement("INSERT INTO benchmark_messages_identity "
+                + "(conversation_id, sender_id, content, sent_at) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS);
+        nextId = connection.prepareStatement("SELECT nextval('benchmark_messages_seq')");
+        pooledInsert = connection.prepareStatement("INSERT INTO benchmark_messages_pooled "
+                + "(id, conversation_id, sender_id, content, sent_at) VALUES (?, ?, ?, ?, ?)");
+        sentAt = Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0));
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE benchmark_messages_identity");
+            statement.execute("DROP TABLE benchmark_messages_pooled");
+            statement.execute("DROP SEQUENCE benchmark_messages_seq");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identityInserts() throws SQLException {
+        long checksum = 0;
+        for (int i = 0; i < ROWS; i++) {
+            identityInsert.setLong(1, i % 10);
+            identityInsert.setLong(2, i % 3);
+            identityInsert.setString(3, "message " + i);
+            identityInsert.setTimestamp(4, sentAt);
+            identityInsert.executeUpdate();
+            try (ResultSet keys = identityInsert.getGeneratedKeys()) {
+                keys.next();
+                checksum += keys.getLong(1);
+            }
+        }
+        connection.commit();
+        return checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooledSequenceBatchedInserts() throws SQLException {
+        long checksum = 0;
+        long id = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (i % BATCH_SIZE == 0) {
+                // Pooled optimizer: the drawn value is the last of the next 50 IDs
+                try (ResultSet value = nextId.executeQuery()) {
+                    value.next();
+                    id = value.getLong(1) - BATCH_SIZE + 1;
+                }
+            }
+            pooledInsert.setLong(1, id);
+            pooledInsert.setLong(2, i % 10);
+            pooledInsert.setLong(3, i % 3);
+            pooledInsert.setString(4, "message " + i);
+            pooledInsert.setTimestamp(5, sentAt);
+            pooledInsert.addBatch();
+            checksum += id++;
+            if ((i + 1) % BATCH_SIZE == 0) {
+                pooledInsert.executeBatch();
+            }
+        }
+        pooledInsert.executeBatch();
+        connection.commit();
+        return checksum;
+    }
+}
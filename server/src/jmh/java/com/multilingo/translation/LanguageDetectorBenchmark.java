@@ -0,0 +1,42 @@
+package com.multilingo.translation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-message cost of language detection on typical chat messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LanguageDetectorBenchmark {
+
+    @Param({
+            "ok",
+            "Could you send me the document before tomorrow's meeting?",
+            "¿Puedes enviarme el documento antes de la reunión de mañana? Lo necesito para preparar la presentación.",
+            "明日の会議は何時からですか"
+    })
+    public String message;
+
+    private LanguageDetector detector;
+
+    @Setup
+    public void setUp() {
+        detector = new LanguageDetector(true, List.of("en", "es", "fr", "de", "it", "pt", "nl"));
+    }
+
+    @Benchmark
+    public String detect() {
+        return detector.detect(message, "en");
+    }
+}
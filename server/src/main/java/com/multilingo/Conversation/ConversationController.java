@@ -30,7 +30,7 @@ public class ConversationController {
      * @return The conversation
      */
     @GetMapping("/{conversationId}")
-    public ResponseEntity<Conversation> getConversation(@PathVariable Long conversationId) {
+    public ResponseEntity<ConversationDTO> getConversation(@PathVariable Long conversationId) {
         return conversationService.getConversation(conversationId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -56,7 +56,7 @@ public class ConversationController {
      * @return The conversations
      */
     @GetMapping
-    public ResponseEntity<List<Conversation>> getUserConversations(Authentication authentication) {
+    public ResponseEntity<List<ConversationDTO>> getUserConversations(Authentication authentication) {
         String username = authentication.getName();
         return ResponseEntity.ok(conversationService.getUserConversations(username));
     }
@@ -1,6 +1,5 @@
 package com.multilingo.Conversation;
 
-import com.multilingo.Message.Message;
 import com.multilingo.User.UserDTO;
 
 import java.time.LocalDateTime;
@@ -16,10 +15,16 @@ public class ConversationDTO {
     private ConversationType type;
     private LocalDateTime lastMessageAt;
     private Set<UserDTO> users = new HashSet<>();
-    private Set<Message> messages = new HashSet<>();
     
     public ConversationDTO() {}
     
+    /**
+     * Constructor for JPQL projections; the type follows from the participants.
+     */
+    public ConversationDTO(Long id, String name, LocalDateTime lastMessageAt) {
+        this(id, name, null, lastMessageAt);
+    }
+    
     public ConversationDTO(Long id, String name, ConversationType type, LocalDateTime lastMessageAt) {
         this.id = id;
         this.name = name;
@@ -65,13 +70,6 @@ public class ConversationDTO {
     
     public void setUsers(Set<UserDTO> users) {
         this.users = users;
-    }
-    
-    public Set<Message> getMessages() {
-        return messages;
-    }
-    
-    public void setMessages(Set<Message> messages) {
-        this.messages = messages;
+        this.type = users.size() > 2 ? ConversationType.GROUP : ConversationType.PRIVATE;
     }
 }
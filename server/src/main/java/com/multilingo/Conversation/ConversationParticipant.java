@@ -0,0 +1,15 @@
+package com.multilingo.Conversation;
+
+import com.multilingo.User.UserDTO;
+
+/**
+ * A participant of a conversation, as projected by
+ * {@link ConversationRepository#findParticipants}.
+ */
+public record ConversationParticipant(
+        Long conversationId, Long id, String username, String name, String email, String preferredLanguage) {
+
+    public UserDTO toUserDTO() {
+        return new UserDTO(id, username, name, email, preferredLanguage);
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,4 +33,55 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
      */
     @Query("SELECT c FROM Conversation c JOIN c.users u WHERE u = :user")
     List<Conversation> findByUsers(@Param("user") User user);
+    
+    /**
+     * Find a conversation's summary without loading the entity.
+     * 
+     * @param id The ID of the conversation
+     * @return The conversation, without participants
+     */
+    @Query("SELECT new com.multilingo.Conversation.ConversationDTO(c.id, c.name, c.lastMessageAt) "
+            + "FROM Conversation c WHERE c.id = :id")
+    Optional<ConversationDTO> findSummaryById(@Param("id") Long id);
+    
+    /**
+     * Find the summaries of a user's conversations, most recently active first.
+     * 
+     * @param username The username of the user
+     * @return The conversations, without participants
+     */
+    @Query("SELECT new com.multilingo.Conversation.ConversationDTO(c.id, c.name, c.lastMessageAt) "
+            + "FROM Conversation c JOIN c.users u WHERE u.username = :username "
+            + "ORDER BY c.lastMessageAt DESC NULLS LAST, c.id DESC")
+    List<ConversationDTO> findSummariesByUsername(@Param("username") String username);
+    
+    /**
+     * Find the usernames of a conversation's participants without loading them.
+     * 
+     * @param conversationId The ID of the conversation
+     * @return The usernames
+     */
+    @Query("SELECT u.username FROM Conversation c JOIN c.users u WHERE c.id = :conversationId")
+    List<String> findParticipantUsernames(@Param("conversationId") Long conversationId);
+    
+    /**
+     * Check whether a user takes part in a conversation.
+     * 
+     * @param conversationId The ID of the conversation
+     * @param userId The ID of the user
+     * @return Whether the user is a participant
+     */
+    @Query("SELECT COUNT(c) > 0 FROM Conversation c JOIN c.users u WHERE c.id = :conversationId AND u.id = :userId")
+    boolean isParticipant(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
+    
+    /**
+     * Find the participants of several conversations in one query.
+     * 
+     * @param conversationIds The IDs of the conversations
+     * @return One row per conversation and participant
+     */
+    @Query("SELECT new com.multilingo.Conversation.ConversationParticipant("
+            + "c.id, u.id, u.username, u.name, u.email, u.preferredLanguage) "
+            + "FROM Conversation c JOIN c.users u WHERE c.id IN :conversationIds")
+    List<ConversationParticipant> findParticipants(@Param("conversationIds") Collection<Long> conversationIds);
 }
@@ -1,14 +1,17 @@
 package com.multilingo.Conversation;
 
 import com.multilingo.User.User;
+import com.multilingo.User.UserDTO;
 import com.multilingo.User.UserRepository;
 
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -74,25 +77,49 @@ public class ConversationService {
     }
 
     /**
-     * Gets a conversation by ID.
+     * Gets a conversation by ID with its participants.
      *
      * @param id The ID of the conversation
      * @return The conversation
      */
-    public Optional<Conversation> getConversation(Long id) {
-        return conversationRepository.findConversationById(id);
+    public Optional<ConversationDTO> getConversation(Long id) {
+        Optional<ConversationDTO> conversation = conversationRepository.findSummaryById(id);
+        conversation.ifPresent(dto -> addParticipants(List.of(dto)));
+        return conversation;
     }
     
     /**
-     * Gets all conversations for a user.
+     * Gets all conversations for a user with their participants, most recently active first.
      *
      * @param username The username of the user
      * @return The conversations
      */
-    public List<Conversation> getUserConversations(String username) {
-        User user = userRepository.findUserByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return conversationRepository.findByUsers(user);
+    public List<ConversationDTO> getUserConversations(String username) {
+        if (!userRepository.existsUserByUsername(username)) {
+            throw new IllegalArgumentException("User not found");
+        }
+        List<ConversationDTO> conversations = conversationRepository.findSummariesByUsername(username);
+        addParticipants(conversations);
+        return conversations;
+    }
+    
+    /**
+     * Loads the participants of all the conversations in a single query.
+     */
+    private void addParticipants(List<ConversationDTO> conversations) {
+        if (conversations.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<UserDTO>> participants = new HashMap<>();
+        for (ConversationDTO conversation : conversations) {
+            participants.put(conversation.getId(), new HashSet<>());
+        }
+        for (ConversationParticipant participant : conversationRepository.findParticipants(participants.keySet())) {
+            participants.get(participant.conversationId()).add(participant.toUserDTO());
+        }
+        for (ConversationDTO conversation : conversations) {
+            conversation.setUsers(participants.get(conversation.getId()));
+        }
     }
     
     /**
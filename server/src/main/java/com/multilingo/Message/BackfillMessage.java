@@ -0,0 +1,10 @@
+package com.multilingo.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message a translation backfill still has to translate.
+ */
+public record BackfillMessage(
+        Long id, Long conversationId, String content, String messageLanguage, LocalDateTime sentAt) {
+}
@@ -0,0 +1,10 @@
+package com.multilingo.Message;
+
+/**
+ * Enum representing the state of a translation backfill.
+ */
+public enum BackfillStatus {
+    RUNNING,
+    COMPLETED,
+    SUPERSEDED
+}
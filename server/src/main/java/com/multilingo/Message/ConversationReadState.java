@@ -0,0 +1,72 @@
+package com.multilingo.Message;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far a user has read a conversation.
+ * <p>
+ * The watermark is the newest message the user has read, by the same
+ * (sentAt, id) order history is paged in: every message up to and including it
+ * counts as read, every later one as unread. Reading any number of messages is
+ * one upsert that only ever moves the watermark forward.
+ */
+@Entity
+@Table(name = "conversation_read_state")
+public class ConversationReadState {
+
+    @EmbeddedId
+    private ConversationReadStateId id;
+
+    @Column(name = "last_read_message_id", nullable = false)
+    private Long lastReadMessageId;
+
+    @Column(name = "last_read_sent_at", nullable = false)
+    private LocalDateTime lastReadSentAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public ConversationReadState() {
+    }
+
+    public ConversationReadState(Long userId, Long conversationId, Long lastReadMessageId, LocalDateTime lastReadSentAt) {
+        this.id = new ConversationReadStateId(userId, conversationId);
+        this.lastReadMessageId = lastReadMessageId;
+        this.lastReadSentAt = lastReadSentAt;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public ConversationReadStateId getId() {
+        return id;
+    }
+
+    public void setId(ConversationReadStateId id) {
+        this.id = id;
+    }
+
+    public Long getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+
+    public void setLastReadMessageId(Long lastReadMessageId) {
+        this.lastReadMessageId = lastReadMessageId;
+    }
+
+    public LocalDateTime getLastReadSentAt() {
+        return lastReadSentAt;
+    }
+
+    public void setLastReadSentAt(LocalDateTime lastReadSentAt) {
+        this.lastReadSentAt = lastReadSentAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,57 @@
+package com.multilingo.Message;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Composite key of a read state or unread count: the reader and the conversation.
+ */
+@Embeddable
+public class ConversationReadStateId implements Serializable {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "conversation_id", nullable = false)
+    private Long conversationId;
+
+    public ConversationReadStateId() {
+    }
+
+    public ConversationReadStateId(Long userId, Long conversationId) {
+        this.userId = userId;
+        this.conversationId = conversationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+
+    public void setConversationId(Long conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ConversationReadStateId that = (ConversationReadStateId) o;
+        return Objects.equals(userId, that.userId) && Objects.equals(conversationId, that.conversationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, conversationId);
+    }
+}
@@ -0,0 +1,48 @@
+package com.multilingo.Message;
+
+import jakarta.transaction.Transactional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for ConversationReadState entity.
+ */
+@Repository
+public interface ConversationReadStateRepository extends JpaRepository<ConversationReadState, ConversationReadStateId> {
+
+    /**
+     * Find the watermarks of every participant of a conversation.
+     */
+    List<ConversationReadState> findByIdConversationId(Long conversationId);
+
+    /**
+     * Move a user's watermark in a conversation forward to a message, creating it
+     * if needed. A watermark already at or past the message is left as it is.
+     *
+     * @return The number of rows written: 1 if the watermark moved, otherwise 0
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversation_read_state "
+            + "(user_id, conversation_id, last_read_message_id, last_read_sent_at, updated_at) "
+            + "VALUES (:userId, :conversationId, :messageId, :sentAt, now()) "
+            + "ON CONFLICT (user_id, conversation_id) DO UPDATE SET "
+            + "last_read_message_id = EXCLUDED.last_read_message_id, "
+            + "last_read_sent_at = EXCLUDED.last_read_sent_at, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "WHERE (conversation_read_state.last_read_sent_at, conversation_read_state.last_read_message_id) "
+            + "< (EXCLUDED.last_read_sent_at, EXCLUDED.last_read_message_id)",
+            nativeQuery = true)
+    int advance(
+            @Param("userId") Long userId,
+            @Param("conversationId") Long conversationId,
+            @Param("messageId") Long messageId,
+            @Param("sentAt") LocalDateTime sentAt);
+}
@@ -0,0 +1,47 @@
+package com.multilingo.Message;
+
+import jakarta.persistence.*;
+
+/**
+ * How many messages of a conversation a user has not read yet.
+ * <p>
+ * The count is maintained rather than computed: every send adds to the counts
+ * of the other participants, and every move of the user's
+ * {@link ConversationReadState} watermark resets it to the exact number of
+ * messages after the watermark. Reading all of a user's counts is one
+ * index lookup, however many messages their conversations hold.
+ */
+@Entity
+@Table(name = "conversation_unread_counts")
+public class ConversationUnreadCount {
+
+    @EmbeddedId
+    private ConversationReadStateId id;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    public ConversationUnreadCount() {
+    }
+
+    public ConversationUnreadCount(Long userId, Long conversationId, long unreadCount) {
+        this.id = new ConversationReadStateId(userId, conversationId);
+        this.unreadCount = unreadCount;
+    }
+
+    public ConversationReadStateId getId() {
+        return id;
+    }
+
+    public void setId(ConversationReadStateId id) {
+        this.id = id;
+    }
+
+    public long getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(long unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
@@ -0,0 +1,83 @@
+package com.multilingo.Message;
+
+import jakarta.transaction.Transactional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for ConversationUnreadCount entity.
+ */
+@Repository
+public interface ConversationUnreadCountRepository
+        extends JpaRepository<ConversationUnreadCount, ConversationReadStateId> {
+
+    /**
+     * Find a user's unread counts without loading the entities.
+     *
+     * @param userId The ID of the user
+     * @return One row per conversation the user has a count for
+     */
+    @Query("SELECT new com.multilingo.Message.UnreadCount(c.id.conversationId, c.unreadCount) "
+            + "FROM ConversationUnreadCount c WHERE c.id.userId = :userId")
+    List<UnreadCount> findByUserId(@Param("userId") Long userId);
+
+    /**
+     * Add to the unread counts of every participant of a conversation except the
+     * sender, creating missing counts. Rows are written in user order so that
+     * concurrent sends to the same conversation cannot deadlock.
+     *
+     * @return The number of counts written
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversation_unread_counts (user_id, conversation_id, unread_count) "
+            + "SELECT uc.user_id, uc.conversation_id, :count FROM user_conversations uc "
+            + "WHERE uc.conversation_id = :conversationId AND uc.user_id <> :senderId "
+            + "ORDER BY uc.user_id "
+            + "ON CONFLICT (user_id, conversation_id) DO UPDATE SET "
+            + "unread_count = conversation_unread_counts.unread_count + EXCLUDED.unread_count",
+            nativeQuery = true)
+    int incrementForRecipients(
+            @Param("conversationId") Long conversationId,
+            @Param("senderId") Long senderId,
+            @Param("count") long count);
+
+    /**
+     * Lock a user's unread count in a conversation until the end of the
+     * transaction, creating it at zero if needed. Waits for sends that are adding
+     * to it to commit, so that a count taken afterwards includes their messages,
+     * and makes sends that start later add to whatever is set next.
+     *
+     * @return The number of counts locked
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversation_unread_counts (user_id, conversation_id, unread_count) "
+            + "VALUES (:userId, :conversationId, 0) "
+            + "ON CONFLICT (user_id, conversation_id) DO UPDATE SET "
+            + "unread_count = conversation_unread_counts.unread_count",
+            nativeQuery = true)
+    int lock(@Param("userId") Long userId, @Param("conversationId") Long conversationId);
+
+    /**
+     * Set a user's unread count in a conversation, creating it if needed. Lock the
+     * count with {@link #lock} before counting, or a send committed in between is
+     * overwritten.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO conversation_unread_counts (user_id, conversation_id, unread_count) "
+            + "VALUES (:userId, :conversationId, :count) "
+            + "ON CONFLICT (user_id, conversation_id) DO UPDATE SET unread_count = EXCLUDED.unread_count",
+            nativeQuery = true)
+    int set(
+            @Param("userId") Long userId,
+            @Param("conversationId") Long conversationId,
+            @Param("count") long count);
+}
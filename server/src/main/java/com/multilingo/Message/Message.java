@@ -11,32 +11,41 @@ import java.time.LocalDateTime;
 
 /**
  * Entity representing a message in a conversation.
+ * <p>
+ * The table is partitioned by month of {@code sentAt} (see the V4 migration), so
+ * its primary key in the database is (id, sent_at).
  */
 @Entity
 @Table(name = "messages", indexes = {
-    @Index(name = "idx_messages_conversation", columnList = "conversation_id"),
+    // Serves history pages by seeking to a (sent_at, id) position within a conversation
+    @Index(name = "idx_messages_conversation_sent_at", columnList = "conversation_id, sent_at, id"),
     @Index(name = "idx_messages_sender", columnList = "sender_id")
 })
 public class Message extends BaseEntity {
     
+    // Pooled sequence: one round trip reserves 50 IDs, which lets Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_seq")
+    @SequenceGenerator(name = "messages_seq", sequenceName = "messages_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Lazy: history is read through DTO projections, and writers already hold the sender
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id", nullable = false)
     @JsonIgnoreProperties({"email", "password", "conversations", "createdAt", "updatedAt", "deleted"})
     private User sender;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "conversation_id", nullable = false)
     @JsonIgnoreProperties({"users", "messages", "createdAt", "updatedAt", "deleted"})
     private Conversation conversation;
 
     @Column(nullable = false, columnDefinition = "TEXT")
+    @Convert(converter = MessageContentConverter.class)
     private String content;
 
     @Column(name = "translated_content", columnDefinition = "TEXT")
+    @Convert(converter = MessageContentConverter.class)
     private String translatedContent;
 
     @Column(name = "message_language", nullable = false)
@@ -49,9 +58,6 @@ public class Message extends BaseEntity {
     @Column(name = "sent_at", nullable = false)
     private LocalDateTime sentAt;
 
-    @Column(name = "is_read", nullable = false)
-    private boolean isRead = false;
-
     @Column(name = "translation_status", nullable = false)
     @Enumerated(EnumType.STRING)
     private TranslationStatus translationStatus = TranslationStatus.PENDING;
@@ -146,14 +152,6 @@ public class Message extends BaseEntity {
         this.sentAt = sentAt;
     }
 
-    public boolean isRead() {
-        return isRead;
-    }
-
-    public void setRead(boolean isRead) {
-        this.isRead = isRead;
-    }
-
     public TranslationStatus getTranslationStatus() {
         return translationStatus;
     }
@@ -165,8 +163,8 @@ public class Message extends BaseEntity {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Message message = (Message) o;
+        // instanceof and getters, so lazy proxies compare equal to the entity they stand for
+        if (!(o instanceof Message message)) return false;
         return getId() != null && getId().equals(message.getId());
     }
 
@@ -179,8 +177,9 @@ public class Message extends BaseEntity {
     public String toString() {
         return "Message{" +
                 "id=" + id +
-                ", sender=" + sender.getUsername() +
-                ", conversation=" + conversation.getId() +
+                // IDs only, so printing never loads the lazy associations
+                ", senderId=" + (sender != null ? sender.getId() : null) +
+                ", conversation=" + (conversation != null ? conversation.getId() : null) +
                 ", messageType=" + messageType +
                 ", translationStatus=" + translationStatus +
                 ", sentAt=" + sentAt +
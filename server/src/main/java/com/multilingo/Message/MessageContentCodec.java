@@ -0,0 +1,124 @@
+package com.multilingo.Message;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Stored form of message text, compressing long text with LZ4.
+ * <p>
+ * Text is stored as is unless it starts with a header: the character U+0001
+ * followed by a format character.
+ * <ul>
+ *   <li>{@code L}: Base64 of the UTF-8 length of the text (4 bytes, big endian)
+ *   followed by the LZ4 block of its UTF-8 bytes</li>
+ *   <li>{@code P}: the text itself, for text that starts with U+0001</li>
+ * </ul>
+ * Text shorter than {@code minLength} characters, or that would not get smaller,
+ * is stored uncompressed. Stored values without a header, including every row
+ * written before compression was enabled, decode to themselves, so compression
+ * can be turned on and off at any time.
+ */
+public final class MessageContentCodec {
+
+    static final char HEADER = '\u0001';
+    static final char LZ4 = 'L';
+    static final char PLAIN = 'P';
+
+    private static final int LENGTH_BYTES = 4;
+    // LZ4 cannot expand input by more than this, which bounds the length a block may claim
+    private static final int MAX_RATIO = 255;
+
+    private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+    private static final LZ4Compressor COMPRESSOR = LZ4_FACTORY.fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4_FACTORY.safeDecompressor();
+
+    private final boolean enabled;
+    private final int minLength;
+
+    public MessageContentCodec(boolean enabled, int minLength) {
+        if (minLength <= 0) {
+            throw new IllegalArgumentException("Minimum length must be positive");
+        }
+        this.enabled = enabled;
+        this.minLength = minLength;
+    }
+
+    /**
+     * Converts text to its stored form.
+     *
+     * @param text The text, or null
+     * @return The stored form, or null for null
+     */
+    public String encode(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (enabled && text.length() >= minLength) {
+            String compressed = compress(text);
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        return !text.isEmpty() && text.charAt(0) == HEADER ? "" + HEADER + PLAIN + text : text;
+    }
+
+    /**
+     * Converts a stored value back to its text. Values that are not in a
+     * recognized format are returned unchanged.
+     *
+     * @param stored The stored value, or null
+     * @return The text, or null for null
+     */
+    public static String decode(String stored) {
+        if (stored == null || stored.length() < 2 || stored.charAt(0) != HEADER) {
+            return stored;
+        }
+        return switch (stored.charAt(1)) {
+            case PLAIN -> stored.substring(2);
+            case LZ4 -> decompress(stored);
+            default -> stored;
+        };
+    }
+
+    // Null when the stored form would not be shorter than the UTF-8 text
+    private static String compress(String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        int maxLength = COMPRESSOR.maxCompressedLength(utf8.length);
+        byte[] block = new byte[LENGTH_BYTES + maxLength];
+        ByteBuffer.wrap(block).putInt(utf8.length);
+        int length = COMPRESSOR.compress(utf8, 0, utf8.length, block, LENGTH_BYTES, maxLength);
+
+        // Base64 adds a third, so only text that compresses well is worth it
+        int storedLength = 2 + 4 * ((LENGTH_BYTES + length + 2) / 3);
+        if (storedLength >= utf8.length) {
+            return null;
+        }
+        return "" + HEADER + LZ4 + Base64.getEncoder().encodeToString(Arrays.copyOf(block, LENGTH_BYTES + length));
+    }
+
+    private static String decompress(String stored) {
+        try {
+            byte[] block = Base64.getDecoder().decode(stored.substring(2));
+            if (block.length <= LENGTH_BYTES) {
+                return stored;
+            }
+            int length = ByteBuffer.wrap(block).getInt();
+            if (length < 0 || length > (long) (block.length - LENGTH_BYTES) * MAX_RATIO) {
+                return stored;
+            }
+            byte[] utf8 = new byte[length];
+            int decompressed = DECOMPRESSOR.decompress(block, LENGTH_BYTES, block.length - LENGTH_BYTES, utf8, 0, length);
+            return decompressed == length ? new String(utf8, StandardCharsets.UTF_8) : stored;
+        } catch (IllegalArgumentException | LZ4Exception e) {
+            // Text that happens to start like a header but was never compressed
+            return stored;
+        }
+    }
+}
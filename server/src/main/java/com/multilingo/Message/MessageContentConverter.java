@@ -0,0 +1,37 @@
+package com.multilingo.Message;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Stores message text in its {@link MessageContentCodec} form, which compresses
+ * long text when {@code messages.compression.enabled} is set. Columns stay TEXT,
+ * so uncompressed values remain readable from SQL.
+ * <p>
+ * Hibernate obtains the converter from Spring, which supplies its settings.
+ */
+@Converter
+public class MessageContentConverter implements AttributeConverter<String, String> {
+
+    private final MessageContentCodec codec;
+
+    @Autowired
+    public MessageContentConverter(
+            @Value("${messages.compression.enabled:false}") boolean enabled,
+            @Value("${messages.compression.min-length:1024}") int minLength) {
+        this.codec = new MessageContentCodec(enabled, minLength);
+    }
+
+    @Override
+    public String convertToDatabaseColumn(String text) {
+        return codec.encode(text);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stored) {
+        return MessageContentCodec.decode(stored);
+    }
+}
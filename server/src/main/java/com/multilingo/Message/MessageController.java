@@ -1,12 +1,19 @@
 package com.multilingo.Message;
 
 import com.multilingo.User.User;
+import com.multilingo.User.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for message-related endpoints.
@@ -15,42 +22,130 @@ import java.util.List;
 @RequestMapping("/api/v1/messages")
 public class MessageController {
     private final MessageService messageService;
+    private final MessageReadService messageReadService;
+    private final UnreadCountService unreadCountService;
+    private final MessageSearchService messageSearchService;
+    private final MessageExportService messageExportService;
+    private final UserService userService;
+    private final boolean unboundedHistoryEnabled;
 
     @Autowired
-    public MessageController(MessageService messageService) {
+    public MessageController(
+            MessageService messageService,
+            MessageReadService messageReadService,
+            UnreadCountService unreadCountService,
+            MessageSearchService messageSearchService,
+            MessageExportService messageExportService,
+            UserService userService,
+            @Value("${messages.history.unbounded-enabled:false}") boolean unboundedHistoryEnabled) {
         this.messageService = messageService;
+        this.messageReadService = messageReadService;
+        this.unreadCountService = unreadCountService;
+        this.messageSearchService = messageSearchService;
+        this.messageExportService = messageExportService;
+        this.userService = userService;
+        this.unboundedHistoryEnabled = unboundedHistoryEnabled;
     }
 
     /**
      * Endpoint for sending a message.
      */
     @PostMapping("/send")
-    public ResponseEntity<Message> sendMessage(@RequestBody MessageRequest request) {
-        return ResponseEntity.ok(messageService.sendMessage(
+    public ResponseEntity<MessageDTO> sendMessage(@RequestBody MessageRequest request) {
+        Message message = messageService.sendMessage(
                 request.getSender(), 
                 request.getConversationId(), 
                 request.getContent(),
                 request.getMessageType()
-        ));
+        );
+        return ResponseEntity.ok(new MessageDTO(message));
     }
     
     /**
-     * Endpoint for getting messages for a conversation.
+     * Endpoint for getting a page of a conversation's history in the reader's language.
+     * Without a cursor the newest messages are returned; pass a returned cursor as
+     * {@code before} for older messages or as {@code after} for newer ones.
      */
     @GetMapping("/conversation/{conversationId}")
-    public ResponseEntity<List<Message>> getMessagesForConversation(@PathVariable Long conversationId) {
-        return ResponseEntity.ok(messageService.getMessagesForConversation(conversationId));
+    public ResponseEntity<MessagePage> getMessagesForConversation(
+            @PathVariable Long conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50") int limit,
+            Authentication authentication) {
+        User reader = userService.getUserByUsername(authentication.getName());
+        return ResponseEntity.ok(messageService.getMessagePage(conversationId, reader, before, after, limit));
+    }
+
+    /**
+     * Endpoint for getting the entire history of a conversation in the reader's language.
+     * Only available when {@code messages.history.unbounded-enabled} is set.
+     */
+    @GetMapping("/conversation/{conversationId}/all")
+    public ResponseEntity<List<MessageDTO>> getAllMessagesForConversation(
+            @PathVariable Long conversationId, Authentication authentication) {
+        if (!unboundedHistoryEnabled) {
+            return ResponseEntity.notFound().build();
+        }
+        User reader = userService.getUserByUsername(authentication.getName());
+        return ResponseEntity.ok(messageService.getMessagesForConversation(conversationId, reader));
+    }
+    
+    /**
+     * Endpoint for exporting the entire history of a conversation in the reader's
+     * language as NDJSON, one message per line, oldest first. The response is
+     * streamed while the history is read, so conversations of any size can be exported.
+     * Only participants of the conversation and admins may export it.
+     */
+    @GetMapping(value = "/conversation/{conversationId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportConversation(
+            @PathVariable Long conversationId, Authentication authentication) {
+        User reader = userService.getUserByUsername(authentication.getName());
+        messageExportService.checkAccess(conversationId, reader);
+        StreamingResponseBody body = out -> messageExportService.exportConversation(conversationId, reader, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"conversation-" + conversationId + ".ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
     
     /**
-     * Endpoint for marking a message as read.
+     * Endpoint for marking a message, and every message before it in its
+     * conversation, as read by the authenticated user.
      */
     @PostMapping("/{messageId}/read")
-    public ResponseEntity<Void> markAsRead(@PathVariable Long messageId, @RequestBody User user) {
-        messageService.markAsRead(messageId, user);
+    public ResponseEntity<Void> markAsRead(@PathVariable Long messageId, Authentication authentication) {
+        User reader = userService.getUserByUsername(authentication.getName());
+        messageReadService.markReadUpTo(messageId, reader);
         return ResponseEntity.ok().build();
     }
     
+    /**
+     * Endpoint for getting the authenticated user's unread counts, by conversation
+     * ID. Conversations without unread messages are left out.
+     */
+    @GetMapping("/unread")
+    public ResponseEntity<Map<Long, Long>> getUnreadCounts(Authentication authentication) {
+        User reader = userService.getUserByUsername(authentication.getName());
+        return ResponseEntity.ok(unreadCountService.getUnreadCounts(reader.getId()));
+    }
+    
+    /**
+     * Endpoint for searching the authenticated user's conversations in their
+     * language, best match first. Pass the returned cursor as {@code after} for
+     * the next page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<MessageSearchPage> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        User searcher = userService.getUserByUsername(authentication.getName());
+        return ResponseEntity.ok(messageSearchService.search(searcher, q, after, limit));
+    }
+    
     /**
      * Request class for sending messages.
      */
@@ -0,0 +1,49 @@
+package com.multilingo.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a message in a conversation's history, ordered by sent time and ID.
+ * Clients receive it as an opaque string and pass it back to page from there.
+ */
+public record MessageCursor(LocalDateTime sentAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static MessageCursor of(MessageDTO message) {
+        return new MessageCursor(message.getSentAt(), message.getId());
+    }
+
+    /**
+     * Encodes the cursor as a URL-safe string.
+     */
+    public String encode() {
+        String raw = sentAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param encoded The encoded cursor
+     * @return The cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static MessageCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid message cursor");
+            }
+            return new MessageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid message cursor", e);
+        }
+    }
+}
@@ -35,10 +35,48 @@ public class MessageDTO {
         this.messageLanguage = message.getMessageLanguage();
         this.messageType = message.getMessageType();
         this.sentAt = message.getSentAt();
-        this.read = message.isRead();
         this.translationStatus = message.getTranslationStatus();
     }
 
+    public MessageDTO(
+            Long id,
+            Long senderId,
+            String senderUsername,
+            Long conversationId,
+            String content,
+            String translatedContent,
+            String messageLanguage,
+            MessageType messageType,
+            LocalDateTime sentAt,
+            boolean read,
+            TranslationStatus translationStatus) {
+        this.id = id;
+        this.senderId = senderId;
+        this.senderUsername = senderUsername;
+        this.conversationId = conversationId;
+        this.content = content;
+        this.translatedContent = translatedContent;
+        this.messageLanguage = messageLanguage;
+        this.messageType = messageType;
+        this.sentAt = sentAt;
+        this.read = read;
+        this.translationStatus = translationStatus;
+    }
+
+    public MessageDTO(MessageDTO other) {
+        this.id = other.id;
+        this.senderId = other.senderId;
+        this.senderUsername = other.senderUsername;
+        this.conversationId = other.conversationId;
+        this.content = other.content;
+        this.translatedContent = other.translatedContent;
+        this.messageLanguage = other.messageLanguage;
+        this.messageType = other.messageType;
+        this.sentAt = other.sentAt;
+        this.read = other.read;
+        this.translationStatus = other.translationStatus;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,17 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message that has been validated and is waiting to be written.
+ */
+public record MessageDraft(
+        User sender,
+        Long conversationId,
+        String content,
+        MessageType messageType,
+        String messageLanguage,
+        LocalDateTime sentAt) {
+}
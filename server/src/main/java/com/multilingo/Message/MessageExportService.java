@@ -0,0 +1,166 @@
+package com.multilingo.Message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multilingo.Conversation.ConversationRepository;
+import com.multilingo.User.User;
+import com.multilingo.User.UserRole;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for exporting the whole history of a conversation.
+ * <p>
+ * Messages are read in keyset pages of {@code page-size}, each in its own short
+ * transaction, and written as they arrive, one JSON object per line (NDJSON), so
+ * neither memory use nor the time a transaction stays open grows with the size of
+ * the conversation or the speed of the client. Rows are read as {@link MessageDTO}
+ * projections rather than entities, which would pile up in the persistence context
+ * and load their senders one by one.
+ * <p>
+ * Every running export keeps a connection busy while it writes, so at most
+ * {@code max-concurrent} run at once; the rest wait up to {@code max-wait} for
+ * their turn.
+ */
+@Service
+public class MessageExportService {
+    private static final Logger logger = LoggerFactory.getLogger(MessageExportService.class);
+
+    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final Semaphore exportPermits;
+    private final Duration maxWait;
+
+    @Autowired
+    public MessageExportService(
+            MessageRepository messageRepository,
+            ConversationRepository conversationRepository,
+            ObjectMapper objectMapper,
+            @Value("${messages.export.page-size:1000}") int pageSize,
+            @Value("${messages.export.max-concurrent:2}") int maxConcurrent,
+            @Value("${messages.export.max-wait:30s}") Duration maxWait) {
+        if (pageSize <= 0 || maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Page size and concurrent exports must be positive");
+        }
+        this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.exportPermits = new Semaphore(maxConcurrent, true);
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Checks that a user may export a conversation: its participants and admins may.
+     * Called before the response starts, while it can still be refused.
+     *
+     * @param conversationId The ID of the conversation
+     * @param reader The user exporting the history
+     * @throws AccessDeniedException If the user may not read the conversation
+     */
+    public void checkAccess(Long conversationId, User reader) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Conversation ID cannot be null");
+        }
+
+        if (reader == null || reader.getId() == null) {
+            throw new IllegalArgumentException("Reader cannot be null");
+        }
+
+        if (reader.getRole() != UserRole.ADMIN && !conversationRepository.isParticipant(conversationId, reader.getId())) {
+            throw new AccessDeniedException("Not a participant of conversation " + conversationId);
+        }
+    }
+
+    /**
+     * Writes every message of a conversation, oldest first, as the reader sees it in
+     * the history: translated into their language where a stored translation exists
+     * and marked read up to their watermark. Pages are read one after another, so
+     * messages sent while the export runs are included if they sort after the page
+     * being written. The caller checks access with {@link #checkAccess} first.
+     *
+     * @param conversationId The ID of the conversation
+     * @param reader The user exporting the history
+     * @param out Where to write the NDJSON; left open
+     * @return The number of messages written
+     * @throws IllegalStateException If no export slot frees up within {@code max-wait}
+     * @throws IOException If writing fails
+     */
+    public long exportConversation(Long conversationId, User reader, OutputStream out) throws IOException {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Conversation ID cannot be null");
+        }
+
+        if (reader == null || reader.getPreferredLanguage() == null) {
+            throw new IllegalArgumentException("Reader and their language cannot be null");
+        }
+
+        acquirePermit();
+        try {
+            return writeHistory(conversationId, reader, out);
+        } finally {
+            exportPermits.release();
+        }
+    }
+
+    private long writeHistory(Long conversationId, User reader, OutputStream out) throws IOException {
+        String language = reader.getPreferredLanguage();
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        // Lines are separated by the newlines written below, not by Jackson's default space
+        generator.setRootValueSeparator(null);
+        // Leave the stream to the caller, and flushing to the generator's buffer size
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+        long count = 0;
+        try {
+            PageRequest page = PageRequest.of(0, pageSize);
+            List<MessageDTO> messages = messageRepository.findEarliestHistoryPage(
+                    conversationId, reader.getId(), language, page);
+            while (!messages.isEmpty()) {
+                for (MessageDTO message : messages) {
+                    MessageService.applyTranslationStatus(message, language);
+                    generator.writeObject(message);
+                    generator.writeRaw('\n');
+                    count++;
+                }
+                if (messages.size() < pageSize) {
+                    break;
+                }
+                MessageDTO last = messages.get(messages.size() - 1);
+                messages = messageRepository.findHistoryPageAfter(
+                        conversationId, reader.getId(), language, last.getSentAt(), last.getId(), page);
+            }
+        } finally {
+            generator.close();
+        }
+        logger.info("Exported {} messages of conversation {} for user {}", count, conversationId, reader.getId());
+        return count;
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!exportPermits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Too many history exports are running, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to export", e);
+        }
+    }
+}
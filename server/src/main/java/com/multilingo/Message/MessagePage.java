@@ -0,0 +1,14 @@
+package com.multilingo.Message;
+
+import java.util.List;
+
+/**
+ * A page of a conversation's history in ascending order.
+ *
+ * @param messages The messages of the page, oldest first
+ * @param olderCursor Cursor to pass as {@code before} for the preceding page, or null at the start of the history
+ * @param newerCursor Cursor to pass as {@code after} for the following page, or to poll for new messages at the
+ *                    end of the history; null only when the conversation has no messages
+ */
+public record MessagePage(List<MessageDTO> messages, String olderCursor, String newerCursor) {
+}
@@ -0,0 +1,219 @@
+package com.multilingo.Message;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of the messages table ahead of time and archives
+ * the expired ones.
+ * <p>
+ * Partitions for the current month and the next {@code months-ahead} months are
+ * created by the {@code create_message_partitions} function the migration defines.
+ * With a retention set, a partition whose newest month is older than the retention
+ * period is moved to the {@value #ARCHIVE_SCHEMA} schema and detached without
+ * blocking writers, so its rows leave every query and index at once instead of
+ * through a long DELETE. The detached table can then be dumped and dropped. The
+ * translations of its messages are removed in short batches afterwards; an
+ * archived table is marked once that is done, so an interrupted run resumes on the
+ * next pass.
+ */
+@Component
+@ConditionalOnProperty(name = "messages.partitions.maintenance-enabled", havingValue = "true", matchIfMissing = true)
+public class MessagePartitionMaintainer {
+    private static final Logger logger = LoggerFactory.getLogger(MessagePartitionMaintainer.class);
+
+    static final String ARCHIVE_SCHEMA = "message_archive";
+    // Marks an archived table whose translations are gone
+    private static final String PURGED_COMMENT = "translations purged";
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final int purgeBatchSize;
+    private final Duration interval;
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter createdCounter;
+    private final Counter archivedCounter;
+
+    @Autowired
+    public MessagePartitionMaintainer(
+            JdbcTemplate jdbcTemplate,
+            @Value("${messages.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${messages.partitions.retention-months:0}") int retentionMonths,
+            @Value("${messages.partitions.purge-batch-size:5000}") int purgeBatchSize,
+            @Value("${messages.partitions.maintenance-interval:6h}") Duration interval,
+            MeterRegistry meterRegistry) {
+        if (monthsAhead < 1) {
+            throw new IllegalArgumentException("messages.partitions.months-ahead must be at least 1");
+        }
+        if (retentionMonths < 0) {
+            throw new IllegalArgumentException("messages.partitions.retention-months cannot be negative");
+        }
+        if (purgeBatchSize <= 0) {
+            throw new IllegalArgumentException("messages.partitions.purge-batch-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.purgeBatchSize = purgeBatchSize;
+        this.interval = interval;
+
+        this.createdCounter = Counter.builder("messages.partitions.created")
+                .description("Monthly message partitions created ahead of time")
+                .register(meterRegistry);
+        this.archivedCounter = Counter.builder("messages.partitions.archived")
+                .description("Message partitions detached into the archive schema")
+                .register(meterRegistry);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("message-partition-maintenance-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Runs maintenance now and then every {@code maintenance-interval}.
+     */
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::maintainSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates missing partitions and, with a retention set, archives expired ones.
+     */
+    public void maintain() {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_message_partitions(?)", Integer.class, monthsAhead);
+        if (created != null && created > 0) {
+            createdCounter.increment(created);
+            logger.info("Created {} message partitions", created);
+        }
+
+        if (retentionMonths == 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now()
+                .truncatedTo(ChronoUnit.DAYS)
+                .withDayOfMonth(1)
+                .minusMonths(retentionMonths);
+        for (Partition partition : findPartitions()) {
+            // A partition ending at the cutoff holds nothing the retention period still covers
+            boolean expired = partition.upperBound() != null && !partition.upperBound().isAfter(cutoff);
+            if (expired || partition.detachPending()) {
+                archive(partition);
+            }
+        }
+        purgeArchivedTranslations();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void maintainSafely() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            logger.error("Message partition maintenance failed", e);
+        }
+    }
+
+    private List<Partition> findPartitions() {
+        return jdbcTemplate.query(
+                "SELECT n.nspname, c.relname, pg_get_expr(c.relpartbound, c.oid), i.inhdetachpending "
+                        + "FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE i.inhparent = 'messages'::regclass",
+                (rs, rowNum) -> new Partition(
+                        rs.getString(1), rs.getString(2), upperBound(rs.getString(3)), rs.getBoolean(4)));
+    }
+
+    private void archive(Partition partition) {
+        // Moving first keeps an interrupted archive visible as a partition, to be finished on the next pass
+        if (!ARCHIVE_SCHEMA.equals(partition.schema())) {
+            jdbcTemplate.execute(String.format("ALTER TABLE %s SET SCHEMA %s",
+                    quote(partition.schema(), partition.name()), ARCHIVE_SCHEMA));
+        }
+        String table = quote(ARCHIVE_SCHEMA, partition.name());
+        // Runs outside a transaction and waits for queries using the partition instead of blocking them
+        jdbcTemplate.execute(partition.detachPending()
+                ? "ALTER TABLE messages DETACH PARTITION " + table + " FINALIZE"
+                : "ALTER TABLE messages DETACH PARTITION " + table + " CONCURRENTLY");
+        archivedCounter.increment();
+        logger.info("Archived message partition {} to {}", partition.name(), ARCHIVE_SCHEMA);
+    }
+
+    private void purgeArchivedTranslations() {
+        List<String> tables = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE n.nspname = ? AND c.relkind = 'r' "
+                        + "AND c.relname LIKE 'messages%' "
+                        + "AND COALESCE(obj_description(c.oid, 'pg_class'), '') <> ?",
+                String.class, ARCHIVE_SCHEMA, PURGED_COMMENT);
+        for (String name : tables) {
+            String table = quote(ARCHIVE_SCHEMA, name);
+            long purged = 0;
+            long afterId = Long.MIN_VALUE;
+            while (true) {
+                // Each batch is its own short transaction, walking the archived IDs in order
+                Long lastId = jdbcTemplate.queryForObject(
+                        "SELECT MAX(id) FROM (SELECT id FROM " + table + " WHERE id > ? ORDER BY id LIMIT ?) ids",
+                        Long.class, afterId, purgeBatchSize);
+                if (lastId == null) {
+                    break;
+                }
+                purged += jdbcTemplate.update(
+                        "DELETE FROM message_translations WHERE message_id IN "
+                                + "(SELECT id FROM " + table + " WHERE id > ? AND id <= ?)",
+                        afterId, lastId);
+                afterId = lastId;
+            }
+            jdbcTemplate.execute("COMMENT ON TABLE " + table + " IS '" + PURGED_COMMENT + "'");
+            logger.info("Removed {} translations of archived messages in {}", purged, table);
+        }
+    }
+
+    static LocalDateTime upperBound(String partitionBound) {
+        Matcher matcher = UPPER_BOUND.matcher(partitionBound);
+        if (!matcher.find()) {
+            // MAXVALUE or a default partition: never expires
+            return null;
+        }
+        String bound = matcher.group(1);
+        return LocalDateTime.parse(bound.length() > 19 ? bound.substring(0, 19) : bound, BOUND_FORMAT);
+    }
+
+    private static String quote(String schema, String name) {
+        return "\"" + schema.replace("\"", "\"\"") + "\".\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    private record Partition(String schema, String name, LocalDateTime upperBound, boolean detachPending) {
+    }
+}
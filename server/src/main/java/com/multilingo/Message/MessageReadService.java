@@ -0,0 +1,118 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+import com.multilingo.common.TransactionCallbacks;
+
+import jakarta.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service for tracking how far each participant has read their conversations.
+ * <p>
+ * Read state is a per-user, per-conversation watermark (see
+ * {@link ConversationReadState}) rather than a flag on each message, so group
+ * conversations keep a separate position for every member, and reading any number
+ * of messages is a single upsert. Watermark moves are pushed to the other
+ * participants through the {@link ReadReceiptBroadcaster}, coalesced per conversation,
+ * and reset the reader's count in the {@link UnreadCountService}.
+ */
+@Service
+public class MessageReadService {
+
+    // Upper bound on the message IDs accepted in one batched read
+    static final int MAX_BATCH_SIZE = 500;
+
+    private final MessageRepository messageRepository;
+    private final ConversationReadStateRepository readStateRepository;
+    private final ReadReceiptBroadcaster readReceiptBroadcaster;
+    private final UnreadCountService unreadCountService;
+    private final RecentMessageCache recentMessageCache;
+
+    @Autowired
+    public MessageReadService(
+            MessageRepository messageRepository,
+            ConversationReadStateRepository readStateRepository,
+            ReadReceiptBroadcaster readReceiptBroadcaster,
+            UnreadCountService unreadCountService,
+            RecentMessageCache recentMessageCache) {
+        this.messageRepository = messageRepository;
+        this.readStateRepository = readStateRepository;
+        this.readReceiptBroadcaster = readReceiptBroadcaster;
+        this.unreadCountService = unreadCountService;
+        this.recentMessageCache = recentMessageCache;
+    }
+
+    /**
+     * Marks a message, and every earlier message in its conversation, as read by a
+     * user. The other participants are notified if the user's watermark moved.
+     *
+     * @param messageId The ID of the newest message the user has read
+     * @param user The reader
+     * @throws IllegalArgumentException If the message does not exist or the user
+     *         is not a participant of its conversation
+     */
+    @Transactional
+    public void markReadUpTo(Long messageId, User user) {
+        if (messageId == null) {
+            throw new IllegalArgumentException("Message ID cannot be null");
+        }
+        
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+
+        ReadPosition position = messageRepository.findReadPosition(messageId, user.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Message not found"));
+        advance(position, user);
+    }
+
+    /**
+     * Marks a batch of messages of one conversation as read by a user, as sent by
+     * clients scrolling through history. Only the newest of them matters: the
+     * watermark moves to it, covering the rest and everything before them.
+     *
+     * @param conversationId The ID of the conversation
+     * @param messageIds The IDs of the messages the user has seen, in any order
+     * @param user The reader
+     * @throws IllegalArgumentException If none of the messages belongs to the
+     *         conversation, or the user is not a participant of it
+     */
+    @Transactional
+    public void markReadUpTo(Long conversationId, List<Long> messageIds, User user) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Conversation ID cannot be null");
+        }
+
+        if (messageIds == null || messageIds.isEmpty() || messageIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BATCH_SIZE + " message IDs must be given");
+        }
+
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+
+        Optional<ReadPosition> newest = messageRepository
+                .findNewestReadPosition(conversationId, messageIds, user.getId(), PageRequest.of(0, 1))
+                .stream()
+                .findFirst();
+        advance(newest.orElseThrow(() -> new IllegalArgumentException("Messages not found")), user);
+    }
+
+    private void advance(ReadPosition position, User user) {
+        // Reading an older message again leaves the watermark, and the other participants, alone
+        if (readStateRepository.advance(
+                user.getId(), position.conversationId(), position.messageId(), position.sentAt()) == 0) {
+            return;
+        }
+        unreadCountService.recordRead(user.getId(), position);
+        TransactionCallbacks.afterCommit(() -> {
+            recentMessageCache.recordRead(user.getId(), position);
+            readReceiptBroadcaster.submit(position, user);
+        });
+    }}
@@ -1,15 +1,31 @@
 package com.multilingo.Message;
 
+import jakarta.transaction.Transactional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for Message entity.
  */
 @Repository
-public interface MessageRepository extends JpaRepository<Message, Long> {
+public interface MessageRepository extends JpaRepository<Message, Long>, MessageRepositoryCustom {
+    /**
+     * Whether the reader has read a message: their own messages, and those at or
+     * before their watermark {@code r}.
+     */
+    String READ_BY_READER = "CASE WHEN s.id = :readerId OR m.sentAt < r.lastReadSentAt "
+            + "OR (m.sentAt = r.lastReadSentAt AND m.id <= r.lastReadMessageId) THEN true ELSE false END";
+
     /**
      * Find messages by sender ID.
      */
@@ -32,7 +48,218 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findByConversationIdOrderBySentAtAsc(Long conversationId);
     
     /**
-     * Find unread messages for a conversation.
+     * Find the whole history of a conversation with each message's stored translation
+     * into the given language and whether the reader has read it, in a single query. Prefer the paged queries below;
+     * this loads every message the conversation has ever had.
+     */
+    @Query("SELECT new com.multilingo.Message.MessageDTO("
+            + "m.id, s.id, s.username, m.conversation.id, m.content, t.translatedContent, "
+            + "m.messageLanguage, m.messageType, m.sentAt, " + READ_BY_READER + ", m.translationStatus) "
+            + "FROM Message m JOIN m.sender s "
+            + "LEFT JOIN MessageTranslation t ON t.message = m AND t.id.language = :language "
+            + "LEFT JOIN ConversationReadState r ON r.id.userId = :readerId AND r.id.conversationId = m.conversation.id "
+            + "WHERE m.conversation.id = :conversationId "
+            + "ORDER BY m.sentAt ASC, m.id ASC")
+    List<MessageDTO> findHistoryForLanguage(
+            @Param("conversationId") Long conversationId,
+            @Param("readerId") Long readerId,
+            @Param("language") String language);
+    
+    /**
+     * Find the oldest messages of a conversation with their stored translation
+     * into the given language and whether the reader has read them, oldest first.
+     * Continue with {@link #findHistoryPageAfter}.
+     */
+    @Query("SELECT new com.multilingo.Message.MessageDTO("
+            + "m.id, s.id, s.username, m.conversation.id, m.content, t.translatedContent, "
+            + "m.messageLanguage, m.messageType, m.sentAt, " + READ_BY_READER + ", m.translationStatus) "
+            + "FROM Message m JOIN m.sender s "
+            + "LEFT JOIN MessageTranslation t ON t.message = m AND t.id.language = :language "
+            + "LEFT JOIN ConversationReadState r ON r.id.userId = :readerId AND r.id.conversationId = m.conversation.id "
+            + "WHERE m.conversation.id = :conversationId "
+            + "ORDER BY m.sentAt ASC, m.id ASC")
+    List<MessageDTO> findEarliestHistoryPage(
+            @Param("conversationId") Long conversationId,
+            @Param("readerId") Long readerId,
+            @Param("language") String language,
+            Pageable pageable);
+
+    /**
+     * Find the newest messages of a conversation as the {@link RecentMessageCache}
+     * keeps them, without translations or read state, newest first.
+     */
+    @Query("SELECT new com.multilingo.Message.RecentMessage("
+            + "m.id, s.id, s.username, m.conversation.id, m.content, "
+            + "m.messageLanguage, m.messageType, m.sentAt, m.translationStatus) "
+            + "FROM Message m JOIN m.sender s "
+            + "WHERE m.conversation.id = :conversationId "
+            + "ORDER BY m.sentAt DESC, m.id DESC")
+    List<RecentMessage> findRecentMessages(@Param("conversationId") Long conversationId, Pageable pageable);
+    
+    /**
+     * Find the newest messages of a conversation with their stored translation
+     * into the given language and whether the reader has read them, newest first.
+     */
+    @Query("SELECT new com.multilingo.Message.MessageDTO("
+            + "m.id, s.id, s.username, m.conversation.id, m.content, t.translatedContent, "
+            + "m.messageLanguage, m.messageType, m.sentAt, " + READ_BY_READER + ", m.translationStatus) "
+            + "FROM Message m JOIN m.sender s "
+            + "LEFT JOIN MessageTranslation t ON t.message = m AND t.id.language = :language "
+            + "LEFT JOIN ConversationReadState r ON r.id.userId = :readerId AND r.id.conversationId = m.conversation.id "
+            + "WHERE m.conversation.id = :conversationId "
+            + "ORDER BY m.sentAt DESC, m.id DESC")
+    List<MessageDTO> findLatestHistoryPage(
+            @Param("conversationId") Long conversationId,
+            @Param("readerId") Long readerId,
+            @Param("language") String language,
+            Pageable pageable);
+
+    /**
+     * Find the messages of a conversation sent before a position, newest first.
+     */
+    @Query("SELECT new com.multilingo.Message.MessageDTO("
+            + "m.id, s.id, s.username, m.conversation.id, m.content, t.translatedContent, "
+            + "m.messageLanguage, m.messageType, m.sentAt, " + READ_BY_READER + ", m.translationStatus) "
+            + "FROM Message m JOIN m.sender s "
+            + "LEFT JOIN MessageTranslation t ON t.message = m AND t.id.language = :language "
+            + "LEFT JOIN ConversationReadState r ON r.id.userId = :readerId AND r.id.conversationId = m.conversation.id "
+            + "WHERE m.conversation.id = :conversationId "
+            + "AND m.sentAt <= :sentAt "
+            + "AND (m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.id < :id)) "
+            + "ORDER BY m.sentAt DESC, m.id DESC")
+    List<MessageDTO> findHistoryPageBefore(
+            @Param("conversationId") Long conversationId,
+            @Param("readerId") Long readerId,
+            @Param("language") String language,
+            @Param("sentAt") LocalDateTime sentAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * Find the messages of a conversation sent after a position, oldest first.
+     */
+    @Query("SELECT new com.multilingo.Message.MessageDTO("
+            + "m.id, s.id, s.username, m.conversation.id, m.content, t.translatedContent, "
+            + "m.messageLanguage, m.messageType, m.sentAt, " + READ_BY_READER + ", m.translationStatus) "
+            + "FROM Message m JOIN m.sender s "
+            + "LEFT JOIN MessageTranslation t ON t.message = m AND t.id.language = :language "
+            + "LEFT JOIN ConversationReadState r ON r.id.userId = :readerId AND r.id.conversationId = m.conversation.id "
+            + "WHERE m.conversation.id = :conversationId "
+            + "AND m.sentAt >= :sentAt "
+            + "AND (m.sentAt > :sentAt OR (m.sentAt = :sentAt AND m.id > :id)) "
+            + "ORDER BY m.sentAt ASC, m.id ASC")
+    List<MessageDTO> findHistoryPageAfter(
+            @Param("conversationId") Long conversationId,
+            @Param("readerId") Long readerId,
+            @Param("language") String language,
+            @Param("sentAt") LocalDateTime sentAt,
+            @Param("id") Long id,
+            Pageable pageable);
+    
+    /**
+     * Find the next chunk of messages a translation backfill has to translate:
+     * messages received by the user in any of their conversations since the start
+     * of the backfilled history, not written in or already translated into the
+     * target language, newest first from just before the cursor.
+     */
+    @Query("SELECT new com.multilingo.Message.BackfillMessage("
+            + "m.id, m.conversation.id, m.content, m.messageLanguage, m.sentAt) "
+            + "FROM Message m "
+            + "WHERE m.conversation.id IN (SELECT c.id FROM Conversation c JOIN c.users u WHERE u.id = :userId) "
+            + "AND m.sender.id <> :userId "
+            + "AND m.messageLanguage <> :language "
+            + "AND m.sentAt >= :historyStart "
+            + "AND (m.sentAt < :cursorSentAt OR (m.sentAt = :cursorSentAt AND m.id < :cursorMessageId)) "
+            + "AND NOT EXISTS (SELECT 1 FROM MessageTranslation t WHERE t.message = m AND t.id.language = :language) "
+            + "ORDER BY m.sentAt DESC, m.id DESC")
+    List<BackfillMessage> findBackfillChunk(
+            @Param("userId") Long userId,
+            @Param("language") String language,
+            @Param("historyStart") LocalDateTime historyStart,
+            @Param("cursorSentAt") LocalDateTime cursorSentAt,
+            @Param("cursorMessageId") Long cursorMessageId,
+            Pageable pageable);
+
+    /**
+     * Count the messages a translation backfill starting at the given time will process.
+     */
+    @Query("SELECT COUNT(m) FROM Message m "
+            + "WHERE m.conversation.id IN (SELECT c.id FROM Conversation c JOIN c.users u WHERE u.id = :userId) "
+            + "AND m.sender.id <> :userId "
+            + "AND m.messageLanguage <> :language "
+            + "AND m.sentAt >= :historyStart "
+            + "AND m.sentAt <= :startedAt "
+            + "AND NOT EXISTS (SELECT 1 FROM MessageTranslation t WHERE t.message = m AND t.id.language = :language)")
+    long countBackfillMessages(
+            @Param("userId") Long userId,
+            @Param("language") String language,
+            @Param("historyStart") LocalDateTime historyStart,
+            @Param("startedAt") LocalDateTime startedAt);
+
+    /**
+     * Find a message's position in its conversation, if the user takes part in
+     * that conversation.
+     */
+    @Query("SELECT new com.multilingo.Message.ReadPosition(m.conversation.id, m.id, m.sentAt) "
+            + "FROM Message m "
+            + "WHERE m.id = :messageId "
+            + "AND EXISTS (SELECT 1 FROM Conversation c JOIN c.users u WHERE c = m.conversation AND u.id = :userId)")
+    Optional<ReadPosition> findReadPosition(@Param("messageId") Long messageId, @Param("userId") Long userId);
+
+    /**
+     * Find the newest of several messages of a conversation, if the user takes part
+     * in that conversation. Messages of other conversations are ignored.
+     */
+    @Query("SELECT new com.multilingo.Message.ReadPosition(m.conversation.id, m.id, m.sentAt) "
+            + "FROM Message m "
+            + "WHERE m.id IN :messageIds "
+            + "AND m.conversation.id = :conversationId "
+            + "AND EXISTS (SELECT 1 FROM Conversation c JOIN c.users u WHERE c.id = :conversationId AND u.id = :userId) "
+            + "ORDER BY m.sentAt DESC, m.id DESC")
+    List<ReadPosition> findNewestReadPosition(
+            @Param("conversationId") Long conversationId,
+            @Param("messageIds") Collection<Long> messageIds,
+            @Param("userId") Long userId,
+            Pageable pageable);
+
+    /**
+     * Count the messages of a conversation a user has not read: those sent by
+     * others after the user's watermark. A range scan of the
+     * (conversation_id, sent_at, id) index starting at the watermark.
+     */
+    @Query("SELECT COUNT(m) FROM Message m "
+            + "LEFT JOIN ConversationReadState r ON r.id.userId = :userId AND r.id.conversationId = m.conversation.id "
+            + "WHERE m.conversation.id = :conversationId "
+            + "AND m.sender.id <> :userId "
+            + "AND (r.lastReadSentAt IS NULL OR m.sentAt > r.lastReadSentAt "
+            + "OR (m.sentAt = r.lastReadSentAt AND m.id > r.lastReadMessageId))")
+    long countUnread(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
+    
+    /**
+     * Count the messages of a conversation sent by others after a known read
+     * position. Bounding sentAt by a parameter rather than by a joined watermark
+     * lets the planner skip every monthly partition before the position.
+     */
+    @Query("SELECT COUNT(m) FROM Message m "
+            + "WHERE m.conversation.id = :conversationId "
+            + "AND m.sender.id <> :userId "
+            + "AND m.sentAt >= :sentAt "
+            + "AND (m.sentAt > :sentAt OR m.id > :id)")
+    long countUnreadAfter(
+            @Param("conversationId") Long conversationId,
+            @Param("userId") Long userId,
+            @Param("sentAt") LocalDateTime sentAt,
+            @Param("id") Long id);
+    
+    /**
+     * Update the translation status of a message without loading it. The send time
+     * confines the update to the message's monthly partition.
      */
-    List<Message> findByConversationIdAndIsReadFalse(Long conversationId);
+    @Modifying
+    @Transactional
+    @Query("UPDATE Message m SET m.translationStatus = :status WHERE m.id = :id AND m.sentAt = :sentAt")
+    int updateTranslationStatus(
+            @Param("id") Long id,
+            @Param("sentAt") LocalDateTime sentAt,
+            @Param("status") TranslationStatus status);
 }
@@ -0,0 +1,25 @@
+package com.multilingo.Message;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Message queries that JPQL cannot express.
+ */
+public interface MessageRepositoryCustom {
+
+    /**
+     * Full-text search over the messages of a user's conversations, in the user's
+     * language: messages written in it and stored translations into it.
+     *
+     * @param userId The ID of the searcher; only their conversations are searched
+     * @param language The searcher's language, which also selects the text search configuration
+     * @param query The search terms, in web search syntax (quoted phrases, {@code or}, {@code -})
+     * @param since Only messages sent at or after this time are searched
+     * @param after The last result of the previous page, or null for the first page
+     * @param limit The maximum number of results
+     * @return The matches, best first
+     */
+    List<MessageSearchHit> search(
+            Long userId, String language, String query, LocalDateTime since, SearchCursor after, int limit);
+}
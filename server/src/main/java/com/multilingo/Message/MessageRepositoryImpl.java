@@ -0,0 +1,92 @@
+package com.multilingo.Message;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link MessageRepositoryCustom}.
+ */
+class MessageRepositoryImpl implements MessageRepositoryCustom {
+
+    // Conversations the searcher belongs to
+    private static final String MEMBER_OF = "m.conversation_id IN "
+            + "(SELECT uc.conversation_id FROM user_conversations uc WHERE uc.user_id = ?) ";
+
+    /*
+     * Originals written in the searcher's language and translations into it are
+     * matched through their own GIN indexes; a message is never in both, since it
+     * is not translated into its own language. Bounding sent_at prunes the monthly
+     * partitions outside the search window. Only the page is joined to its senders
+     * and given headlines. Compressed text is not indexed (see the V5 migration),
+     * but the original of a matching translation may be compressed.
+     */
+    private static final String SEARCH_SQL = "WITH q AS ("
+            + "SELECT websearch_to_tsquery(message_search_config(?), ?) AS query), "
+            + "matches AS ("
+            + "SELECT m.id, m.conversation_id, m.sender_id, m.content, NULL::text AS translated_content, "
+            + "m.message_language, m.sent_at, ts_rank_cd(m.search_vector, q.query) AS rank "
+            + "FROM q, messages m "
+            + "WHERE m.search_vector @@ q.query AND m.message_language = ? AND m.sent_at >= ? "
+            + "AND " + MEMBER_OF
+            + "UNION ALL "
+            + "SELECT m.id, m.conversation_id, m.sender_id, m.content, t.translated_content, "
+            + "m.message_language, m.sent_at, ts_rank_cd(t.search_vector, q.query) AS rank "
+            + "FROM q, message_translations t JOIN messages m ON m.id = t.message_id "
+            + "WHERE t.search_vector @@ q.query AND t.language = ? AND m.sent_at >= ? "
+            + "AND " + MEMBER_OF
+            + ") "
+            + "SELECT p.id, p.conversation_id, p.sender_id, u.username, p.content, p.translated_content, "
+            + "p.message_language, p.sent_at, p.rank, "
+            + "ts_headline(message_search_config(?), message_search_text(COALESCE(p.translated_content, p.content)), "
+            + "q.query, "
+            + "'MaxFragments=2, MinWords=5, MaxWords=20') AS headline "
+            + "FROM (SELECT * FROM matches %s "
+            + "ORDER BY rank DESC, sent_at DESC, id DESC LIMIT ?) p "
+            + "JOIN users u ON u.id = p.sender_id, q "
+            + "ORDER BY p.rank DESC, p.sent_at DESC, p.id DESC";
+
+    private static final String FIRST_PAGE_SQL = String.format(SEARCH_SQL, "");
+    private static final String NEXT_PAGE_SQL = String.format(SEARCH_SQL,
+            "WHERE (rank, sent_at, id) < (?::real, ?, ?)");
+
+    private static final RowMapper<MessageSearchHit> HIT_MAPPER = (rs, rowNum) -> new MessageSearchHit(
+            rs.getLong("id"),
+            rs.getLong("conversation_id"),
+            rs.getLong("sender_id"),
+            rs.getString("username"),
+            MessageContentCodec.decode(rs.getString("content")),
+            MessageContentCodec.decode(rs.getString("translated_content")),
+            rs.getString("message_language"),
+            rs.getObject("sent_at", LocalDateTime.class),
+            rs.getFloat("rank"),
+            rs.getString("headline"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MessageRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<MessageSearchHit> search(
+            Long userId, String language, String query, LocalDateTime since, SearchCursor after, int limit) {
+        List<Object> args = new ArrayList<>(List.of(
+                language, query,
+                language, since, userId,
+                language, since, userId,
+                language));
+        if (after != null) {
+            args.add(after.rank());
+            args.add(after.sentAt());
+            args.add(after.id());
+        }
+        args.add(limit);
+        return jdbcTemplate.query(after != null ? NEXT_PAGE_SQL : FIRST_PAGE_SQL, HIT_MAPPER, args.toArray());
+    }
+}
@@ -0,0 +1,32 @@
+package com.multilingo.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message matching a search, in the searcher's language.
+ *
+ * @param messageId The ID of the message
+ * @param conversationId The ID of the message's conversation
+ * @param senderId The ID of the sender
+ * @param senderUsername The username of the sender
+ * @param content The original content
+ * @param translatedContent The translation into the searcher's language, or null
+ *        when the message was written in it
+ * @param messageLanguage The language the message was written in
+ * @param sentAt When the message was sent
+ * @param rank How well the message matches; higher is better
+ * @param headline The matching fragments of the text that matched, with the
+ *        matched words enclosed in {@code <b>} tags
+ */
+public record MessageSearchHit(
+        Long messageId,
+        Long conversationId,
+        Long senderId,
+        String senderUsername,
+        String content,
+        String translatedContent,
+        String messageLanguage,
+        LocalDateTime sentAt,
+        float rank,
+        String headline) {
+}
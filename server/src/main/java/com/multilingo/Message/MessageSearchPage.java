@@ -0,0 +1,12 @@
+package com.multilingo.Message;
+
+import java.util.List;
+
+/**
+ * A page of search results, best match first.
+ *
+ * @param results The matching messages
+ * @param nextCursor Cursor to pass as {@code after} for the next page, or null after the last match
+ */
+public record MessageSearchPage(List<MessageSearchHit> results, String nextCursor) {
+}
@@ -0,0 +1,87 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service for searching the messages of a user's conversations.
+ * <p>
+ * A user searches in their preferred language and finds both messages written in
+ * it and messages whose stored translation into it matches. Results are ranked by
+ * relevance and paged with a cursor on (rank, sentAt, id), so later pages cost the
+ * same as the first. Only the last {@code messages.search.window} of history is
+ * searched, which keeps the query on the newest monthly partitions.
+ * <p>
+ * Text stored compressed ({@code messages.compression.*}) is not in the search
+ * index, so with compression enabled messages and translations of at least
+ * {@code messages.compression.min-length} characters are never found by search.
+ */
+@Service
+public class MessageSearchService {
+
+    // Longer queries are almost always pasted text, which makes for slow, useless searches
+    static final int MAX_QUERY_LENGTH = 256;
+
+    private final MessageRepository messageRepository;
+    private final Duration window;
+    private final int maxPageSize;
+
+    @Autowired
+    public MessageSearchService(
+            MessageRepository messageRepository,
+            @Value("${messages.search.window:365d}") Duration window,
+            @Value("${messages.search.max-page-size:50}") int maxPageSize) {
+        this.messageRepository = messageRepository;
+        this.window = window;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Searches the messages of the conversations a user belongs to. Compressed
+     * messages are only found through an uncompressed translation.
+     *
+     * @param searcher The user searching, whose language the query is in
+     * @param query The search terms, in web search syntax
+     * @param after Cursor of the last result of the previous page, or null for the first page
+     * @param limit The maximum number of results
+     * @return The page of results, best match first
+     */
+    public MessageSearchPage search(User searcher, String query, String after, int limit) {
+        if (searcher == null || searcher.getId() == null || searcher.getPreferredLanguage() == null) {
+            throw new IllegalArgumentException("Searcher and their language cannot be null");
+        }
+
+        if (query == null || query.isBlank() || query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Query must be between 1 and " + MAX_QUERY_LENGTH + " characters");
+        }
+
+        if (limit <= 0 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+
+        SearchCursor cursor = after != null ? SearchCursor.decode(after) : null;
+        // One extra row tells whether there is another page
+        List<MessageSearchHit> results = new ArrayList<>(messageRepository.search(
+                searcher.getId(),
+                searcher.getPreferredLanguage(),
+                query.trim(),
+                LocalDateTime.now().minus(window),
+                cursor,
+                limit + 1));
+
+        boolean hasMore = results.size() > limit;
+        if (hasMore) {
+            results.remove(limit);
+        }
+        return new MessageSearchPage(
+                results, hasMore ? SearchCursor.of(results.get(results.size() - 1)).encode() : null);
+    }
+}
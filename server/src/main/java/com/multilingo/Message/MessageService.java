@@ -1,20 +1,20 @@
 package com.multilingo.Message;
 
-import com.multilingo.Conversation.Conversation;
-import com.multilingo.Conversation.ConversationRepository;
 import com.multilingo.User.User;
-import com.multilingo.websocket.WebSocketUtil;
-
-import jakarta.transaction.Transactional;
+import com.multilingo.translation.LanguageDetector;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Service for handling message operations.
@@ -24,17 +24,23 @@ public class MessageService {
     private static final Logger logger = LoggerFactory.getLogger(MessageService.class);
     
     private final MessageRepository messageRepository;
-    private final ConversationRepository conversationRepository;
-    private final WebSocketUtil webSocketUtil;
+    private final MessageWriteBuffer messageWriteBuffer;
+    private final LanguageDetector languageDetector;
+    private final RecentMessageCache recentMessageCache;
+    private final int maxPageSize;
 
     @Autowired
     public MessageService(
             MessageRepository messageRepository, 
-            ConversationRepository conversationRepository,
-            WebSocketUtil webSocketUtil) {
+            MessageWriteBuffer messageWriteBuffer,
+            LanguageDetector languageDetector,
+            RecentMessageCache recentMessageCache,
+            @Value("${messages.history.max-page-size:200}") int maxPageSize) {
         this.messageRepository = messageRepository;
-        this.conversationRepository = conversationRepository;
-        this.webSocketUtil = webSocketUtil;
+        this.messageWriteBuffer = messageWriteBuffer;
+        this.languageDetector = languageDetector;
+        this.recentMessageCache = recentMessageCache;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
@@ -46,7 +52,6 @@ public class MessageService {
      * @param messageType The type of message (default: TEXT)
      * @return The saved message
      */
-    @Transactional
     public Message sendMessage(User sender, Long conversationId, String content, MessageType messageType) {
         if (sender == null) {
             throw new IllegalArgumentException("Sender cannot be null");
@@ -59,158 +64,137 @@ public class MessageService {
         if (content == null || content.trim().isEmpty()) {
             throw new IllegalArgumentException("Message content cannot be null or empty");
         }
-        
-        Conversation conversation = conversationRepository
-                .findConversationById(conversationId)
-                .orElseThrow(() -> new IllegalArgumentException("Conversation not found"));
-
-        Message message = new Message();
-        message.setSender(sender);
-        message.setConversation(conversation);
-        message.setContent(content);
-        message.setMessageLanguage(sender.getPreferredLanguage());
-        message.setMessageType(messageType != null ? messageType : MessageType.TEXT);
-        message.setSentAt(LocalDateTime.now());
-
-        // Save the message
-        message = messageRepository.save(message);
-        
-        // Update the conversation's lastMessageAt timestamp
-        conversation.setLastMessageAt(message.getSentAt());
-        conversationRepository.save(conversation);
 
-        // Process translations for all participants
-        processTranslations(message, conversation, sender);
-
-        return message;
+        // Users often write in a language other than their preferred one
+        String messageLanguage = languageDetector.detect(content, sender.getPreferredLanguage());
+
+        // Saved, with the conversation's lastMessageAt and translations, by the writer; returns after commit
+        return messageWriteBuffer.write(new MessageDraft(
+                sender,
+                conversationId,
+                content,
+                messageType != null ? messageType : MessageType.TEXT,
+                messageLanguage,
+                LocalDateTime.now()));
     }
 
     /**
      * Overloaded method for sending a text message.
      */
-    @Transactional
     public Message sendMessage(User sender, Long conversationId, String content) {
         return sendMessage(sender, conversationId, content, MessageType.TEXT);
     }
 
     /**
-     * Process translations for all participants in the conversation.
+     * Gets all messages for a conversation, translated into the reader's language
+     * where a stored translation exists and marked read up to the reader's watermark.
+     * Nothing is translated on this path.
+     * This loads the entire history; prefer {@link #getMessagePage}.
      */
-    private void processTranslations(Message message, Conversation conversation, User sender) {
-        Objects.requireNonNull(message, "Message cannot be null");
-        Objects.requireNonNull(conversation, "Conversation cannot be null");
-        Objects.requireNonNull(sender, "Sender cannot be null");
+    public List<MessageDTO> getMessagesForConversation(Long conversationId, User reader) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Conversation ID cannot be null");
+        }
         
-        for (User participant : conversation.getUsers()) {
-            if (participant == null) {
-                logger.warn("Null participant found in conversation {}", conversation.getId());
-                continue;
-            }
-            
-            if (!participant.equals(sender)) {
-                try {
-                    // Translate the message for this participant
-                    String translatedContent = translateContent(
-                            message.getContent(),
-                            message.getMessageLanguage(),
-                            participant.getPreferredLanguage()
-                    );
-                    
-                    // Create a message DTO with the translated content for this user
-                    MessageDTO translatedMessageDTO = new MessageDTO(message);
-                    translatedMessageDTO.setTranslatedContent(translatedContent);
-                    translatedMessageDTO.setTranslationStatus(TranslationStatus.COMPLETED);
-                    
-                    // Send the translated message to the participant using WebSocketUtil
-                    webSocketUtil.sendMessageToUser(
-                            participant.getUsername(), 
-                            translatedMessageDTO
-                    );
-                } catch (Exception e) {
-                    logger.error("Translation failed for message: {}", message.getId(), e);
-                    
-                    // Create a message DTO with failed translation status
-                    MessageDTO failedMessageDTO = new MessageDTO(message);
-                    failedMessageDTO.setTranslatedContent(message.getContent());
-                    failedMessageDTO.setTranslationStatus(TranslationStatus.FAILED);
-                    
-                    webSocketUtil.sendMessageToUser(
-                            participant.getUsername(), 
-                            failedMessageDTO
-                    );
-                }
-            }
+        if (reader == null || reader.getPreferredLanguage() == null) {
+            throw new IllegalArgumentException("Reader and their language cannot be null");
         }
+        
+        String language = reader.getPreferredLanguage();
+        List<MessageDTO> messages = messageRepository.findHistoryForLanguage(conversationId, reader.getId(), language);
+        applyTranslationStatus(messages, language);
+        return messages;
     }
 
     /**
-     * Translates content from source language to target language.
-     * This is a placeholder for actual translation service integration.
+     * Gets a page of a conversation's history, translated into the reader's language
+     * where a stored translation exists and marked read up to the reader's watermark.
+     * Without a cursor the newest page is returned, from the {@link RecentMessageCache}
+     * when it holds the conversation.
+     *
+     * @param conversationId The ID of the conversation
+     * @param reader The user reading the history
+     * @param before Cursor of a message; the page holds the messages sent just before it
+     * @param after Cursor of a message; the page holds the messages sent just after it
+     * @param limit The maximum number of messages in the page
+     * @return The page, oldest message first. Its newer cursor points at its newest
+     *         message, or is the given cursor when the page is empty
      */
-    private String translateContent(String content, String sourceLanguage, String targetLanguage) {
-        if (content == null) {
-            throw new IllegalArgumentException("Content cannot be null");
+    public MessagePage getMessagePage(
+            Long conversationId, User reader, String before, String after, int limit) {
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Conversation ID cannot be null");
         }
-        
-        if (sourceLanguage == null) {
-            throw new IllegalArgumentException("Source language cannot be null");
+
+        if (reader == null || reader.getPreferredLanguage() == null) {
+            throw new IllegalArgumentException("Reader and their language cannot be null");
         }
-        
-        if (targetLanguage == null) {
-            throw new IllegalArgumentException("Target language cannot be null");
+
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Only one of before and after can be given");
         }
-        
-        // If languages are the same, no translation needed
-        if (sourceLanguage.equals(targetLanguage)) {
-            return content;
+
+        if (limit <= 0 || limit > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
         }
-        
-        // TODO: Implement actual translation using a translation service API
-        // This is a placeholder - in a real implementation, you would call a translation API
-        return "Translated: " + content + " (from " + sourceLanguage + " to " + targetLanguage + ")";
-    }
 
-    /**
-     * Marks a message as read by a user.
-     */
-    @Transactional
-    public void markAsRead(Long messageId, User user) {
-        if (messageId == null) {
-            throw new IllegalArgumentException("Message ID cannot be null");
+        Long readerId = reader.getId();
+        String language = reader.getPreferredLanguage();
+        // One extra row tells whether there is more history in the paging direction
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<MessageDTO> messages;
+        if (after != null) {
+            MessageCursor cursor = MessageCursor.decode(after);
+            messages = new ArrayList<>(messageRepository.findHistoryPageAfter(
+                    conversationId, readerId, language, cursor.sentAt(), cursor.id(), pageable));
+        } else if (before != null) {
+            MessageCursor cursor = MessageCursor.decode(before);
+            messages = new ArrayList<>(messageRepository.findHistoryPageBefore(
+                    conversationId, readerId, language, cursor.sentAt(), cursor.id(), pageable));
+        } else {
+            List<MessageDTO> cached = recentMessageCache.getLatest(conversationId, reader, limit + 1);
+            messages = new ArrayList<>(cached != null
+                    ? cached
+                    : messageRepository.findLatestHistoryPage(conversationId, readerId, language, pageable));
         }
-        
-        if (user == null) {
-            throw new IllegalArgumentException("User cannot be null");
+
+        boolean hasMore = messages.size() > limit;
+        if (hasMore) {
+            messages.remove(limit);
         }
-        
-        Message message = messageRepository.findById(messageId)
-                .orElseThrow(() -> new IllegalArgumentException("Message not found"));
-        
-        // Check if the user is a participant in the conversation
-        if (message.getConversation().getUsers().contains(user)) {
-            message.setRead(true);
-            messageRepository.save(message);
-            
-            // Notify other participants that the message has been read
-            for (User participant : message.getConversation().getUsers()) {
-                if (participant != null && !participant.equals(user)) {
-                    webSocketUtil.sendMessageToUser(
-                            participant.getUsername(),
-                            new MessageStatusUpdate(message.getId(), true)
-                    );
-                }
-            }
+        if (after == null) {
+            Collections.reverse(messages);
+        }
+        applyTranslationStatus(messages, language);
+
+        if (messages.isEmpty()) {
+            // Nothing new yet: the reader keeps polling from where they are
+            return new MessagePage(messages, after, after != null ? after : before);
+        }
+        // Paging forward leaves older messages behind; paging backward stops at the start
+        boolean hasOlder = after != null || hasMore;
+        // Always given, so the reader can ask for messages sent after the newest one they have
+        return new MessagePage(
+                messages,
+                hasOlder ? MessageCursor.of(messages.get(0)).encode() : null,
+                MessageCursor.of(messages.get(messages.size() - 1)).encode());
+    }
+
+    private static void applyTranslationStatus(List<MessageDTO> messages, String language) {
+        for (MessageDTO message : messages) {
+            applyTranslationStatus(message, language);
         }
     }
 
     /**
-     * Gets all messages for a conversation.
+     * Sets the translation status of a message as the reader sees it: not needed in
+     * their own language, and completed once a translation into it is stored.
      */
-    public List<Message> getMessagesForConversation(Long conversationId) {
-        if (conversationId == null) {
-            throw new IllegalArgumentException("Conversation ID cannot be null");
+    static void applyTranslationStatus(MessageDTO message, String language) {
+        if (language.equals(message.getMessageLanguage())) {
+            message.setTranslationStatus(TranslationStatus.NOT_NEEDED);
+        } else if (message.getTranslatedContent() != null) {
+            message.setTranslationStatus(TranslationStatus.COMPLETED);
         }
-        
-        return messageRepository.findByConversationIdOrderBySentAtAsc(conversationId);
     }
 }
@@ -0,0 +1,97 @@
+package com.multilingo.Message;
+
+import com.multilingo.common.BaseEntity;
+
+import jakarta.persistence.*;
+
+/**
+ * Entity representing the translation of a message into one language.
+ */
+@Entity
+@Table(name = "message_translations")
+public class MessageTranslation extends BaseEntity {
+
+    @EmbeddedId
+    private MessageTranslationId id;
+
+    @MapsId("messageId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    // No foreign key: messages are partitioned by sent_at, so message_id alone is not unique there
+    @JoinColumn(name = "message_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Message message;
+
+    @Column(name = "translated_content", nullable = false, columnDefinition = "TEXT")
+    @Convert(converter = MessageContentConverter.class)
+    private String translatedContent;
+
+    @Column(name = "translation_status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TranslationStatus translationStatus = TranslationStatus.COMPLETED;
+
+    public MessageTranslation() {
+    }
+
+    public MessageTranslation(Message message, String language, String translatedContent) {
+        this.id = new MessageTranslationId(message.getId(), language);
+        this.message = message;
+        this.translatedContent = translatedContent;
+    }
+
+    public MessageTranslationId getId() {
+        return id;
+    }
+
+    public void setId(MessageTranslationId id) {
+        this.id = id;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public void setMessage(Message message) {
+        this.message = message;
+    }
+
+    public String getLanguage() {
+        return id != null ? id.getLanguage() : null;
+    }
+
+    public String getTranslatedContent() {
+        return translatedContent;
+    }
+
+    public void setTranslatedContent(String translatedContent) {
+        this.translatedContent = translatedContent;
+    }
+
+    public TranslationStatus getTranslationStatus() {
+        return translationStatus;
+    }
+
+    public void setTranslationStatus(TranslationStatus translationStatus) {
+        this.translationStatus = translationStatus;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MessageTranslation that = (MessageTranslation) o;
+        return id != null && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != null ? id.hashCode() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageTranslation{" +
+                "messageId=" + (id != null ? id.getMessageId() : null) +
+                ", language=" + getLanguage() +
+                ", translationStatus=" + translationStatus +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.multilingo.Message;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Composite key of a message translation: the message and the target language.
+ */
+@Embeddable
+public class MessageTranslationId implements Serializable {
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(name = "language", nullable = false)
+    private String language;
+
+    public MessageTranslationId() {
+    }
+
+    public MessageTranslationId(Long messageId, String language) {
+        this.messageId = messageId;
+        this.language = language;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(Long messageId) {
+        this.messageId = messageId;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MessageTranslationId that = (MessageTranslationId) o;
+        return Objects.equals(messageId, that.messageId) && Objects.equals(language, that.language);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(messageId, language);
+    }
+}
@@ -0,0 +1,27 @@
+package com.multilingo.Message;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for MessageTranslation entity.
+ */
+@Repository
+public interface MessageTranslationRepository
+        extends JpaRepository<MessageTranslation, MessageTranslationId>, MessageTranslationRepositoryCustom {
+
+    /**
+     * Find every stored translation of several messages without loading the entities.
+     *
+     * @param messageIds The IDs of the messages
+     * @return One row per message and language
+     */
+    @Query("SELECT new com.multilingo.Message.MessageTranslationRow(t.id.messageId, t.id.language, t.translatedContent) "
+            + "FROM MessageTranslation t WHERE t.id.messageId IN :messageIds")
+    List<MessageTranslationRow> findRows(@Param("messageIds") Collection<Long> messageIds);
+}
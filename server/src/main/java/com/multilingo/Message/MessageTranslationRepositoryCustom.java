@@ -0,0 +1,16 @@
+package com.multilingo.Message;
+
+import java.util.List;
+
+/**
+ * Bulk operations on message translations that Spring Data cannot derive.
+ */
+public interface MessageTranslationRepositoryCustom {
+
+    /**
+     * Insert or replace several translations in one JDBC batch.
+     *
+     * @param rows The translations to store
+     */
+    void upsertAll(List<MessageTranslationRow> rows);
+}
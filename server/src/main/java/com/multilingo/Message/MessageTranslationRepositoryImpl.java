@@ -0,0 +1,49 @@
+package com.multilingo.Message;
+
+import jakarta.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link MessageTranslationRepositoryCustom}.
+ */
+class MessageTranslationRepositoryImpl implements MessageTranslationRepositoryCustom {
+
+    private static final String UPSERT_SQL = "INSERT INTO message_translations "
+            + "(message_id, language, translated_content, translation_status, created_at, updated_at, deleted) "
+            + "VALUES (?, ?, ?, 'COMPLETED', now(), now(), false) "
+            + "ON CONFLICT (message_id, language) DO UPDATE SET "
+            + "translated_content = EXCLUDED.translated_content, "
+            + "translation_status = EXCLUDED.translation_status, "
+            + "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    // The upsert bypasses MessageContentConverter, so it encodes the same way
+    private final MessageContentCodec contentCodec;
+
+    @Autowired
+    MessageTranslationRepositoryImpl(
+            JdbcTemplate jdbcTemplate,
+            @Value("${messages.compression.enabled:false}") boolean compressionEnabled,
+            @Value("${messages.compression.min-length:1024}") int compressionMinLength) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentCodec = new MessageContentCodec(compressionEnabled, compressionMinLength);
+    }
+
+    @Override
+    @Transactional
+    public void upsertAll(List<MessageTranslationRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (statement, row) -> {
+            statement.setLong(1, row.messageId());
+            statement.setString(2, row.language());
+            statement.setString(3, contentCodec.encode(row.translatedContent()));
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package com.multilingo.Message;
+
+/**
+ * The translation of a message into one language, as written by bulk upserts.
+ */
+public record MessageTranslationRow(Long messageId, String language, String translatedContent) {
+}
@@ -0,0 +1,283 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.Conversation;
+import com.multilingo.User.User;
+import com.multilingo.common.TransactionCallbacks;
+import com.multilingo.translation.TranslationPriority;
+import com.multilingo.translation.TranslationService;
+import com.multilingo.websocket.WebSocketUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Service for translating messages and delivering them to conversation participants.
+ */
+@Service
+public class MessageTranslationService {
+    private static final Logger logger = LoggerFactory.getLogger(MessageTranslationService.class);
+
+    private final MessageRepository messageRepository;
+    private final MessageTranslationRepository messageTranslationRepository;
+    private final WebSocketUtil webSocketUtil;
+    private final TranslationService translationService;
+    private final Executor translationExecutor;
+    private final boolean asyncEnabled;
+    private final RecentMessageCache recentMessageCache;
+    private final Duration translationTimeout;
+
+    @Autowired
+    public MessageTranslationService(
+            MessageRepository messageRepository,
+            MessageTranslationRepository messageTranslationRepository,
+            WebSocketUtil webSocketUtil,
+            TranslationService translationService,
+            @Qualifier("translationExecutor") Executor translationExecutor,
+            @Value("${translation.async.enabled:true}") boolean asyncEnabled,
+            RecentMessageCache recentMessageCache,
+            @Value("${translation.delivery-timeout:30s}") Duration translationTimeout) {
+        if (translationTimeout.isNegative() || translationTimeout.isZero()) {
+            throw new IllegalArgumentException("translation.delivery-timeout must be positive");
+        }
+        this.messageRepository = messageRepository;
+        this.messageTranslationRepository = messageTranslationRepository;
+        this.webSocketUtil = webSocketUtil;
+        this.translationService = translationService;
+        this.translationExecutor = translationExecutor;
+        this.asyncEnabled = asyncEnabled;
+        this.recentMessageCache = recentMessageCache;
+        this.translationTimeout = translationTimeout;
+    }
+
+    /**
+     * Process translations for all participants in the conversation.
+     * Recipients are grouped by preferred language so that each distinct
+     * target language is translated once and the resulting DTO is shared.
+     * Recipients whose language matches the message language receive it
+     * untranslated with status {@link TranslationStatus#NOT_NEEDED}.
+     * <p>
+     * In async mode the original message is pushed as soon as the surrounding
+     * transaction commits, and each language group receives a follow-up update
+     * from the translation worker pool. Otherwise translations are performed
+     * and pushed before this method returns.
+     * <p>
+     * Either way, translations still missing {@code translation.delivery-timeout}
+     * after they were requested, such as requests queued behind the provider quotas,
+     * are delivered untranslated and the message is marked
+     * {@link TranslationStatus#FAILED}.
+     */
+    public void processTranslations(Message message, Conversation conversation, User sender) {
+        Objects.requireNonNull(message, "Message cannot be null");
+        Objects.requireNonNull(conversation, "Conversation cannot be null");
+        Objects.requireNonNull(sender, "Sender cannot be null");
+
+        // Capture everything the workers need while the persistence context is still open
+        MessageDTO messageDTO = new MessageDTO(message);
+        Map<String, List<String>> recipientsByLanguage = groupRecipientsByLanguage(conversation, sender);
+
+        // Readers of the message's own language never reach the provider
+        List<String> untranslatedRecipients = recipientsByLanguage.remove(messageDTO.getMessageLanguage());
+        MessageDTO untranslatedMessageDTO = untranslated(messageDTO);
+
+        if (!asyncEnabled) {
+            deliver(untranslatedMessageDTO, untranslatedRecipients);
+            message.setTranslationStatus(deliverTranslations(messageDTO, recipientsByLanguage));
+            return;
+        }
+
+        if (recipientsByLanguage.isEmpty()) {
+            message.setTranslationStatus(TranslationStatus.NOT_NEEDED);
+        }
+
+        TransactionCallbacks.afterCommit(() -> {
+            deliver(untranslatedMessageDTO, untranslatedRecipients);
+            if (recipientsByLanguage.isEmpty()) {
+                return;
+            }
+
+            // Recipients see the original text right away; translations follow per language
+            for (List<String> usernames : recipientsByLanguage.values()) {
+                deliver(messageDTO, usernames);
+            }
+
+            try {
+                translationExecutor.execute(() -> translateInBackground(messageDTO, recipientsByLanguage));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Translation pool saturated, delivering message {} untranslated", messageDTO.getId());
+                for (List<String> usernames : recipientsByLanguage.values()) {
+                    deliver(failedTranslation(messageDTO), usernames);
+                }
+                updateTranslationStatus(messageDTO, TranslationStatus.FAILED);
+            }
+        });
+    }
+
+    private void translateInBackground(MessageDTO messageDTO, Map<String, List<String>> recipientsByLanguage) {
+        TranslationStatus status = deliverTranslations(messageDTO, recipientsByLanguage);
+        updateTranslationStatus(messageDTO, status);
+    }
+
+    private Map<String, List<String>> groupRecipientsByLanguage(Conversation conversation, User sender) {
+        Map<String, List<String>> recipientsByLanguage = new LinkedHashMap<>();
+        for (User participant : conversation.getUsers()) {
+            if (participant == null) {
+                logger.warn("Null participant found in conversation {}", conversation.getId());
+                continue;
+            }
+
+            if (!participant.equals(sender)) {
+                recipientsByLanguage
+                        .computeIfAbsent(participant.getPreferredLanguage(), language -> new ArrayList<>())
+                        .add(participant.getUsername());
+            }
+        }
+        return recipientsByLanguage;
+    }
+
+    /**
+     * Translates the message once per language group and pushes the result to its recipients.
+     *
+     * @return The overall translation status of the message
+     */
+    private TranslationStatus deliverTranslations(
+            MessageDTO messageDTO, Map<String, List<String>> recipientsByLanguage) {
+        if (recipientsByLanguage.isEmpty()) {
+            return TranslationStatus.NOT_NEEDED;
+        }
+
+        // Request every language up front so they can share provider batches
+        Map<String, CompletableFuture<String>> translations = new LinkedHashMap<>();
+        for (String targetLanguage : recipientsByLanguage.keySet()) {
+            translations.put(targetLanguage, requestTranslation(messageDTO, targetLanguage));
+        }
+
+        // One deadline for the message, so languages waited for in turn cannot add up
+        long deadline = System.nanoTime() + translationTimeout.toNanos();
+        TranslationStatus status = TranslationStatus.COMPLETED;
+        List<MessageTranslationRow> rows = new ArrayList<>(translations.size());
+        for (Map.Entry<String, List<String>> entry : recipientsByLanguage.entrySet()) {
+            MessageDTO translatedMessageDTO = awaitTranslation(
+                    messageDTO, entry.getKey(), translations.get(entry.getKey()), deadline);
+            if (translatedMessageDTO.getTranslationStatus() == TranslationStatus.FAILED) {
+                status = TranslationStatus.FAILED;
+            } else {
+                rows.add(new MessageTranslationRow(
+                        messageDTO.getId(), entry.getKey(), translatedMessageDTO.getTranslatedContent()));
+            }
+
+            // Send the same translated message to every participant sharing this language
+            deliver(translatedMessageDTO, entry.getValue());
+        }
+
+        // Store every language in one batch so history reads never need to translate again
+        saveTranslations(messageDTO.getId(), rows);
+        return status;
+    }
+
+    private CompletableFuture<String> requestTranslation(MessageDTO messageDTO, String targetLanguage) {
+        try {
+            return translationService.translate(
+                    messageDTO.getContent(),
+                    messageDTO.getMessageLanguage(),
+                    targetLanguage,
+                    TranslationPriority.INTERACTIVE,
+                    messageDTO.getConversationId()
+            );
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Builds the message DTO for recipients once their translation is available, or
+     * a failed one if it is not available by the deadline.
+     */
+    private MessageDTO awaitTranslation(
+            MessageDTO messageDTO, String targetLanguage, CompletableFuture<String> translation, long deadline) {
+        String translatedContent;
+        try {
+            translatedContent = translation.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Translation of message {} into {} not ready within {}",
+                    messageDTO.getId(), targetLanguage, translationTimeout);
+            return failedTranslation(messageDTO);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failedTranslation(messageDTO);
+        } catch (ExecutionException | CancellationException e) {
+            logger.error("Translation failed for message: {}", messageDTO.getId(), e);
+            return failedTranslation(messageDTO);
+        }
+
+        MessageDTO translatedMessageDTO = new MessageDTO(messageDTO);
+        translatedMessageDTO.setTranslatedContent(translatedContent);
+        translatedMessageDTO.setTranslationStatus(TranslationStatus.COMPLETED);
+        return translatedMessageDTO;
+    }
+
+    private void saveTranslations(Long messageId, List<MessageTranslationRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            messageTranslationRepository.upsertAll(rows);
+            // Sync mode stores them in the writer's transaction, which adds the message to the cache on commit
+            TransactionCallbacks.afterCommit(() -> recentMessageCache.recordTranslations(rows));
+        } catch (Exception e) {
+            logger.error("Failed to store translations for message: {}", messageId, e);
+        }
+    }
+
+    private MessageDTO untranslated(MessageDTO messageDTO) {
+        MessageDTO untranslatedMessageDTO = new MessageDTO(messageDTO);
+        untranslatedMessageDTO.setTranslationStatus(TranslationStatus.NOT_NEEDED);
+        return untranslatedMessageDTO;
+    }
+
+    private MessageDTO failedTranslation(MessageDTO messageDTO) {
+        MessageDTO failedMessageDTO = new MessageDTO(messageDTO);
+        failedMessageDTO.setTranslatedContent(messageDTO.getContent());
+        failedMessageDTO.setTranslationStatus(TranslationStatus.FAILED);
+        return failedMessageDTO;
+    }
+
+    private void deliver(MessageDTO messageDTO, List<String> usernames) {
+        if (usernames == null) {
+            return;
+        }
+        for (String username : usernames) {
+            // One broken session must not keep the message from everyone after it
+            try {
+                webSocketUtil.sendMessageToUser(username, messageDTO);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to push message {} to {}", messageDTO.getId(), username, e);
+            }
+        }
+    }
+
+    private void updateTranslationStatus(MessageDTO messageDTO, TranslationStatus status) {
+        try {
+            messageRepository.updateTranslationStatus(messageDTO.getId(), messageDTO.getSentAt(), status);
+            recentMessageCache.recordTranslationStatus(messageDTO.getId(), status);
+        } catch (Exception e) {
+            logger.error("Failed to update translation status for message: {}", messageDTO.getId(), e);
+        }
+    }}
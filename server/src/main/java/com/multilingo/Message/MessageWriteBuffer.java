@@ -0,0 +1,258 @@
+package com.multilingo.Message;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Group commit for sent messages.
+ * <p>
+ * When enabled, senders queue their message and a single writer thread writes
+ * everything queued in one transaction through the {@link MessageWriter}, once the
+ * batch holds the maximum number of messages or once the maximum delay has
+ * elapsed since its first message, whichever comes first. This trades a few
+ * milliseconds of send latency for far fewer transactions and round trips.
+ * <p>
+ * Durability is unchanged: {@link #write} returns only after the transaction
+ * holding the message has committed, and fails if it did not. A message that is
+ * still queued when the process dies was never acknowledged to its sender.
+ * If a batch fails, its messages are retried one transaction each so that a bad
+ * message only fails its own sender. Only a batch that rolled back fails: work
+ * deferred until after commit logs its failures instead of throwing them, so a
+ * committed batch is never written again. When disabled, every message is written in
+ * its own transaction on the sender's thread.
+ * <p>
+ * Group commit requires asynchronous translation: synchronous translation would
+ * call the provider inside the group's transaction on the writer thread, making
+ * every queued sender wait for provider latency with the transaction open.
+ */
+@Component
+public class MessageWriteBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriteBuffer.class);
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final MessageWriter messageWriter;
+    private final boolean enabled;
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingWrite> queue;
+
+    // Held for reading while queueing, so no message is queued after shutdown drains the queue
+    private final ReentrantReadWriteLock shutdownLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    private final Thread writerThread;
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+
+    @Autowired
+    public MessageWriteBuffer(
+            MessageWriter messageWriter,
+            @Value("${messages.group-commit.enabled:false}") boolean enabled,
+            @Value("${messages.group-commit.max-delay:2ms}") Duration maxDelay,
+            @Value("${messages.group-commit.max-batch-size:100}") int maxBatchSize,
+            @Value("${messages.group-commit.queue-capacity:10000}") int queueCapacity,
+            @Value("${translation.async.enabled:true}") boolean asyncTranslation,
+            MeterRegistry meterRegistry) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size must be positive");
+        }
+        if (enabled && !asyncTranslation) {
+            throw new IllegalArgumentException(
+                    "messages.group-commit.enabled requires translation.async.enabled");
+        }
+        this.messageWriter = messageWriter;
+        this.enabled = enabled;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.batchSizes = DistributionSummary.builder("messages.group-commit.batch.size")
+                .description("Messages written per group commit")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("messages.group-commit.commit")
+                .description("Time taken to write and commit one group of messages")
+                .register(meterRegistry);
+        Gauge.builder("messages.group-commit.queue.depth", queue, BlockingQueue::size)
+                .description("Messages waiting for the next group commit")
+                .register(meterRegistry);
+
+        if (enabled) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("message-writer-");
+            threadFactory.setDaemon(true);
+            this.writerThread = threadFactory.newThread(this::writeLoop);
+            this.writerThread.start();
+        } else {
+            this.writerThread = null;
+        }
+    }
+
+    /**
+     * Writes a message, waiting until the transaction holding it has committed.
+     *
+     * @param draft The message to write
+     * @return The saved message
+     * @throws RejectedExecutionException If the queue is full or the buffer is shut down
+     */
+    public Message write(MessageDraft draft) {
+        if (!enabled) {
+            return messageWriter.write(List.of(draft)).get(0);
+        }
+
+        PendingWrite pending = new PendingWrite(draft);
+        shutdownLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("Message writer is shut down");
+            }
+            if (!queue.offer(pending)) {
+                throw new RejectedExecutionException("Message write queue is full");
+            }
+        } finally {
+            shutdownLock.readLock().unlock();
+        }
+
+        try {
+            return pending.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops accepting messages and writes those already queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shutdownLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            shutdownLock.writeLock().unlock();
+        }
+        if (writerThread == null) {
+            return;
+        }
+
+        // Not interrupted, so a commit in progress is never cut short
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of messages waiting for the next group commit.
+     */
+    int queuedCount() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                // Nothing interrupts the writer; write what has been collected
+                logger.warn("Message writer interrupted while collecting a batch");
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Waits for a first message, then collects more until the batch is full or
+     * the maximum delay since the first message has elapsed.
+     */
+    private void collectBatch(List<PendingWrite> batch) throws InterruptedException {
+        // Bounded wait so the loop notices shutdown
+        PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            // Take whatever is already queued before waiting for more
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingWrite> batch) {
+        List<MessageDraft> drafts = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            drafts.add(pending.draft);
+        }
+
+        long start = System.nanoTime();
+        try {
+            List<Message> messages = messageWriter.write(drafts);
+            commitTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            batchSizes.record(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(messages.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            logger.warn("Group commit of {} messages failed, writing them one by one", batch.size(), e);
+            for (PendingWrite pending : batch) {
+                try {
+                    pending.future.complete(messageWriter.write(List.of(pending.draft)).get(0));
+                } catch (RuntimeException messageFailure) {
+                    pending.future.completeExceptionally(messageFailure);
+                }
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        private final MessageDraft draft;
+        private final CompletableFuture<Message> future = new CompletableFuture<>();
+
+        private PendingWrite(MessageDraft draft) {
+            this.draft = draft;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.Conversation;
+import com.multilingo.Conversation.ConversationRepository;
+import com.multilingo.User.User;
+import com.multilingo.User.UserRepository;
+
+import jakarta.transaction.Transactional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes messages and the resulting conversation updates in a single transaction.
+ */
+@Component
+public class MessageWriter {
+
+    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final UserRepository userRepository;
+    private final MessageTranslationService messageTranslationService;
+    private final UnreadCountService unreadCountService;
+    private final RecentMessageCache recentMessageCache;
+
+    @Autowired
+    public MessageWriter(
+            MessageRepository messageRepository,
+            ConversationRepository conversationRepository,
+            UserRepository userRepository,
+            MessageTranslationService messageTranslationService,
+            UnreadCountService unreadCountService,
+            RecentMessageCache recentMessageCache) {
+        this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
+        this.userRepository = userRepository;
+        this.messageTranslationService = messageTranslationService;
+        this.unreadCountService = unreadCountService;
+        this.recentMessageCache = recentMessageCache;
+    }
+
+    /**
+     * Saves the messages, moves each conversation's lastMessageAt to its newest
+     * message, adds the messages to the recipients' unread counts and hands every
+     * message to translation. Either all messages are
+     * committed or none are.
+     *
+     * @param drafts The messages to write, in the order they were sent
+     * @return The saved messages, in the same order
+     * @throws IllegalArgumentException If a sender or a conversation does not exist
+     */
+    @Transactional
+    public List<Message> write(List<MessageDraft> drafts) {
+        // Look up every sender and conversation before writing anything
+        Map<Long, User> senders = new HashMap<>();
+        Map<Long, Conversation> conversations = new LinkedHashMap<>();
+        for (MessageDraft draft : drafts) {
+            if (draft.sender() == null || draft.sender().getId() == null) {
+                throw new IllegalArgumentException("Sender not found");
+            }
+            // The sender as stored, not as the caller described it
+            senders.computeIfAbsent(draft.sender().getId(), id -> userRepository
+                    .findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Sender not found")));
+            conversations.computeIfAbsent(draft.conversationId(), id -> conversationRepository
+                    .findConversationById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Conversation not found")));
+        }
+
+        // IDs come from the pooled sequence, so the inserts reach the database as one batch
+        List<Message> messages = new ArrayList<>(drafts.size());
+        for (MessageDraft draft : drafts) {
+            Message message = new Message();
+            message.setSender(senders.get(draft.sender().getId()));
+            message.setConversation(conversations.get(draft.conversationId()));
+            message.setContent(draft.content());
+            message.setMessageLanguage(draft.messageLanguage());
+            message.setMessageType(draft.messageType());
+            message.setSentAt(draft.sentAt());
+            messages.add(messageRepository.save(message));
+        }
+
+        // One lastMessageAt update per conversation, however many messages it received
+        for (Message message : messages) {
+            Conversation conversation = message.getConversation();
+            if (conversation.getLastMessageAt() == null
+                    || conversation.getLastMessageAt().isBefore(message.getSentAt())) {
+                conversation.setLastMessageAt(message.getSentAt());
+            }
+        }
+        conversationRepository.saveAll(conversations.values());
+        unreadCountService.recordSent(messages);
+        // Ahead of translation, whose stored translations the cache applies after the messages on commit
+        recentMessageCache.recordSent(messages);
+
+        for (Message message : messages) {
+            messageTranslationService.processTranslations(message, message.getConversation(), message.getSender());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,9 @@
+package com.multilingo.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where a message sits in its conversation, as needed to move a read watermark to it.
+ */
+public record ReadPosition(Long conversationId, Long messageId, LocalDateTime sentAt) {
+}
@@ -0,0 +1,7 @@
+package com.multilingo.Message;
+
+/**
+ * A participant's read watermark, as pushed to the other participants.
+ */
+public record ReadReceipt(Long userId, String username, Long lastReadMessageId) {
+}
@@ -0,0 +1,147 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.ConversationRepository;
+import com.multilingo.User.User;
+import com.multilingo.websocket.WebSocketUtil;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces read receipts per conversation.
+ * <p>
+ * The first receipt for a conversation opens a window; receipts arriving within
+ * it only replace the reader's earlier position. When the window closes, the
+ * participants are looked up once and each receives a single
+ * {@link ReadReceiptUpdate} with the positions of everyone else who read in the
+ * window. Someone scrolling through a busy group therefore costs each member at
+ * most one frame per window, however many messages they mark read.
+ */
+@Component
+public class ReadReceiptBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(ReadReceiptBroadcaster.class);
+
+    private final ConversationRepository conversationRepository;
+    private final WebSocketUtil webSocketUtil;
+    private final long windowNanos;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by itself; the receipts collected for each conversation with an open window
+    private final Map<Long, Map<Long, PendingReceipt>> openWindows = new HashMap<>();
+
+    private final Counter receiptCounter;
+    private final Counter frameCounter;
+
+    @Autowired
+    public ReadReceiptBroadcaster(
+            ConversationRepository conversationRepository,
+            WebSocketUtil webSocketUtil,
+            @Value("${messages.read-receipts.window:250ms}") Duration window,
+            MeterRegistry meterRegistry) {
+        this.conversationRepository = conversationRepository;
+        this.webSocketUtil = webSocketUtil;
+        this.windowNanos = window.toNanos();
+
+        CustomizableThreadFactory schedulerThreads = new CustomizableThreadFactory("read-receipt-timer-");
+        schedulerThreads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreads);
+
+        this.receiptCounter = Counter.builder("messages.read-receipts.received")
+                .description("Read watermark moves submitted for broadcast")
+                .register(meterRegistry);
+        this.frameCounter = Counter.builder("messages.read-receipts.frames")
+                .description("Read receipt frames pushed to participants")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a reader's new watermark for the next broadcast in its conversation.
+     *
+     * @param position The newest message the reader has read
+     * @param reader The reader
+     */
+    public void submit(ReadPosition position, User reader) {
+        receiptCounter.increment();
+        synchronized (openWindows) {
+            Map<Long, PendingReceipt> receipts = openWindows.get(position.conversationId());
+            if (receipts == null) {
+                receipts = new LinkedHashMap<>();
+                openWindows.put(position.conversationId(), receipts);
+                scheduler.schedule(() -> flush(position.conversationId()), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            // Commits can finish out of order; keep the reader's furthest position
+            PendingReceipt previous = receipts.get(reader.getId());
+            if (previous == null || previous.isBefore(position)) {
+                receipts.put(reader.getId(), new PendingReceipt(reader.getUsername(), position));
+            }
+        }
+    }
+
+    /**
+     * Sends the receipts of any open windows and stops broadcasting.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        List<Long> conversationIds;
+        synchronized (openWindows) {
+            conversationIds = new ArrayList<>(openWindows.keySet());
+        }
+        conversationIds.forEach(this::flush);
+    }
+
+    private void flush(Long conversationId) {
+        Map<Long, PendingReceipt> receipts;
+        synchronized (openWindows) {
+            receipts = openWindows.remove(conversationId);
+        }
+        if (receipts == null) {
+            return;
+        }
+
+        try {
+            for (String username : conversationRepository.findParticipantUsernames(conversationId)) {
+                List<ReadReceipt> others = new ArrayList<>(receipts.size());
+                receipts.forEach((userId, receipt) -> {
+                    if (!receipt.username.equals(username)) {
+                        others.add(new ReadReceipt(userId, receipt.username, receipt.position.messageId()));
+                    }
+                });
+                if (!others.isEmpty()) {
+                    webSocketUtil.sendReadReceipts(username, new ReadReceiptUpdate(conversationId, others));
+                    frameCounter.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Receipts are advisory; the watermarks themselves are already stored
+            logger.warn("Failed to broadcast read receipts for conversation {}", conversationId, e);
+        }
+    }
+
+    private record PendingReceipt(String username, ReadPosition position) {
+
+        boolean isBefore(ReadPosition other) {
+            int bySentAt = position.sentAt().compareTo(other.sentAt());
+            return bySentAt < 0 || (bySentAt == 0 && position.messageId() < other.messageId());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.multilingo.Message;
+
+import java.util.List;
+
+/**
+ * The read receipts of one conversation collected over a broadcast window,
+ * pushed to each participant as a single frame.
+ */
+public record ReadReceiptUpdate(Long conversationId, List<ReadReceipt> receipts) {
+}
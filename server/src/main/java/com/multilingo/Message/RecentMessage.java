@@ -0,0 +1,26 @@
+package com.multilingo.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message as kept by the {@link RecentMessageCache}, independent of any reader.
+ */
+public record RecentMessage(
+        Long id,
+        Long senderId,
+        String senderUsername,
+        Long conversationId,
+        String content,
+        String messageLanguage,
+        MessageType messageType,
+        LocalDateTime sentAt,
+        TranslationStatus translationStatus) {
+
+    /**
+     * Whether this message comes before another in history order.
+     */
+    boolean isBefore(RecentMessage other) {
+        int bySentAt = sentAt.compareTo(other.sentAt);
+        return bySentAt < 0 || (bySentAt == 0 && id < other.id);
+    }
+}
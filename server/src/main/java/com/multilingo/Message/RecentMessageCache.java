@@ -0,0 +1,483 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+import com.multilingo.common.TransactionCallbacks;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded cache of the newest messages of recently active conversations, so
+ * opening a hot conversation does not touch the database.
+ * <p>
+ * Each conversation gets a ring of its newest {@code messages-per-conversation}
+ * messages, loaded on the first open and kept current by sends, stored
+ * translations, translation status changes and read watermark moves once they
+ * commit. The messages are kept independent of any reader; each open renders
+ * them in the reader's language and against the reader's watermark, exactly as
+ * the history query would. Conversations are evicted least recently used first
+ * to stay within an estimate of {@code max-bytes}.
+ * <p>
+ * Updates arriving while a ring is being loaded are replayed onto it once the
+ * load completes. The cache only sees writes made by this node, so deployments
+ * with several nodes must route each conversation's traffic to one node or
+ * disable it.
+ */
+@Component
+public class RecentMessageCache {
+
+    /**
+     * Rough per-message overhead of the record, its entry, its ring slot and its index entry.
+     */
+    static final int MESSAGE_OVERHEAD_BYTES = 240;
+    static final int TRANSLATION_OVERHEAD_BYTES = 96;
+    static final int WATERMARK_BYTES = 96;
+    static final int RING_OVERHEAD_BYTES = 256;
+
+    private final MessageRepository messageRepository;
+    private final MessageTranslationRepository messageTranslationRepository;
+    private final ConversationReadStateRepository readStateRepository;
+    private final boolean enabled;
+    private final int messagesPerConversation;
+    private final long maxBytes;
+
+    // Access-ordered so iteration starts at the least recently used conversation
+    private final LinkedHashMap<Long, ConversationRing> rings = new LinkedHashMap<>(16, 0.75f, true);
+    // The ring holding each cached message, for updates that only know the message
+    private final Map<Long, ConversationRing> ringByMessage = new HashMap<>();
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public RecentMessageCache(
+            MessageRepository messageRepository,
+            MessageTranslationRepository messageTranslationRepository,
+            ConversationReadStateRepository readStateRepository,
+            @Value("${messages.recent-cache.enabled:true}") boolean enabled,
+            @Value("${messages.recent-cache.messages-per-conversation:64}") int messagesPerConversation,
+            @Value("${messages.recent-cache.max-bytes:67108864}") long maxBytes,
+            MeterRegistry meterRegistry) {
+        if (messagesPerConversation <= 0) {
+            throw new IllegalArgumentException("Messages per conversation must be positive");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Maximum bytes must be positive");
+        }
+        this.messageRepository = messageRepository;
+        this.messageTranslationRepository = messageTranslationRepository;
+        this.readStateRepository = readStateRepository;
+        this.enabled = enabled;
+        this.messagesPerConversation = messagesPerConversation;
+        this.maxBytes = maxBytes;
+        registerMetrics(meterRegistry);
+    }
+
+    /**
+     * Gets the newest messages of a conversation as a reader sees them. A
+     * conversation that is not cached yet is loaded, and served if it can be.
+     *
+     * @param conversationId The ID of the conversation
+     * @param reader The user reading, whose language and watermark apply
+     * @param count The number of messages wanted
+     * @return Up to {@code count} messages, newest first, or null if the cache cannot answer
+     */
+    public List<MessageDTO> getLatest(Long conversationId, User reader, int count) {
+        if (!enabled) {
+            return null;
+        }
+
+        ConversationRing loading;
+        synchronized (this) {
+            ConversationRing ring = rings.get(conversationId);
+            if (ring != null && ring.loaded && ring.covers(count)) {
+                hits.incrementAndGet();
+                return ring.latest(count, reader);
+            }
+            misses.incrementAndGet();
+            if (ring != null) {
+                // Longer than the ring holds, or another open is loading it
+                return null;
+            }
+            loading = new ConversationRing();
+            rings.put(conversationId, loading);
+        }
+
+        // Query outside the lock; updates meanwhile are queued on the ring and replayed
+        try {
+            List<RecentMessage> newest = messageRepository.findRecentMessages(
+                    conversationId, PageRequest.of(0, messagesPerConversation + 1));
+            List<MessageTranslationRow> translations = newest.isEmpty()
+                    ? List.of()
+                    : messageTranslationRepository.findRows(newest.stream().map(RecentMessage::id).toList());
+            List<ConversationReadState> readStates = readStateRepository.findByIdConversationId(conversationId);
+
+            synchronized (this) {
+                if (rings.get(conversationId) != loading) {
+                    // Evicted while loading
+                    return null;
+                }
+                fill(loading, newest, translations, readStates);
+                evictIfNeeded();
+                return loading.loaded && loading.covers(count) ? loading.latest(count, reader) : null;
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rings.remove(conversationId, loading);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Adds newly written messages to their conversations' rings once the
+     * surrounding transaction commits. Must run in the transaction that writes
+     * them, before anything in it records their translations. The messages are
+     * read as they were committed, so a translation status set later in the
+     * transaction is kept.
+     *
+     * @param messages The messages, with their sender and conversation
+     */
+    public void recordSent(List<Message> messages) {
+        if (!enabled) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                for (Message message : messages) {
+                    RecentMessage recent = new RecentMessage(
+                            message.getId(),
+                            message.getSender().getId(),
+                            message.getSender().getUsername(),
+                            message.getConversation().getId(),
+                            message.getContent(),
+                            message.getMessageLanguage(),
+                            message.getMessageType(),
+                            message.getSentAt(),
+                            message.getTranslationStatus());
+                    update(recent.conversationId(), ring -> add(ring, recent));
+                }
+                evictIfNeeded();
+            }
+        });
+    }
+
+    /**
+     * Adds stored translations to the cached messages they belong to. Callers in
+     * the transaction that stores them defer this until it commits.
+     *
+     * @param rows The translations, as committed
+     */
+    public void recordTranslations(List<MessageTranslationRow> rows) {
+        if (!enabled || rows.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            // The conversation of a message that is still loading is unknown, so every load gets them
+            for (ConversationRing ring : rings.values()) {
+                if (!ring.loaded) {
+                    ring.pending.add(loaded -> rows.forEach(row -> addTranslation(loaded, row)));
+                }
+            }
+            for (MessageTranslationRow row : rows) {
+                ConversationRing ring = ringByMessage.get(row.messageId());
+                if (ring != null) {
+                    addTranslation(ring, row);
+                }
+            }
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Updates the translation status of a cached message.
+     *
+     * @param messageId The ID of the message
+     * @param status The new status, as committed
+     */
+    public void recordTranslationStatus(Long messageId, TranslationStatus status) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            for (ConversationRing ring : rings.values()) {
+                if (!ring.loaded) {
+                    ring.pending.add(loaded -> setStatus(loaded, messageId, status));
+                }
+            }
+            ConversationRing ring = ringByMessage.get(messageId);
+            if (ring != null) {
+                setStatus(ring, messageId, status);
+            }
+        }
+    }
+
+    /**
+     * Moves a reader's cached watermark forward.
+     *
+     * @param userId The ID of the reader
+     * @param position The reader's new watermark, as committed
+     */
+    public void recordRead(Long userId, ReadPosition position) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            update(position.conversationId(), ring -> advance(ring, userId, position));
+        }
+    }
+
+    public synchronized int size() {
+        return rings.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return currentBytes;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    // Applies an update to a conversation's ring, or queues it while the ring loads
+    private void update(Long conversationId, Consumer<ConversationRing> action) {
+        ConversationRing ring = rings.get(conversationId);
+        if (ring == null) {
+            return;
+        }
+        if (ring.loaded) {
+            action.accept(ring);
+        } else {
+            ring.pending.add(action);
+        }
+    }
+
+    private void fill(
+            ConversationRing ring,
+            List<RecentMessage> newest,
+            List<MessageTranslationRow> translations,
+            List<ConversationReadState> readStates) {
+        // One more row than fits tells whether older messages exist
+        ring.reachesStart = newest.size() <= messagesPerConversation;
+        ring.loaded = true;
+        charge(ring, RING_OVERHEAD_BYTES);
+        for (int i = Math.min(newest.size(), messagesPerConversation) - 1; i >= 0; i--) {
+            add(ring, newest.get(i));
+        }
+        for (MessageTranslationRow row : translations) {
+            addTranslation(ring, row);
+        }
+        for (ConversationReadState readState : readStates) {
+            advance(ring, readState.getId().getUserId(), new ReadPosition(
+                    readState.getId().getConversationId(),
+                    readState.getLastReadMessageId(),
+                    readState.getLastReadSentAt()));
+        }
+        ring.pending.forEach(action -> action.accept(ring));
+        ring.pending.clear();
+    }
+
+    private void add(ConversationRing ring, RecentMessage message) {
+        if (ringByMessage.containsKey(message.id())) {
+            return;
+        }
+        List<CachedMessage> messages = ring.messages;
+        // Usually the newest; commits can finish out of order
+        int index = messages.size();
+        while (index > 0 && message.isBefore(messages.get(index - 1).message)) {
+            index--;
+        }
+        if (index == 0 && messages.size() >= messagesPerConversation) {
+            // Older than everything a full ring holds
+            return;
+        }
+        CachedMessage cached = new CachedMessage(message);
+        messages.add(index, cached);
+        ringByMessage.put(message.id(), ring);
+        charge(ring, cached.bytes);
+
+        if (messages.size() > messagesPerConversation) {
+            CachedMessage oldest = messages.remove(0);
+            ringByMessage.remove(oldest.message.id());
+            charge(ring, -oldest.bytes);
+            ring.reachesStart = false;
+        }
+    }
+
+    private void addTranslation(ConversationRing ring, MessageTranslationRow row) {
+        CachedMessage cached = ring.find(row.messageId());
+        if (cached == null) {
+            return;
+        }
+        String previous = cached.translations.put(row.language(), row.translatedContent());
+        long delta = previous != null
+                ? 2L * (length(row.translatedContent()) - length(previous))
+                : TRANSLATION_OVERHEAD_BYTES + 2L * (length(row.translatedContent()) + length(row.language()));
+        cached.bytes += delta;
+        charge(ring, delta);
+    }
+
+    private void setStatus(ConversationRing ring, Long messageId, TranslationStatus status) {
+        CachedMessage cached = ring.find(messageId);
+        if (cached != null) {
+            cached.status = status;
+        }
+    }
+
+    private void advance(ConversationRing ring, Long userId, ReadPosition position) {
+        ReadPosition previous = ring.watermarks.get(userId);
+        if (previous == null) {
+            ring.watermarks.put(userId, position);
+            charge(ring, WATERMARK_BYTES);
+        } else if (isBefore(previous, position)) {
+            ring.watermarks.put(userId, position);
+        }
+    }
+
+    private void charge(ConversationRing ring, long bytes) {
+        ring.bytes += bytes;
+        currentBytes += bytes;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<ConversationRing> iterator = rings.values().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            ConversationRing eldest = iterator.next();
+            iterator.remove();
+            for (CachedMessage cached : eldest.messages) {
+                ringByMessage.remove(cached.message.id());
+            }
+            currentBytes -= eldest.bytes;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+
+    private static boolean isBefore(ReadPosition a, ReadPosition b) {
+        int bySentAt = a.sentAt().compareTo(b.sentAt());
+        return bySentAt < 0 || (bySentAt == 0 && a.messageId() < b.messageId());
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("messages.recent-cache.gets", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Conversation opens looked up in the recent message cache")
+                .register(registry);
+        FunctionCounter.builder("messages.recent-cache.gets", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Conversation opens looked up in the recent message cache")
+                .register(registry);
+        FunctionCounter.builder("messages.recent-cache.evictions", evictions, AtomicLong::get)
+                .description("Conversations evicted to stay within the memory budget")
+                .register(registry);
+        Gauge.builder("messages.recent-cache.hit-ratio", this, RecentMessageCache::getHitRatio)
+                .description("Share of conversation opens served from memory since startup")
+                .register(registry);
+        Gauge.builder("messages.recent-cache.conversations", this, RecentMessageCache::size)
+                .description("Number of cached conversations")
+                .register(registry);
+        Gauge.builder("messages.recent-cache.bytes", this, RecentMessageCache::sizeInBytes)
+                .description("Estimated memory held by cached messages")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * The newest messages of one conversation, oldest first, and its readers' watermarks.
+     */
+    private static final class ConversationRing {
+        final List<CachedMessage> messages = new ArrayList<>();
+        final Map<Long, ReadPosition> watermarks = new HashMap<>();
+        // Updates that arrived while loading
+        final List<Consumer<ConversationRing>> pending = new ArrayList<>();
+        boolean loaded;
+        // Whether the ring holds the conversation's first message
+        boolean reachesStart;
+        long bytes;
+
+        boolean covers(int count) {
+            return messages.size() >= count || reachesStart;
+        }
+
+        CachedMessage find(Long messageId) {
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                if (messages.get(i).message.id().equals(messageId)) {
+                    return messages.get(i);
+                }
+            }
+            return null;
+        }
+
+        List<MessageDTO> latest(int count, User reader) {
+            ReadPosition watermark = watermarks.get(reader.getId());
+            String language = reader.getPreferredLanguage();
+            List<MessageDTO> latest = new ArrayList<>(Math.min(count, messages.size()));
+            for (int i = messages.size() - 1; i >= 0 && latest.size() < count; i--) {
+                CachedMessage cached = messages.get(i);
+                RecentMessage message = cached.message;
+                // The same rule as MessageRepository.READ_BY_READER
+                boolean read = message.senderId().equals(reader.getId())
+                        || (watermark != null && !isBefore(watermark,
+                                new ReadPosition(message.conversationId(), message.id(), message.sentAt())));
+                latest.add(new MessageDTO(
+                        message.id(),
+                        message.senderId(),
+                        message.senderUsername(),
+                        message.conversationId(),
+                        message.content(),
+                        cached.translations.get(language),
+                        message.messageLanguage(),
+                        message.messageType(),
+                        message.sentAt(),
+                        read,
+                        cached.status));
+            }
+            return latest;
+        }
+    }
+
+    private static final class CachedMessage {
+        final RecentMessage message;
+        final Map<String, String> translations = new HashMap<>(4);
+        TranslationStatus status;
+        long bytes;
+
+        CachedMessage(RecentMessage message) {
+            this.message = message;
+            this.status = message.translationStatus();
+            // Strings are counted at two bytes per char to stay conservative for non-Latin text
+            this.bytes = MESSAGE_OVERHEAD_BYTES
+                    + 2L * (length(message.content()) + length(message.senderUsername()));
+        }
+    }
+}
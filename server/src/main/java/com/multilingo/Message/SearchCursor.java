@@ -0,0 +1,52 @@
+package com.multilingo.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a result in a search, ordered by rank, then sent time and ID, all
+ * descending. Clients receive it as an opaque string and pass it back to page from there.
+ */
+public record SearchCursor(float rank, LocalDateTime sentAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static SearchCursor of(MessageSearchHit hit) {
+        return new SearchCursor(hit.rank(), hit.sentAt(), hit.messageId());
+    }
+
+    /**
+     * Encodes the cursor as a URL-safe string. The rank survives the round trip
+     * exactly, so the next page starts right after the last result.
+     */
+    public String encode() {
+        String raw = Float.toString(rank) + SEPARATOR + sentAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}.
+     *
+     * @param encoded The encoded cursor
+     * @return The cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static SearchCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int last = raw.lastIndexOf(SEPARATOR);
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            return new SearchCursor(
+                    Float.parseFloat(raw.substring(0, first)),
+                    LocalDateTime.parse(raw.substring(first + 1, last)),
+                    Long.parseLong(raw.substring(last + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.multilingo.Message;
+
+import com.multilingo.common.BaseEntity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity tracking the re-translation of a user's recent history into a new
+ * preferred language.
+ * <p>
+ * Messages are processed newest first. The cursor holds the position of the last
+ * message processed, so a backfill interrupted by a restart resumes after it.
+ */
+@Entity
+@Table(name = "translation_backfills", indexes = {
+    @Index(name = "idx_translation_backfills_user", columnList = "user_id"),
+    @Index(name = "idx_translation_backfills_status", columnList = "status")
+})
+public class TranslationBackfill extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "target_language", nullable = false)
+    private String targetLanguage;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private BackfillStatus status = BackfillStatus.RUNNING;
+
+    // Messages sent before this time are not backfilled
+    @Column(name = "history_start", nullable = false)
+    private LocalDateTime historyStart;
+
+    @Column(name = "cursor_sent_at", nullable = false)
+    private LocalDateTime cursorSentAt;
+
+    @Column(name = "cursor_message_id", nullable = false)
+    private Long cursorMessageId;
+
+    @Column(name = "total_messages", nullable = false)
+    private long totalMessages;
+
+    @Column(name = "processed_messages", nullable = false)
+    private long processedMessages;
+
+    @Column(name = "failed_messages", nullable = false)
+    private long failedMessages;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public TranslationBackfill() {
+    }
+
+    public TranslationBackfill(
+            Long userId, String targetLanguage, LocalDateTime historyStart, LocalDateTime startedAt) {
+        this.userId = userId;
+        this.targetLanguage = targetLanguage;
+        this.historyStart = historyStart;
+        // Messages sent after this point are translated into the new language as they arrive
+        this.cursorSentAt = startedAt;
+        this.cursorMessageId = Long.MAX_VALUE;
+    }
+
+    /**
+     * Moves the cursor past a processed chunk.
+     *
+     * @param last The last message of the chunk
+     * @param processed Number of messages in the chunk
+     * @param failed Number of messages in the chunk that could not be translated
+     */
+    public void advance(BackfillMessage last, long processed, long failed) {
+        this.cursorSentAt = last.sentAt();
+        this.cursorMessageId = last.id();
+        this.processedMessages += processed;
+        this.failedMessages += failed;
+    }
+
+    public void complete() {
+        this.status = BackfillStatus.COMPLETED;
+        this.completedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getTargetLanguage() {
+        return targetLanguage;
+    }
+
+    public BackfillStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BackfillStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getHistoryStart() {
+        return historyStart;
+    }
+
+    public LocalDateTime getCursorSentAt() {
+        return cursorSentAt;
+    }
+
+    public Long getCursorMessageId() {
+        return cursorMessageId;
+    }
+
+    public long getTotalMessages() {
+        return totalMessages;
+    }
+
+    public void setTotalMessages(long totalMessages) {
+        this.totalMessages = totalMessages;
+    }
+
+    public long getProcessedMessages() {
+        return processedMessages;
+    }
+
+    public long getFailedMessages() {
+        return failedMessages;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Messages still to be processed, based on the count taken when the backfill started.
+     */
+    public long getRemainingMessages() {
+        return Math.max(0, totalMessages - processedMessages);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TranslationBackfill that = (TranslationBackfill) o;
+        return id != null && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "TranslationBackfill{" +
+                "id=" + id +
+                ", userId=" + userId +
+                ", targetLanguage=" + targetLanguage +
+                ", status=" + status +
+                ", processedMessages=" + processedMessages +
+                ", totalMessages=" + totalMessages +
+                '}';
+    }
+}
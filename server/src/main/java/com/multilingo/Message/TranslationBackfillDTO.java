@@ -0,0 +1,28 @@
+package com.multilingo.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a translation backfill.
+ */
+public record TranslationBackfillDTO(
+        Long id,
+        String targetLanguage,
+        BackfillStatus status,
+        long totalMessages,
+        long processedMessages,
+        long failedMessages,
+        LocalDateTime startedAt,
+        LocalDateTime completedAt) {
+    public static TranslationBackfillDTO toDTO(TranslationBackfill backfill) {
+        return new TranslationBackfillDTO(
+                backfill.getId(),
+                backfill.getTargetLanguage(),
+                backfill.getStatus(),
+                backfill.getTotalMessages(),
+                backfill.getProcessedMessages(),
+                backfill.getFailedMessages(),
+                backfill.getCreatedAt(),
+                backfill.getCompletedAt());
+    }
+}
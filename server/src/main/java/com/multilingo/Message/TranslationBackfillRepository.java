@@ -0,0 +1,69 @@
+package com.multilingo.Message;
+
+import jakarta.transaction.Transactional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for TranslationBackfill entity.
+ */
+@Repository
+public interface TranslationBackfillRepository extends JpaRepository<TranslationBackfill, Long> {
+
+    /**
+     * Find backfills in the given state.
+     */
+    List<TranslationBackfill> findByStatus(BackfillStatus status);
+
+    /**
+     * Find the most recent backfill of a user.
+     */
+    Optional<TranslationBackfill> findFirstByUserIdOrderByIdDesc(Long userId);
+
+    /**
+     * Mark the running backfills of a user as superseded by a newer one.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TranslationBackfill b SET b.status = com.multilingo.Message.BackfillStatus.SUPERSEDED "
+            + "WHERE b.userId = :userId AND b.status = com.multilingo.Message.BackfillStatus.RUNNING")
+    int supersedeRunning(@Param("userId") Long userId);
+
+    /**
+     * Save the position of a running backfill after a chunk. Bulk updates skip the
+     * entity callbacks, so the update time is passed in.
+     *
+     * @return 0 if the backfill is no longer running, having been superseded
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TranslationBackfill b SET b.cursorSentAt = :cursorSentAt, b.cursorMessageId = :cursorMessageId, "
+            + "b.processedMessages = :processedMessages, b.failedMessages = :failedMessages, b.updatedAt = :updatedAt "
+            + "WHERE b.id = :id AND b.status = com.multilingo.Message.BackfillStatus.RUNNING")
+    int saveCheckpoint(@Param("id") Long id,
+                       @Param("cursorSentAt") LocalDateTime cursorSentAt,
+                       @Param("cursorMessageId") Long cursorMessageId,
+                       @Param("processedMessages") long processedMessages,
+                       @Param("failedMessages") long failedMessages,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Mark a running backfill as completed.
+     *
+     * @return 0 if the backfill is no longer running, having been superseded
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TranslationBackfill b SET b.status = com.multilingo.Message.BackfillStatus.COMPLETED, "
+            + "b.completedAt = :completedAt, b.updatedAt = :completedAt "
+            + "WHERE b.id = :id AND b.status = com.multilingo.Message.BackfillStatus.RUNNING")
+    int markCompleted(@Param("id") Long id, @Param("completedAt") LocalDateTime completedAt);
+}
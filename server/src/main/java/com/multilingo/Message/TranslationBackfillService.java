@@ -0,0 +1,317 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+import com.multilingo.common.TransactionCallbacks;
+import com.multilingo.translation.TranslationPriority;
+import com.multilingo.translation.TranslationService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Service for re-translating a user's recent history after they change their
+ * preferred language.
+ * <p>
+ * A backfill walks the messages the user received in all of their conversations
+ * newest first, in chunks of a fixed size, and stores their translation into the
+ * new language so that opening a conversation finds them already translated.
+ * Translations are requested at {@link TranslationPriority#BACKFILL} priority, so
+ * they only use provider capacity that live messages leave free. The position of
+ * the last processed message is saved after every chunk, and backfills still
+ * running at shutdown resume from there on the next start.
+ */
+@Service
+public class TranslationBackfillService {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationBackfillService.class);
+
+    private final TranslationBackfillRepository backfillRepository;
+    private final MessageRepository messageRepository;
+    private final MessageTranslationRepository messageTranslationRepository;
+    private final TranslationService translationService;
+    private final RecentMessageCache recentMessageCache;
+    private final Executor backfillExecutor;
+    private final int chunkSize;
+    private final Duration history;
+    private final Duration retryDelay;
+    private final int maxAttempts;
+
+    private volatile boolean running = true;
+
+    // Remaining messages of the backfills running on this instance
+    private final ConcurrentMap<Long, Long> remainingByBackfill = new ConcurrentHashMap<>();
+    private final Counter translatedMessages;
+    private final Counter failedMessages;
+    private final Timer chunkTimer;
+
+    @Autowired
+    public TranslationBackfillService(
+            TranslationBackfillRepository backfillRepository,
+            MessageRepository messageRepository,
+            MessageTranslationRepository messageTranslationRepository,
+            TranslationService translationService,
+            RecentMessageCache recentMessageCache,
+            @Qualifier("translationBackfillExecutor") Executor backfillExecutor,
+            @Value("${translation.backfill.chunk-size:50}") int chunkSize,
+            @Value("${translation.backfill.history:30d}") Duration history,
+            @Value("${translation.backfill.retry-delay:30s}") Duration retryDelay,
+            @Value("${translation.backfill.max-attempts:5}") int maxAttempts,
+            MeterRegistry meterRegistry) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Backfill chunk size must be positive");
+        }
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Backfill attempts must be positive");
+        }
+        this.backfillRepository = backfillRepository;
+        this.messageRepository = messageRepository;
+        this.messageTranslationRepository = messageTranslationRepository;
+        this.translationService = translationService;
+        this.recentMessageCache = recentMessageCache;
+        this.backfillExecutor = backfillExecutor;
+        this.chunkSize = chunkSize;
+        this.history = history;
+        this.retryDelay = retryDelay;
+        this.maxAttempts = maxAttempts;
+
+        this.translatedMessages = Counter.builder("translation.backfill.messages")
+                .tag("result", "translated")
+                .description("Messages processed by translation backfills")
+                .register(meterRegistry);
+        this.failedMessages = Counter.builder("translation.backfill.messages")
+                .tag("result", "failed")
+                .description("Messages processed by translation backfills")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("translation.backfill.chunk")
+                .description("Time taken to translate and store one backfill chunk")
+                .register(meterRegistry);
+        Gauge.builder("translation.backfill.active", remainingByBackfill, ConcurrentMap::size)
+                .description("Translation backfills running on this instance")
+                .register(meterRegistry);
+        Gauge.builder("translation.backfill.remaining", remainingByBackfill,
+                        backfills -> backfills.values().stream().mapToLong(Long::longValue).sum())
+                .description("Messages the running translation backfills still have to process")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts re-translating a user's recent history into their preferred language,
+     * superseding any backfill still running for them. The backfill begins once
+     * the surrounding transaction commits.
+     *
+     * @param user The user whose preferred language changed
+     * @return The new backfill
+     */
+    @Transactional
+    public TranslationBackfill startBackfill(User user) {
+        if (user == null || user.getId() == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+
+        backfillRepository.supersedeRunning(user.getId());
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime historyStart = startedAt.minus(history);
+        TranslationBackfill backfill = new TranslationBackfill(
+                user.getId(), user.getPreferredLanguage(), historyStart, startedAt);
+        backfill.setTotalMessages(messageRepository.countBackfillMessages(
+                user.getId(), user.getPreferredLanguage(), historyStart, startedAt));
+        backfill = backfillRepository.save(backfill);
+
+        Long backfillId = backfill.getId();
+        TransactionCallbacks.afterCommit(() -> submit(backfillId));
+        return backfill;
+    }
+
+    /**
+     * Finds the most recent backfill of a user.
+     *
+     * @param userId The ID of the user
+     * @return The backfill progress, if the user ever had a backfill
+     */
+    public Optional<TranslationBackfillDTO> findLatestBackfill(Long userId) {
+        return backfillRepository.findFirstByUserIdOrderByIdDesc(userId).map(TranslationBackfillDTO::toDTO);
+    }
+
+    /**
+     * Resumes the backfills that were still running when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeBackfills() {
+        for (TranslationBackfill backfill : backfillRepository.findByStatus(BackfillStatus.RUNNING)) {
+            logger.info("Resuming translation backfill {} at message {}",
+                    backfill.getId(), backfill.getProcessedMessages());
+            submit(backfill.getId());
+        }
+    }
+
+    /**
+     * Stops backfills after their current chunk; they resume on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+    }
+
+    private void submit(Long backfillId) {
+        try {
+            backfillExecutor.execute(() -> run(backfillId));
+        } catch (RejectedExecutionException e) {
+            // Left RUNNING, so it is picked up again on the next start
+            logger.warn("Translation backfill pool saturated, deferring backfill {}", backfillId);
+        }
+    }
+
+    /**
+     * Processes a backfill chunk by chunk until it completes, is superseded or the
+     * application shuts down.
+     */
+    void run(Long backfillId) {
+        int attempts = 0;
+        try {
+            while (running) {
+                TranslationBackfill backfill = backfillRepository.findById(backfillId).orElse(null);
+                if (backfill == null || backfill.getStatus() != BackfillStatus.RUNNING) {
+                    return;
+                }
+                remainingByBackfill.put(backfillId, backfill.getRemainingMessages());
+
+                Pageable chunk = PageRequest.of(0, chunkSize);
+                List<BackfillMessage> messages = messageRepository.findBackfillChunk(
+                        backfill.getUserId(),
+                        backfill.getTargetLanguage(),
+                        backfill.getHistoryStart(),
+                        backfill.getCursorSentAt(),
+                        backfill.getCursorMessageId(),
+                        chunk);
+                if (messages.isEmpty()) {
+                    backfill.complete();
+                    if (backfillRepository.markCompleted(backfillId, backfill.getCompletedAt()) == 0) {
+                        logger.info("Translation backfill {} superseded before completing", backfillId);
+                        return;
+                    }
+                    logger.info("Translation backfill {} completed: {} messages, {} failed",
+                            backfillId, backfill.getProcessedMessages(), backfill.getFailedMessages());
+                    return;
+                }
+
+                long start = System.nanoTime();
+                int failed = translateChunk(messages, backfill.getTargetLanguage());
+                chunkTimer.record(Duration.ofNanos(System.nanoTime() - start));
+
+                // A chunk where nothing succeeded usually means the provider is unavailable
+                attempts++;
+                if (failed == messages.size() && attempts < maxAttempts) {
+                    logger.warn("Translation backfill {} chunk failed (attempt {}), retrying in {}",
+                            backfillId, attempts, retryDelay);
+                    if (!pause(retryDelay)) {
+                        return;
+                    }
+                    continue;
+                }
+                attempts = 0;
+
+                translatedMessages.increment(messages.size() - failed);
+                failedMessages.increment(failed);
+                backfill.advance(messages.get(messages.size() - 1), messages.size(), failed);
+                // Conditional on the backfill still running, so a newer backfill superseding it is never overwritten
+                int checkpointed = backfillRepository.saveCheckpoint(
+                        backfillId,
+                        backfill.getCursorSentAt(),
+                        backfill.getCursorMessageId(),
+                        backfill.getProcessedMessages(),
+                        backfill.getFailedMessages(),
+                        LocalDateTime.now());
+                if (checkpointed == 0) {
+                    logger.info("Translation backfill {} superseded after {} messages",
+                            backfillId, backfill.getProcessedMessages());
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            // Left RUNNING, so it resumes from the last checkpoint on the next start
+            logger.error("Translation backfill {} stopped", backfillId, e);
+        } finally {
+            remainingByBackfill.remove(backfillId);
+        }
+    }
+
+    /**
+     * Translates and stores a chunk of messages.
+     *
+     * @return The number of messages that could not be translated
+     */
+    private int translateChunk(List<BackfillMessage> messages, String targetLanguage) {
+        // Request the whole chunk up front so it can share provider batches
+        List<CompletableFuture<String>> translations = new ArrayList<>(messages.size());
+        for (BackfillMessage message : messages) {
+            translations.add(requestTranslation(message, targetLanguage));
+        }
+
+        int failed = 0;
+        List<MessageTranslationRow> rows = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            BackfillMessage message = messages.get(i);
+            try {
+                rows.add(new MessageTranslationRow(message.id(), targetLanguage, translations.get(i).join()));
+            } catch (Exception e) {
+                logger.debug("Backfill translation failed for message: {}", message.id(), e);
+                failed++;
+            }
+        }
+
+        // One batch per chunk; if storing fails the backfill stops at its last checkpoint
+        messageTranslationRepository.upsertAll(rows);
+        recentMessageCache.recordTranslations(rows);
+        return failed;
+    }
+
+    private CompletableFuture<String> requestTranslation(BackfillMessage message, String targetLanguage) {
+        try {
+            return translationService.translate(
+                    message.content(),
+                    message.messageLanguage(),
+                    targetLanguage,
+                    TranslationPriority.BACKFILL,
+                    message.conversationId()
+            );
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean pause(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }}
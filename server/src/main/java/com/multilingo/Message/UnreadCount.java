@@ -0,0 +1,7 @@
+package com.multilingo.Message;
+
+/**
+ * The number of unread messages of one of a user's conversations.
+ */
+public record UnreadCount(Long conversationId, long unreadCount) {
+}
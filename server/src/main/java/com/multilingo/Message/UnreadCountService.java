@@ -0,0 +1,210 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+import com.multilingo.common.TransactionCallbacks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains each user's unread count per conversation.
+ * <p>
+ * Counts are stored as {@link ConversationUnreadCount} rows: a send adds to the
+ * counts of the other participants and a read locks the reader's count and resets
+ * it to the exact number of messages after their new watermark, which also
+ * corrects any drift. The counts of recently active users are cached in memory,
+ * one atomic counter per conversation, and kept current by the same sends and
+ * reads once they commit, so the sidebar is served without touching the database.
+ * A cached user is reloaded after {@code messages.unread.cache-ttl}, which bounds
+ * how long sends handled by another node, or committed while the user was being
+ * loaded, stay invisible.
+ */
+@Service
+public class UnreadCountService {
+
+    private final ConversationUnreadCountRepository unreadCountRepository;
+    private final MessageRepository messageRepository;
+    private final long ttlNanos;
+    private final int maxCachedUsers;
+
+    private final ConcurrentMap<Long, CachedCounts> cache = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    @Autowired
+    public UnreadCountService(
+            ConversationUnreadCountRepository unreadCountRepository,
+            MessageRepository messageRepository,
+            @Value("${messages.unread.cache-ttl:30s}") Duration ttl,
+            @Value("${messages.unread.cache-max-users:100000}") int maxCachedUsers,
+            MeterRegistry meterRegistry) {
+        if (maxCachedUsers <= 0) {
+            throw new IllegalArgumentException("messages.unread.cache-max-users must be positive");
+        }
+        this.unreadCountRepository = unreadCountRepository;
+        this.messageRepository = messageRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maxCachedUsers = maxCachedUsers;
+
+        this.hitCounter = Counter.builder("messages.unread.cache.requests")
+                .tag("result", "hit")
+                .description("Unread count lookups served from memory")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("messages.unread.cache.requests")
+                .tag("result", "miss")
+                .description("Unread count lookups loaded from the database")
+                .register(meterRegistry);
+        Gauge.builder("messages.unread.cache.users", cache, Map::size)
+                .description("Users whose unread counts are cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets all of a user's unread counts.
+     *
+     * @param userId The ID of the user
+     * @return The number of unread messages by conversation ID; conversations
+     *         without unread messages are left out
+     */
+    public Map<Long, Long> getUnreadCounts(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+
+        CachedCounts counts = cache.get(userId);
+        if (counts == null || counts.isExpired(System.nanoTime(), ttlNanos)) {
+            missCounter.increment();
+            counts = load(userId);
+        } else {
+            hitCounter.increment();
+        }
+
+        Map<Long, Long> unread = new HashMap<>();
+        counts.byConversation.forEach((conversationId, count) -> {
+            long value = count.get();
+            if (value > 0) {
+                unread.put(conversationId, value);
+            }
+        });
+        return unread;
+    }
+
+    /**
+     * Adds newly written messages to the unread counts of the other participants
+     * of their conversations. Must run in the transaction that writes the messages.
+     *
+     * @param messages The messages, with their sender and conversation
+     */
+    public void recordSent(List<Message> messages) {
+        // Per conversation, how many of the messages each participant sent
+        Map<Long, Map<Long, Long>> sentBySender = new LinkedHashMap<>();
+        Map<Long, List<Long>> participants = new HashMap<>();
+        for (Message message : messages) {
+            Long conversationId = message.getConversation().getId();
+            sentBySender.computeIfAbsent(conversationId, id -> new LinkedHashMap<>())
+                    .merge(message.getSender().getId(), 1L, Long::sum);
+            participants.computeIfAbsent(conversationId, id -> message.getConversation().getUsers().stream()
+                    .map(User::getId)
+                    .toList());
+        }
+
+        // One statement per sender and conversation, however many messages the batch holds
+        sentBySender.forEach((conversationId, senders) -> senders.forEach((senderId, count) ->
+                unreadCountRepository.incrementForRecipients(conversationId, senderId, count)));
+
+        TransactionCallbacks.afterCommit(() -> sentBySender.forEach((conversationId, senders) -> {
+            long total = senders.values().stream().mapToLong(Long::longValue).sum();
+            for (Long userId : participants.get(conversationId)) {
+                CachedCounts counts = cache.get(userId);
+                long received = total - senders.getOrDefault(userId, 0L);
+                if (counts != null && received > 0) {
+                    counts.counter(conversationId).addAndGet(received);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Resets a user's unread count in a conversation to the number of messages
+     * after their watermark. Must run in the transaction that moved the watermark.
+     *
+     * @param userId The ID of the reader
+     * @param position The reader's new watermark
+     */
+    public void recordRead(Long userId, ReadPosition position) {
+        Long conversationId = position.conversationId();
+        // Sends add to the count while holding its row: locking it first keeps one that
+        // commits between the count and the set from being overwritten by a stale count
+        unreadCountRepository.lock(userId, conversationId);
+        // Only the messages after the new watermark are counted, usually few or none
+        long unread = messageRepository.countUnreadAfter(
+                conversationId, userId, position.sentAt(), position.messageId());
+        unreadCountRepository.set(userId, conversationId, unread);
+
+        TransactionCallbacks.afterCommit(() -> {
+            CachedCounts counts = cache.get(userId);
+            if (counts != null) {
+                counts.counter(conversationId).set(unread);
+            }
+        });
+    }
+
+    private CachedCounts load(Long userId) {
+        CachedCounts counts = new CachedCounts(System.nanoTime());
+        for (UnreadCount unread : unreadCountRepository.findByUserId(userId)) {
+            counts.counter(unread.conversationId()).set(unread.unreadCount());
+        }
+        cache.put(userId, counts);
+        if (cache.size() > maxCachedUsers) {
+            evict();
+        }
+        return counts;
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        cache.values().removeIf(counts -> counts.isExpired(now, ttlNanos));
+        // Still full of live users: drop some, they are reloaded on their next lookup
+        Iterator<Long> userIds = cache.keySet().iterator();
+        while (cache.size() > maxCachedUsers && userIds.hasNext()) {
+            userIds.next();
+            userIds.remove();
+        }
+    }
+
+    /**
+     * A user's unread counts as loaded from the database, kept current since.
+     */
+    private static final class CachedCounts {
+        final long loadedAtNanos;
+        final ConcurrentMap<Long, AtomicLong> byConversation = new ConcurrentHashMap<>();
+
+        CachedCounts(long loadedAtNanos) {
+            this.loadedAtNanos = loadedAtNanos;
+        }
+
+        AtomicLong counter(Long conversationId) {
+            return byConversation.computeIfAbsent(conversationId, id -> new AtomicLong());
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return now - loadedAtNanos >= ttlNanos;
+        }
+    }
+}
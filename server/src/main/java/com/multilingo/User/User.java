@@ -19,8 +19,10 @@ import java.util.Set;
 })
 public class User extends BaseEntity {
 
+    // Pooled sequence: one round trip reserves 50 IDs, which lets Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 50, unique = true)
@@ -155,13 +157,13 @@ public class User extends BaseEntity {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        User user = (User) o;
-        return id != null && id.equals(user.id);
+        // instanceof and getters, so lazy proxies compare equal to the entity they stand for
+        if (!(o instanceof User user)) return false;
+        return getId() != null && getId().equals(user.getId());
     }
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        return User.class.hashCode();
     }
 }
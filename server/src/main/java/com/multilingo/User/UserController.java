@@ -1,17 +1,23 @@
 package com.multilingo.User;
 
+import com.multilingo.Message.TranslationBackfillDTO;
+import com.multilingo.Message.TranslationBackfillService;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping(path = "api/v1/user")
 public class UserController {
     private final UserService userService;
+    private final TranslationBackfillService translationBackfillService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, TranslationBackfillService translationBackfillService) {
         this.userService = userService;
+        this.translationBackfillService = translationBackfillService;
     }
 
     @PostMapping("/register")
@@ -27,4 +33,21 @@ public class UserController {
         }
         return ResponseEntity.ok(user);
     }
+
+    @PutMapping("/me/preferred-language")
+    public UserDTO updatePreferredLanguage(
+            @RequestBody PreferredLanguageRequest request, Authentication authentication) {
+        return userService.updatePreferredLanguage(authentication.getName(), request.preferredLanguage());
+    }
+
+    @GetMapping("/me/translation-backfill")
+    public ResponseEntity<TranslationBackfillDTO> getTranslationBackfill(Authentication authentication) {
+        User user = userService.getUserByUsername(authentication.getName());
+        return translationBackfillService.findLatestBackfill(user.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    public record PreferredLanguageRequest(String preferredLanguage) {
+    }
 }
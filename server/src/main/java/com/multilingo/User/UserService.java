@@ -1,5 +1,7 @@
 package com.multilingo.User;
 
+import com.multilingo.Message.TranslationBackfillService;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -13,11 +15,16 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TranslationBackfillService translationBackfillService;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(
+            UserRepository userRepository,
+            PasswordEncoder passwordEncoder,
+            TranslationBackfillService translationBackfillService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.translationBackfillService = translationBackfillService;
     }
 
     /**
@@ -100,6 +107,34 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
     }
     
+    /**
+     * Change a user's preferred language and start re-translating their recent
+     * history into it in the background
+     * 
+     * @param username Username of the user
+     * @param preferredLanguage New preferred language
+     * @return User DTO
+     * @throws IllegalArgumentException if user not found or the language is blank
+     */
+    @Transactional
+    public UserDTO updatePreferredLanguage(String username, String preferredLanguage) {
+        if (preferredLanguage == null || preferredLanguage.isBlank()) {
+            throw new IllegalArgumentException("Preferred language cannot be null or empty");
+        }
+
+        User user = getUserByUsername(username);
+        String language = preferredLanguage.trim();
+        if (language.equals(user.getPreferredLanguage())) {
+            return convertToDTO(user);
+        }
+
+        user.setPreferredLanguage(language);
+        userRepository.save(user);
+        translationBackfillService.startBackfill(user);
+
+        return convertToDTO(user);
+    }
+    
     /**
      * Convert a User entity to UserDTO
      * 
@@ -0,0 +1,43 @@
+package com.multilingo.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work, such as cache updates and pushes, until the data it describes has committed.
+ */
+public final class TransactionCallbacks {
+    private static final Logger logger = LoggerFactory.getLogger(TransactionCallbacks.class);
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Runs the action once the current transaction commits, or immediately when
+     * no transaction is active. A failing action is logged, not thrown: Spring would
+     * throw it to the committer, which could not tell it from a rollback, and it
+     * would skip the actions registered after it.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runLogged(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runLogged(action);
+            }
+        });
+    }
+
+    private static void runLogged(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            logger.error("Work after commit failed", e);
+        }
+    }
+}
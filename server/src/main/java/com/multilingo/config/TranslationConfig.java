@@ -0,0 +1,55 @@
+package com.multilingo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration for the translation pipeline
+ */
+@Configuration
+public class TranslationConfig {
+
+    /**
+     * Creates the bounded worker pool used for asynchronous translations.
+     * Tasks submitted while the queue is full are rejected so that senders
+     * never wait on translation capacity.
+     *
+     * @return the translation executor
+     */
+    @Bean(name = "translationExecutor")
+    public ThreadPoolTaskExecutor translationExecutor(
+            @Value("${translation.async.pool-size:8}") int poolSize,
+            @Value("${translation.async.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("translation-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Creates the worker pool that runs translation backfills. Each backfill
+     * occupies one worker until it finishes, and backfills beyond the pool size
+     * wait in the queue.
+     *
+     * @return the backfill executor
+     */
+    @Bean(name = "translationBackfillExecutor")
+    public ThreadPoolTaskExecutor translationBackfillExecutor(
+            @Value("${translation.backfill.pool-size:2}") int poolSize,
+            @Value("${translation.backfill.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("translation-backfill-");
+        // Unfinished backfills keep their checkpoint and resume on the next start
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
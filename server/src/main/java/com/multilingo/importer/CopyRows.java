@@ -0,0 +1,69 @@
+package com.multilingo.importer;
+
+import java.time.LocalDateTime;
+
+/**
+ * Rows in the text format of PostgreSQL's COPY: columns separated by tabs, rows
+ * ended by newlines, {@code \N} for NULL, and backslash escapes for backslashes,
+ * tabs and line breaks inside values.
+ */
+class CopyRows {
+
+    private final StringBuilder text = new StringBuilder();
+    private int rowCount;
+    private boolean rowStarted;
+
+    /**
+     * Appends a column to the current row.
+     *
+     * @param value A string, number, boolean, enum, timestamp, or null
+     */
+    CopyRows column(Object value) {
+        if (rowStarted) {
+            text.append('\t');
+        }
+        rowStarted = true;
+        if (value == null) {
+            text.append("\\N");
+        } else if (value instanceof Boolean bool) {
+            text.append(bool ? 't' : 'f');
+        } else if (value instanceof Number || value instanceof LocalDateTime || value instanceof Enum<?>) {
+            text.append(value);
+        } else {
+            escape(value.toString());
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current row.
+     */
+    CopyRows endRow() {
+        text.append('\n');
+        rowStarted = false;
+        rowCount++;
+        return this;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> text.append("\\\\");
+                case '\t' -> text.append("\\t");
+                case '\n' -> text.append("\\n");
+                case '\r' -> text.append("\\r");
+                default -> text.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.multilingo.importer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Controller for bulk importing message history; admins only.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/imports")
+public class HistoryImportController {
+    private final HistoryImportService historyImportService;
+
+    @Autowired
+    public HistoryImportController(HistoryImportService historyImportService) {
+        this.historyImportService = historyImportService;
+    }
+
+    /**
+     * Endpoint for importing history as NDJSON, one user, conversation or message
+     * per line. The body is read as it arrives; the response is sent once the
+     * import finishes.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<HistoryImportProgress> importHistory(InputStream body) throws IOException {
+        return ResponseEntity.ok(historyImportService.importHistory(body));
+    }
+
+    /**
+     * Endpoint for getting the progress of the running import, or of the last one.
+     */
+    @GetMapping("/current")
+    public ResponseEntity<HistoryImportProgress> getProgress() {
+        return historyImportService.getProgress()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,7 @@
+package com.multilingo.importer;
+
+/**
+ * A line of a history import that was rejected.
+ */
+public record HistoryImportError(long line, String reason) {
+}
@@ -0,0 +1,23 @@
+package com.multilingo.importer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress of a history import. Counts cover committed batches only;
+ * {@code rowsPerSecond} is every row loaded so far over the time since the start.
+ */
+public record HistoryImportProgress(
+        ImportStatus status,
+        long linesRead,
+        long usersImported,
+        long conversationsImported,
+        long membershipsImported,
+        long messagesImported,
+        long rejectedLines,
+        double rowsPerSecond,
+        List<HistoryImportError> errors,
+        String failure,
+        LocalDateTime startedAt,
+        LocalDateTime completedAt) {
+}
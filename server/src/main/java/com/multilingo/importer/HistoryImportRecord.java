@@ -0,0 +1,38 @@
+package com.multilingo.importer;
+
+import com.multilingo.Message.MessageType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One line of a history import. Users and conversations get a {@code ref} of the
+ * importer's choosing, which later lines use to refer to them; a line may only
+ * refer to users and conversations on earlier lines.
+ * <ul>
+ *   <li>{@code user}: {@code ref}, {@code username}, and for a username that does
+ *   not exist yet {@code email}, {@code preferredLanguage} and optionally {@code name}</li>
+ *   <li>{@code conversation}: {@code ref}, {@code members} (user refs) and optionally {@code name}</li>
+ *   <li>{@code message}: {@code conversation} and {@code sender} refs, {@code content},
+ *   {@code language}, {@code sentAt} and optionally {@code messageType}</li>
+ * </ul>
+ */
+public record HistoryImportRecord(
+        String type,
+        String ref,
+        String username,
+        String name,
+        String email,
+        String preferredLanguage,
+        List<String> members,
+        String conversation,
+        String sender,
+        String content,
+        String language,
+        MessageType messageType,
+        LocalDateTime sentAt) {
+
+    static final String USER = "user";
+    static final String CONVERSATION = "conversation";
+    static final String MESSAGE = "message";
+}
@@ -0,0 +1,157 @@
+package com.multilingo.importer;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JDBC access for {@link HistoryImportService}: lookups, ID allocation and COPY.
+ */
+@Repository
+public class HistoryImportRepository {
+
+    // Matches allocationSize of the entities' sequence generators; see the V1 migration
+    static final int ID_BLOCK_SIZE = 50;
+
+    private static final String ADVANCE_WATERMARKS_SQL = "INSERT INTO conversation_read_state "
+            + "(user_id, conversation_id, last_read_message_id, last_read_sent_at, updated_at) "
+            + "SELECT uc.user_id, uc.conversation_id, ?, ?, now() "
+            + "FROM user_conversations uc WHERE uc.conversation_id = ? "
+            + "ON CONFLICT (user_id, conversation_id) DO UPDATE SET "
+            + "last_read_message_id = EXCLUDED.last_read_message_id, "
+            + "last_read_sent_at = EXCLUDED.last_read_sent_at, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "WHERE (conversation_read_state.last_read_sent_at, conversation_read_state.last_read_message_id) "
+            + "< (EXCLUDED.last_read_sent_at, EXCLUDED.last_read_message_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public HistoryImportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Finds the IDs of the existing users among some usernames.
+     *
+     * @return The ID of each username that exists
+     */
+    public Map<String, Long> findUserIds(Collection<String> usernames) {
+        Map<String, Long> userIds = new HashMap<>();
+        if (usernames.isEmpty()) {
+            return userIds;
+        }
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username = ANY (?)",
+                        (rs, rowNum) -> Map.entry(rs.getString("username"), rs.getLong("id")),
+                        (Object) usernames.toArray(String[]::new))
+                .forEach(user -> userIds.put(user.getKey(), user.getValue()));
+        return userIds;
+    }
+
+    /**
+     * Finds which of some emails already belong to a user.
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT email FROM users WHERE email = ANY (?)", String.class, (Object) emails.toArray(String[]::new)));
+    }
+
+    /**
+     * Reserves IDs from a pooled sequence the way Hibernate does, one block of
+     * {@value #ID_BLOCK_SIZE} per value drawn, so they never collide with IDs the
+     * application assigns. The first value of a new sequence is 1, whose block holds
+     * only ID 1, so blocks are drawn until there are enough IDs.
+     *
+     * @param sequence The name of the sequence
+     * @param count The number of IDs wanted
+     * @return At least {@code count} unused IDs, all positive and ascending within each block
+     */
+    public List<Long> allocateIds(String sequence, int count) {
+        List<Long> ids = new ArrayList<>(count + ID_BLOCK_SIZE);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            List<Long> blockEnds = jdbcTemplate.queryForList(
+                    "SELECT nextval(?::regclass) FROM generate_series(1, ?)", Long.class, sequence, blocks);
+            for (Long blockEnd : blockEnds) {
+                for (long id = Math.max(1, blockEnd - ID_BLOCK_SIZE + 1); id <= blockEnd; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Creates the missing monthly partitions of messages for a range of sent times.
+     *
+     * @return The number of partitions created
+     */
+    public int createMessagePartitions(LocalDateTime from, LocalDateTime to) {
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT create_message_partitions(?::timestamp, ?::timestamp)", Integer.class, from, to);
+        return created != null ? created : 0;
+    }
+
+    /**
+     * Loads rows through the COPY protocol.
+     *
+     * @param sql A {@code COPY ... FROM STDIN} statement in text format
+     * @param rows The rows, as written by {@link CopyRows}
+     * @return The number of rows loaded
+     */
+    public long copyIn(String sql, String rows) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(rows));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Brings imported conversations up to date with their newest imported message:
+     * the conversation's last message time and every member's read watermark, so
+     * imported history is neither sorted as silent nor counted as unread.
+     */
+    public void finishConversations(List<ImportedConversation> conversations) {
+        if (conversations.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE conversations SET last_message_at = ?, updated_at = now() WHERE id = ?",
+                conversations, conversations.size(), (statement, conversation) -> {
+                    statement.setObject(1, conversation.lastSentAt());
+                    statement.setLong(2, conversation.id());
+                });
+        jdbcTemplate.batchUpdate(ADVANCE_WATERMARKS_SQL, conversations, conversations.size(),
+                (statement, conversation) -> {
+                    statement.setLong(1, conversation.lastMessageId());
+                    statement.setObject(2, conversation.lastSentAt());
+                    statement.setLong(3, conversation.id());
+                });
+    }
+
+    /**
+     * An imported conversation and its newest imported message.
+     */
+    public record ImportedConversation(Long id, Long lastMessageId, LocalDateTime lastSentAt) {
+    }
+}
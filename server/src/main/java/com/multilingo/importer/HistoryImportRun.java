@@ -0,0 +1,122 @@
+package com.multilingo.importer;
+
+import com.multilingo.importer.HistoryImportRepository.ImportedConversation;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The state of one history import: what its refs resolved to, the lines waiting
+ * for the next batch, and its progress. Only the importing thread touches the
+ * maps and pending lines; progress may be read from any thread.
+ */
+class HistoryImportRun {
+
+    // Rejected lines beyond this are counted but not listed
+    static final int MAX_ERRORS = 100;
+
+    final Map<String, Long> userIds = new HashMap<>();
+    final Map<String, Long> conversationIds = new HashMap<>();
+    final Map<Long, Set<Long>> members = new HashMap<>();
+    // The newest imported message of each conversation
+    final Map<Long, ImportedConversation> latest = new HashMap<>();
+
+    final List<Line> users = new ArrayList<>();
+    final List<Line> conversations = new ArrayList<>();
+    final List<Line> messages = new ArrayList<>();
+
+    final AtomicLong linesRead = new AtomicLong();
+    final AtomicLong usersImported = new AtomicLong();
+    final AtomicLong conversationsImported = new AtomicLong();
+    final AtomicLong membershipsImported = new AtomicLong();
+    final AtomicLong messagesImported = new AtomicLong();
+    final AtomicLong rejectedLines = new AtomicLong();
+    private final List<HistoryImportError> errors = new ArrayList<>();
+
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private volatile ImportStatus status = ImportStatus.RUNNING;
+    private volatile String failure;
+    private volatile LocalDateTime completedAt;
+    private volatile long endNanos;
+    long lastLogNanos = startNanos;
+
+    int pendingCount() {
+        return users.size() + conversations.size() + messages.size();
+    }
+
+    void clearPending() {
+        users.clear();
+        conversations.clear();
+        messages.clear();
+    }
+
+    void reject(long line, String reason) {
+        rejectedLines.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(new HistoryImportError(line, reason));
+            }
+        }
+    }
+
+    boolean isRunning() {
+        return status == ImportStatus.RUNNING;
+    }
+
+    void complete() {
+        finish(ImportStatus.COMPLETED, null);
+    }
+
+    void fail(Exception e) {
+        finish(ImportStatus.FAILED, e.getMessage());
+    }
+
+    long rowsImported() {
+        return usersImported.get() + conversationsImported.get() + membershipsImported.get() + messagesImported.get();
+    }
+
+    double rowsPerSecond() {
+        long end = isRunning() ? System.nanoTime() : endNanos;
+        double seconds = (end - startNanos) / 1e9;
+        return seconds > 0 ? rowsImported() / seconds : 0;
+    }
+
+    HistoryImportProgress progress() {
+        List<HistoryImportError> errorsSoFar;
+        synchronized (errors) {
+            errorsSoFar = List.copyOf(errors);
+        }
+        return new HistoryImportProgress(
+                status,
+                linesRead.get(),
+                usersImported.get(),
+                conversationsImported.get(),
+                membershipsImported.get(),
+                messagesImported.get(),
+                rejectedLines.get(),
+                rowsPerSecond(),
+                errorsSoFar,
+                failure,
+                startedAt,
+                completedAt);
+    }
+
+    private void finish(ImportStatus finalStatus, String reason) {
+        endNanos = System.nanoTime();
+        completedAt = LocalDateTime.now();
+        failure = reason;
+        status = finalStatus;
+    }
+
+    /**
+     * A line waiting for the next batch.
+     */
+    record Line(long number, HistoryImportRecord record) {
+    }
+}
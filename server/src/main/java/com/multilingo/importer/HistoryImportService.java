@@ -0,0 +1,499 @@
+package com.multilingo.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.multilingo.Message.MessageContentCodec;
+import com.multilingo.Message.MessageType;
+import com.multilingo.Message.TranslationStatus;
+import com.multilingo.User.UserRole;
+import com.multilingo.importer.HistoryImportRepository.ImportedConversation;
+import com.multilingo.importer.HistoryImportRun.Line;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service for bulk importing message history from another system.
+ * <p>
+ * The import is NDJSON, one {@link HistoryImportRecord} per line. Lines are read as
+ * they arrive and loaded in batches of {@code batch-size}: each batch is validated
+ * as a whole, with one query for the usernames and emails it uses, and its users,
+ * conversations, memberships and messages are loaded through COPY in a single
+ * transaction. Invalid lines are rejected and reported, and lines that refer to
+ * them are rejected in turn; the rest of the import goes on.
+ * <p>
+ * Nothing else a send does happens here: no pushes, no translations and no
+ * unread counts. Once every batch is in, each imported conversation gets its
+ * last message time and its members' read watermarks moved to its newest
+ * imported message, so imported history does not show up as unread. Imported
+ * users get no usable password.
+ * <p>
+ * One import runs at a time; its progress, including the sustained rows per
+ * second, is kept until the next one starts and logged every
+ * {@code progress-interval}.
+ */
+@Service
+public class HistoryImportService {
+    private static final Logger logger = LoggerFactory.getLogger(HistoryImportService.class);
+
+    // Matches no BCrypt hash, so imported users sign in only after resetting their password
+    static final String IMPORTED_PASSWORD = "!";
+    static final int MAX_USERNAME_LENGTH = 50;
+    static final int MAX_NAME_LENGTH = 100;
+
+    static final String COPY_USERS = "COPY users "
+            + "(id, created_at, updated_at, deleted, username, name, email, password, preferred_language, role) "
+            + "FROM STDIN";
+    static final String COPY_CONVERSATIONS = "COPY conversations (id, created_at, updated_at, deleted, name) FROM STDIN";
+    static final String COPY_MEMBERSHIPS = "COPY user_conversations (conversation_id, user_id) FROM STDIN";
+    static final String COPY_MESSAGES = "COPY messages "
+            + "(id, created_at, updated_at, deleted, sender_id, conversation_id, content, "
+            + "message_language, message_type, sent_at, translation_status) "
+            + "FROM STDIN";
+
+    private final HistoryImportRepository importRepository;
+    private final TransactionOperations transactionOperations;
+    private final ObjectMapper objectMapper;
+    // COPY bypasses MessageContentConverter, so content is encoded here
+    private final MessageContentCodec contentCodec;
+    private final int batchSize;
+    private final Duration progressInterval;
+    private final AtomicReference<HistoryImportRun> current = new AtomicReference<>();
+
+    private final Counter usersCounter;
+    private final Counter conversationsCounter;
+    private final Counter membershipsCounter;
+    private final Counter messagesCounter;
+
+    @Autowired
+    public HistoryImportService(
+            HistoryImportRepository importRepository,
+            TransactionOperations transactionOperations,
+            ObjectMapper objectMapper,
+            @Value("${messages.import.batch-size:10000}") int batchSize,
+            @Value("${messages.import.progress-interval:10s}") Duration progressInterval,
+            @Value("${messages.compression.enabled:false}") boolean compressionEnabled,
+            @Value("${messages.compression.min-length:1024}") int compressionMinLength,
+            MeterRegistry meterRegistry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.importRepository = importRepository;
+        this.transactionOperations = transactionOperations;
+        this.objectMapper = objectMapper;
+        this.contentCodec = new MessageContentCodec(compressionEnabled, compressionMinLength);
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+        this.usersCounter = rowsCounter(meterRegistry, "users");
+        this.conversationsCounter = rowsCounter(meterRegistry, "conversations");
+        this.membershipsCounter = rowsCounter(meterRegistry, "memberships");
+        this.messagesCounter = rowsCounter(meterRegistry, "messages");
+    }
+
+    /**
+     * Imports history, returning once all of it is loaded.
+     *
+     * @param input NDJSON, one {@link HistoryImportRecord} per line
+     * @return The final progress, with the rejected lines
+     * @throws IllegalStateException If another import is running
+     * @throws IOException If reading the input fails; batches loaded until then stay
+     */
+    public HistoryImportProgress importHistory(InputStream input) throws IOException {
+        HistoryImportRun run = start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                long number = run.linesRead.incrementAndGet();
+                if (!text.isBlank()) {
+                    read(run, number, text);
+                }
+                if (run.pendingCount() >= batchSize) {
+                    flush(run);
+                }
+            }
+            flush(run);
+            List<ImportedConversation> imported = new ArrayList<>(run.latest.values());
+            transactionOperations.executeWithoutResult(status -> importRepository.finishConversations(imported));
+            run.complete();
+        } catch (IOException | RuntimeException e) {
+            run.fail(e);
+            logger.error("History import failed after {} lines", run.linesRead.get(), e);
+            throw e;
+        }
+        HistoryImportProgress progress = run.progress();
+        logger.info("History import completed: {} lines, {} messages, {} rejected, {} rows/s",
+                progress.linesRead(), progress.messagesImported(), progress.rejectedLines(),
+                Math.round(progress.rowsPerSecond()));
+        return progress;
+    }
+
+    /**
+     * Gets the progress of the running import, or of the last one.
+     */
+    public Optional<HistoryImportProgress> getProgress() {
+        return Optional.ofNullable(current.get()).map(HistoryImportRun::progress);
+    }
+
+    private HistoryImportRun start() {
+        HistoryImportRun run = new HistoryImportRun();
+        HistoryImportRun previous = current.get();
+        if ((previous != null && previous.isRunning()) || !current.compareAndSet(previous, run)) {
+            throw new IllegalStateException("A history import is already running");
+        }
+        return run;
+    }
+
+    private void read(HistoryImportRun run, long number, String text) {
+        HistoryImportRecord record;
+        try {
+            record = objectMapper.readValue(text, HistoryImportRecord.class);
+        } catch (JsonProcessingException e) {
+            run.reject(number, "Invalid line: " + e.getOriginalMessage());
+            return;
+        }
+        Line line = new Line(number, record);
+        switch (record.type() != null ? record.type() : "") {
+            case HistoryImportRecord.USER -> run.users.add(line);
+            case HistoryImportRecord.CONVERSATION -> run.conversations.add(line);
+            case HistoryImportRecord.MESSAGE -> run.messages.add(line);
+            default -> run.reject(number, "Unknown type: " + record.type());
+        }
+    }
+
+    private void flush(HistoryImportRun run) {
+        if (run.pendingCount() == 0) {
+            return;
+        }
+        // Creating a partition locks messages, so it commits on its own instead of with the batch
+        createPartitions(run.messages);
+
+        Loaded loaded = new Loaded();
+        transactionOperations.executeWithoutResult(status -> {
+            loadUsers(run, loaded);
+            loadConversations(run, loaded);
+            loadMessages(run, loaded);
+        });
+        run.clearPending();
+
+        // Refs of the batch become visible to the next ones only once it has committed
+        run.userIds.putAll(loaded.userIds);
+        run.conversationIds.putAll(loaded.conversationIds);
+        run.members.putAll(loaded.members);
+        run.latest.putAll(loaded.latest);
+        run.usersImported.addAndGet(loaded.users);
+        run.conversationsImported.addAndGet(loaded.conversations);
+        run.membershipsImported.addAndGet(loaded.memberships);
+        run.messagesImported.addAndGet(loaded.messages);
+        usersCounter.increment(loaded.users);
+        conversationsCounter.increment(loaded.conversations);
+        membershipsCounter.increment(loaded.memberships);
+        messagesCounter.increment(loaded.messages);
+
+        long now = System.nanoTime();
+        if (now - run.lastLogNanos >= progressInterval.toNanos()) {
+            run.lastLogNanos = now;
+            logger.info("History import: {} lines read, {} messages imported, {} rejected, {} rows/s",
+                    run.linesRead.get(), run.messagesImported.get(), run.rejectedLines.get(),
+                    Math.round(run.rowsPerSecond()));
+        }
+    }
+
+    private void createPartitions(List<Line> messages) {
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (Line line : messages) {
+            LocalDateTime sentAt = line.record().sentAt();
+            if (sentAt != null) {
+                from = from == null || sentAt.isBefore(from) ? sentAt : from;
+                to = to == null || sentAt.isAfter(to) ? sentAt : to;
+            }
+        }
+        if (from != null) {
+            importRepository.createMessagePartitions(from, to);
+        }
+    }
+
+    private void loadUsers(HistoryImportRun run, Loaded loaded) {
+        List<Line> valid = new ArrayList<>();
+        Set<String> refs = new HashSet<>();
+        for (Line line : run.users) {
+            String ref = line.record().ref();
+            String username = line.record().username();
+            if (isBlank(ref)) {
+                run.reject(line.number(), "User ref is missing");
+            } else if (run.userIds.containsKey(ref) || !refs.add(ref)) {
+                run.reject(line.number(), "Duplicate user ref: " + ref);
+            } else if (isBlank(username) || username.length() > MAX_USERNAME_LENGTH) {
+                run.reject(line.number(), "Username must be 1 to " + MAX_USERNAME_LENGTH + " characters");
+            } else {
+                valid.add(line);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Users that already exist are referred to, not created
+        Map<String, Long> existing = importRepository.findUserIds(
+                valid.stream().map(line -> line.record().username()).toList());
+        List<Line> created = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        for (Line line : valid) {
+            HistoryImportRecord user = line.record();
+            Long id = existing.get(user.username());
+            if (id != null) {
+                loaded.userIds.put(user.ref(), id);
+                continue;
+            }
+            String error = validateNewUser(user);
+            if (error != null) {
+                run.reject(line.number(), error);
+            } else if (!usernames.add(user.username())) {
+                run.reject(line.number(), "Duplicate username: " + user.username());
+            } else {
+                created.add(line);
+            }
+        }
+
+        Set<String> takenEmails = importRepository.findExistingEmails(
+                created.stream().map(line -> line.record().email()).toList());
+        Set<String> emails = new HashSet<>();
+        created.removeIf(line -> {
+            String email = line.record().email();
+            if (takenEmails.contains(email) || !emails.add(email)) {
+                run.reject(line.number(), "Email already in use: " + email);
+                return true;
+            }
+            return false;
+        });
+        if (created.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = importRepository.allocateIds("users_seq", created.size());
+        LocalDateTime now = LocalDateTime.now();
+        CopyRows rows = new CopyRows();
+        for (int i = 0; i < created.size(); i++) {
+            HistoryImportRecord user = created.get(i).record();
+            Long id = ids.get(i);
+            loaded.userIds.put(user.ref(), id);
+            rows.column(id).column(now).column(now).column(false)
+                    .column(user.username())
+                    .column(isBlank(user.name()) ? user.username() : user.name())
+                    .column(user.email())
+                    .column(IMPORTED_PASSWORD)
+                    .column(user.preferredLanguage())
+                    .column(UserRole.USER)
+                    .endRow();
+        }
+        importRepository.copyIn(COPY_USERS, rows.toString());
+        loaded.users += rows.rowCount();
+    }
+
+    private void loadConversations(HistoryImportRun run, Loaded loaded) {
+        List<Line> valid = new ArrayList<>();
+        List<Set<Long>> validMembers = new ArrayList<>();
+        Set<String> refs = new HashSet<>();
+        for (Line line : run.conversations) {
+            HistoryImportRecord conversation = line.record();
+            String ref = conversation.ref();
+            if (isBlank(ref)) {
+                run.reject(line.number(), "Conversation ref is missing");
+            } else if (run.conversationIds.containsKey(ref) || !refs.add(ref)) {
+                run.reject(line.number(), "Duplicate conversation ref: " + ref);
+            } else if (conversation.name() != null && conversation.name().length() > MAX_NAME_LENGTH) {
+                run.reject(line.number(), "Conversation name is longer than " + MAX_NAME_LENGTH + " characters");
+            } else if (conversation.members() == null || conversation.members().isEmpty()) {
+                run.reject(line.number(), "Conversation has no members");
+            } else {
+                Set<Long> members = new LinkedHashSet<>();
+                String unknown = null;
+                for (String member : conversation.members()) {
+                    Long userId = userId(run, loaded, member);
+                    if (userId == null) {
+                        unknown = member;
+                        break;
+                    }
+                    members.add(userId);
+                }
+                if (unknown != null) {
+                    run.reject(line.number(), "Unknown member: " + unknown);
+                } else {
+                    valid.add(line);
+                    validMembers.add(members);
+                }
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = importRepository.allocateIds("conversations_seq", valid.size());
+        LocalDateTime now = LocalDateTime.now();
+        CopyRows conversationRows = new CopyRows();
+        CopyRows membershipRows = new CopyRows();
+        for (int i = 0; i < valid.size(); i++) {
+            Long id = ids.get(i);
+            loaded.conversationIds.put(valid.get(i).record().ref(), id);
+            loaded.members.put(id, validMembers.get(i));
+            conversationRows.column(id).column(now).column(now).column(false)
+                    .column(valid.get(i).record().name())
+                    .endRow();
+            for (Long userId : validMembers.get(i)) {
+                membershipRows.column(id).column(userId).endRow();
+            }
+        }
+        importRepository.copyIn(COPY_CONVERSATIONS, conversationRows.toString());
+        importRepository.copyIn(COPY_MEMBERSHIPS, membershipRows.toString());
+        loaded.conversations += conversationRows.rowCount();
+        loaded.memberships += membershipRows.rowCount();
+    }
+
+    private void loadMessages(HistoryImportRun run, Loaded loaded) {
+        List<Line> valid = new ArrayList<>();
+        for (Line line : run.messages) {
+            String error = validateMessage(run, loaded, line.record());
+            if (error != null) {
+                run.reject(line.number(), error);
+            } else {
+                valid.add(line);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = importRepository.allocateIds("messages_seq", valid.size());
+        LocalDateTime now = LocalDateTime.now();
+        CopyRows rows = new CopyRows();
+        for (int i = 0; i < valid.size(); i++) {
+            HistoryImportRecord message = valid.get(i).record();
+            Long id = ids.get(i);
+            Long conversationId = conversationId(run, loaded, message.conversation());
+            rows.column(id).column(now).column(now).column(false)
+                    .column(userId(run, loaded, message.sender()))
+                    .column(conversationId)
+                    .column(contentCodec.encode(message.content()))
+                    .column(message.language())
+                    .column(message.messageType() != null ? message.messageType() : MessageType.TEXT)
+                    .column(message.sentAt())
+                    // Not translated yet; a translation backfill can pick it up later
+                    .column(TranslationStatus.PENDING)
+                    .endRow();
+
+            ImportedConversation newest = loaded.latest.getOrDefault(conversationId, run.latest.get(conversationId));
+            if (newest == null || isBefore(newest, message.sentAt(), id)) {
+                loaded.latest.put(conversationId, new ImportedConversation(conversationId, id, message.sentAt()));
+            }
+        }
+        importRepository.copyIn(COPY_MESSAGES, rows.toString());
+        loaded.messages += rows.rowCount();
+    }
+
+    private static String validateNewUser(HistoryImportRecord user) {
+        if (isBlank(user.email())) {
+            return "Email is missing";
+        }
+        if (isBlank(user.preferredLanguage())) {
+            return "Preferred language is missing";
+        }
+        if (user.name() != null && user.name().length() > MAX_NAME_LENGTH) {
+            return "Name is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static String validateMessage(HistoryImportRun run, Loaded loaded, HistoryImportRecord message) {
+        Long conversationId = conversationId(run, loaded, message.conversation());
+        if (conversationId == null) {
+            return "Unknown conversation: " + message.conversation();
+        }
+        Long senderId = userId(run, loaded, message.sender());
+        if (senderId == null) {
+            return "Unknown sender: " + message.sender();
+        }
+        Set<Long> members = loaded.members.getOrDefault(conversationId, run.members.get(conversationId));
+        if (!members.contains(senderId)) {
+            return "Sender " + message.sender() + " is not a member of " + message.conversation();
+        }
+        if (isBlank(message.content())) {
+            return "Content is missing";
+        }
+        // PostgreSQL text cannot hold NUL
+        if (message.content().indexOf('\0') >= 0) {
+            return "Content contains a NUL character";
+        }
+        if (isBlank(message.language())) {
+            return "Language is missing";
+        }
+        if (message.sentAt() == null) {
+            return "Sent time is missing";
+        }
+        return null;
+    }
+
+    private static Long userId(HistoryImportRun run, Loaded loaded, String ref) {
+        Long id = loaded.userIds.get(ref);
+        return id != null ? id : run.userIds.get(ref);
+    }
+
+    private static Long conversationId(HistoryImportRun run, Loaded loaded, String ref) {
+        Long id = loaded.conversationIds.get(ref);
+        return id != null ? id : run.conversationIds.get(ref);
+    }
+
+    private static boolean isBefore(ImportedConversation newest, LocalDateTime sentAt, Long id) {
+        int bySentAt = newest.lastSentAt().compareTo(sentAt);
+        return bySentAt < 0 || (bySentAt == 0 && newest.lastMessageId() < id);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static Counter rowsCounter(MeterRegistry registry, String type) {
+        return Counter.builder("messages.import.rows")
+                .tag("type", type)
+                .description("Rows loaded by history imports")
+                .register(registry);
+    }
+
+    /**
+     * What one batch loaded: the IDs of its refs, added to the run once it commits so
+     * a rolled back batch leaves no refs to rows that do not exist, and its row counts.
+     */
+    private static final class Loaded {
+        final Map<String, Long> userIds = new HashMap<>();
+        final Map<String, Long> conversationIds = new HashMap<>();
+        final Map<Long, Set<Long>> members = new HashMap<>();
+        final Map<Long, ImportedConversation> latest = new HashMap<>();
+        long users;
+        long conversations;
+        long memberships;
+        long messages;
+    }
+}
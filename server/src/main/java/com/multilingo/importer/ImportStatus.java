@@ -0,0 +1,10 @@
+package com.multilingo.importer;
+
+/**
+ * Enum representing the state of a history import.
+ */
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
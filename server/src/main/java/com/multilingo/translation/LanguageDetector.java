@@ -0,0 +1,308 @@
+package com.multilingo.translation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.Character.UnicodeScript;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Offline language detector for short chat messages.
+ * <p>
+ * Texts written in scripts used by only a few languages (Hangul, kana, Cyrillic,
+ * ...) are classified by script. Latin-script texts are scored against character
+ * trigram profiles built once at startup from the sample texts under
+ * {@code language-profiles/}. Detection falls back to the caller's language when
+ * the text is too short or the result is not clearly better than the fallback.
+ * <p>
+ * Language codes are ISO 639-1, matching {@code User.preferredLanguage}.
+ */
+@Component
+public class LanguageDetector {
+
+    static final String PROFILE_LOCATION = "language-profiles/";
+
+    // Trigrams needed before n-gram scores are trusted over the fallback
+    private static final int MIN_GRAMS = 8;
+
+    // Average log-likelihood gain per trigram required to override the fallback
+    private static final double MIN_MARGIN_PER_GRAM = 0.15;
+
+    // Additive smoothing applied to trigram counts
+    private static final double SMOOTHING = 0.5;
+
+    // Languages written in a script few other languages use; the first entry is the default
+    private static final Map<UnicodeScript, List<String>> SCRIPT_LANGUAGES = Map.of(
+            UnicodeScript.HANGUL, List.of("ko"),
+            UnicodeScript.HIRAGANA, List.of("ja"),
+            UnicodeScript.KATAKANA, List.of("ja"),
+            UnicodeScript.HAN, List.of("zh", "ja"),
+            UnicodeScript.CYRILLIC, List.of("ru", "uk", "bg", "sr", "be", "mk", "kk"),
+            UnicodeScript.GREEK, List.of("el"),
+            UnicodeScript.ARABIC, List.of("ar", "fa", "ur"),
+            UnicodeScript.HEBREW, List.of("he", "yi"),
+            UnicodeScript.DEVANAGARI, List.of("hi", "mr", "ne"),
+            UnicodeScript.THAI, List.of("th"));
+
+    private final boolean enabled;
+    private final String[] languages;
+
+    // Open-addressing table from packed trigram to its row in logProbs; 0 marks an empty slot
+    private final long[] gramKeys;
+    private final int[] gramRows;
+    private final int gramMask;
+
+    // Row-major log probabilities: logProbs[row * languages.length + language]
+    private final float[] logProbs;
+    private final float[] unseenLogProbs;
+
+    @Autowired
+    public LanguageDetector(
+            @Value("${translation.detection.enabled:true}") boolean enabled,
+            @Value("${translation.detection.languages:en,es,fr,de,it,pt,nl}") List<String> languages) {
+        if (languages.isEmpty()) {
+            throw new IllegalArgumentException("At least one detection language is required");
+        }
+        this.enabled = enabled;
+        this.languages = languages.stream().map(String::trim).toArray(String[]::new);
+
+        // Count trigrams per language; only runs once, so boxing is acceptable here
+        int languageCount = this.languages.length;
+        Map<Long, int[]> counts = new HashMap<>();
+        long[] totals = new long[languageCount];
+        for (int i = 0; i < languageCount; i++) {
+            int language = i;
+            totals[i] = forEachTrigram(loadProfile(this.languages[i]),
+                    key -> counts.computeIfAbsent(key, k -> new int[languageCount])[language]++);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(counts.size(), 1) * 2) * 2;
+        this.gramKeys = new long[capacity];
+        this.gramRows = new int[capacity];
+        this.gramMask = capacity - 1;
+        this.logProbs = new float[counts.size() * languageCount];
+        this.unseenLogProbs = new float[languageCount];
+
+        double vocabulary = counts.size();
+        for (int i = 0; i < languageCount; i++) {
+            unseenLogProbs[i] = (float) Math.log(SMOOTHING / (totals[i] + SMOOTHING * vocabulary));
+        }
+
+        int row = 0;
+        for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+            int slot = slotFor(entry.getKey());
+            while (gramKeys[slot] != 0) {
+                slot = (slot + 1) & gramMask;
+            }
+            gramKeys[slot] = entry.getKey();
+            gramRows[slot] = row;
+            int[] gramCounts = entry.getValue();
+            for (int i = 0; i < languageCount; i++) {
+                logProbs[row * languageCount + i] = (float) Math.log(
+                        (gramCounts[i] + SMOOTHING) / (totals[i] + SMOOTHING * vocabulary));
+            }
+            row++;
+        }
+    }
+
+    /**
+     * Detects the language a message is written in.
+     *
+     * @param text The message text
+     * @param fallbackLanguage The language to assume when detection is inconclusive,
+     *                         usually the sender's preferred language
+     * @return The detected language code, or the fallback language
+     */
+    public String detect(String text, String fallbackLanguage) {
+        if (!enabled || text == null) {
+            return fallbackLanguage;
+        }
+
+        // Classify by script first; this pass does not allocate
+        int latinLetters = 0;
+        int otherLetters = 0;
+        UnicodeScript otherScript = null;
+        boolean kana = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetter(c)) {
+                continue;
+            }
+            if (c < 0x0250 || (c >= 0x1E00 && c <= 0x1EFF)) {
+                latinLetters++;
+                continue;
+            }
+            UnicodeScript script = UnicodeScript.of(c);
+            if (script == UnicodeScript.LATIN) {
+                latinLetters++;
+            } else {
+                otherLetters++;
+                kana |= script == UnicodeScript.HIRAGANA || script == UnicodeScript.KATAKANA;
+                if (otherScript == null) {
+                    otherScript = script;
+                }
+            }
+        }
+
+        if (otherLetters > latinLetters) {
+            return detectByScript(kana ? UnicodeScript.HIRAGANA : otherScript, fallbackLanguage);
+        }
+        if (latinLetters == 0) {
+            return fallbackLanguage;
+        }
+        return detectByTrigrams(text, fallbackLanguage);
+    }
+
+    private static String detectByScript(UnicodeScript script, String fallbackLanguage) {
+        List<String> candidates = SCRIPT_LANGUAGES.get(script);
+        if (candidates == null || (fallbackLanguage != null && candidates.contains(fallbackLanguage))) {
+            return fallbackLanguage;
+        }
+        return candidates.get(0);
+    }
+
+    private String detectByTrigrams(String text, String fallbackLanguage) {
+        int languageCount = languages.length;
+        double[] scores = new double[languageCount];
+        int grams = 0;
+
+        // Same normalisation as forEachTrigram, inlined to avoid a lambda per call
+        char first = ' ';
+        char second = ' ';
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? normalize(text.charAt(i)) : ' ';
+            if (c == ' ' && second == ' ') {
+                continue;
+            }
+            int row = rowFor(pack(first, second, c));
+            if (row < 0) {
+                for (int l = 0; l < languageCount; l++) {
+                    scores[l] += unseenLogProbs[l];
+                }
+            } else {
+                int offset = row * languageCount;
+                for (int l = 0; l < languageCount; l++) {
+                    scores[l] += logProbs[offset + l];
+                }
+            }
+            grams++;
+            first = second;
+            second = c;
+        }
+
+        if (grams < MIN_GRAMS) {
+            return fallbackLanguage;
+        }
+
+        int best = 0;
+        int runnerUp = -1;
+        for (int l = 1; l < languageCount; l++) {
+            if (scores[l] > scores[best]) {
+                runnerUp = best;
+                best = l;
+            } else if (runnerUp < 0 || scores[l] > scores[runnerUp]) {
+                runnerUp = l;
+            }
+        }
+
+        // Prefer the fallback unless another language is clearly more likely
+        int reference = indexOf(fallbackLanguage);
+        if (reference < 0) {
+            // A Latin-script text is never in a language written in another script
+            if (isScriptLanguage(fallbackLanguage)) {
+                return languages[best];
+            }
+            reference = runnerUp;
+        }
+        if (reference == best || reference < 0) {
+            return languages[best];
+        }
+        double margin = (scores[best] - scores[reference]) / grams;
+        return margin >= MIN_MARGIN_PER_GRAM ? languages[best] : fallbackLanguage;
+    }
+
+    private static boolean isScriptLanguage(String language) {
+        if (language == null) {
+            return false;
+        }
+        for (List<String> candidates : SCRIPT_LANGUAGES.values()) {
+            if (candidates.contains(language)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int indexOf(String language) {
+        for (int i = 0; i < languages.length; i++) {
+            if (languages[i].equals(language)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int rowFor(long key) {
+        int slot = slotFor(key);
+        long candidate;
+        while ((candidate = gramKeys[slot]) != 0) {
+            if (candidate == key) {
+                return gramRows[slot];
+            }
+            slot = (slot + 1) & gramMask;
+        }
+        return -1;
+    }
+
+    private int slotFor(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & gramMask;
+    }
+
+    private static long pack(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    /**
+     * Lower-cases letters and maps everything else to a word separator.
+     */
+    private static char normalize(char c) {
+        return Character.isLetter(c) ? Character.toLowerCase(c) : ' ';
+    }
+
+    private static long forEachTrigram(String text, LongConsumer consumer) {
+        long grams = 0;
+        char first = ' ';
+        char second = ' ';
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? normalize(text.charAt(i)) : ' ';
+            if (c == ' ' && second == ' ') {
+                continue;
+            }
+            consumer.accept(pack(first, second, c));
+            grams++;
+            first = second;
+            second = c;
+        }
+        return grams;
+    }
+
+    private static String loadProfile(String language) {
+        String location = PROFILE_LOCATION + language + ".txt";
+        try (InputStream in = LanguageDetector.class.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalStateException("No language profile found at " + location);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read language profile " + location, e);
+        }
+    }
+}
@@ -0,0 +1,808 @@
+package com.multilingo.translation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Second-tier translation cache kept in memory-mapped files, so it survives
+ * restarts and holds no translated text on the Java heap.
+ * <p>
+ * Translations are appended to a log split into fixed-size segment files. A
+ * compact open-addressing index maps a 64-bit fingerprint of each key to the
+ * position of its latest record; it is rebuilt at startup by scanning the
+ * segments, which only reads record headers from the page cache. Older records
+ * of a key and records past their time to live become garbage, and a background
+ * task rewrites segments that are mostly garbage into the active segment before
+ * deleting them. When the log outgrows its byte budget the oldest segment is
+ * dropped.
+ * <p>
+ * Record layout: body length (int), content hash (32 bytes), write time (long),
+ * source and target language (length-prefixed), translated text (UTF-8) and a
+ * CRC32 of the body. The length is written last, so a record torn by a crash is
+ * ignored when the segment is scanned. Only the newest segment can hold such a
+ * record, so only its records are checked against their CRC at startup; records
+ * of older segments are checked when they are read.
+ * <p>
+ * Dropping a segment leaves index entries pointing into it, which read as
+ * misses. Compaction later purges them by filtering a frozen copy of the index
+ * without the lock, while new entries go to a fresh index that is merged in at
+ * the end, so writers are never blocked for the length of a rebuild.
+ */
+@Component
+@ConditionalOnProperty(name = "translation.cache.persistent.enabled", havingValue = "true")
+public class PersistentTranslationStore {
+    private static final Logger logger = LoggerFactory.getLogger(PersistentTranslationStore.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("translations-(\\d{10})\\.log");
+    private static final int HASH_BYTES = 32;
+    private static final int LENGTH_BYTES = Integer.BYTES;
+    private static final int CRC_BYTES = Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final double compactionThreshold;
+    private final LongSupplier clock;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private FingerprintIndex index = new FingerprintIndex(1024);
+    // While a purge runs, the entries written before it began; read-only
+    private FingerprintIndex frozenIndex;
+    // Whether the index may point into dropped segments
+    private boolean staleEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong compactedSegments = new AtomicLong();
+    private ScheduledExecutorService compactionScheduler;
+
+    @Autowired
+    public PersistentTranslationStore(
+            @Value("${translation.cache.persistent.directory:data/translation-cache}") String directory,
+            @Value("${translation.cache.persistent.segment-bytes:67108864}") int segmentBytes,
+            @Value("${translation.cache.persistent.max-bytes:1073741824}") long maxBytes,
+            @Value("${translation.cache.persistent.ttl:30d}") Duration ttl,
+            @Value("${translation.cache.persistent.compaction-threshold:0.5}") double compactionThreshold,
+            @Value("${translation.cache.persistent.compaction-interval:10m}") Duration compactionInterval,
+            MeterRegistry meterRegistry) {
+        this(Path.of(directory), segmentBytes, maxBytes, ttl, compactionThreshold, System::currentTimeMillis);
+        registerMetrics(meterRegistry);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("translation-store-compaction-");
+        threadFactory.setDaemon(true);
+        this.compactionScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long intervalMillis = compactionInterval.toMillis();
+        this.compactionScheduler.scheduleWithFixedDelay(
+                this::compactSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    PersistentTranslationStore(
+            Path directory,
+            int segmentBytes,
+            long maxBytes,
+            Duration ttl,
+            double compactionThreshold,
+            LongSupplier clock) {
+        if (segmentBytes <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive");
+        }
+        if (maxBytes < 2L * segmentBytes) {
+            throw new IllegalArgumentException("Maximum bytes must hold at least two segments");
+        }
+        if (compactionThreshold <= 0 || compactionThreshold > 1) {
+            throw new IllegalArgumentException("Compaction threshold must be greater than 0 and at most 1");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl.toMillis();
+        this.compactionThreshold = compactionThreshold;
+        this.clock = clock;
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open translation store in " + directory, e);
+        }
+    }
+
+    /**
+     * Gets a stored translation.
+     *
+     * @param key The translation key
+     * @return The translated content, or null if not stored or expired
+     */
+    public String get(TranslationKey key) {
+        RecordKey recordKey = RecordKey.of(key);
+        lock.readLock().lock();
+        try {
+            long location = locate(recordKey.fingerprint());
+            Segment segment = location < 0 ? null : segments.get(segmentId(location));
+            String value = segment == null
+                    ? null
+                    : segment.readValue(offset(location), recordKey, clock.getAsLong() - ttlMillis);
+            if (value != null) {
+                hits.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+            return value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a translation. Translations larger than a segment are not stored.
+     *
+     * @param key The translation key
+     * @param value The translated content
+     */
+    public void put(TranslationKey key, String value) {
+        RecordKey recordKey = RecordKey.of(key);
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = recordKey.encodedLength() + encoded.length;
+        int recordLength = LENGTH_BYTES + bodyLength + CRC_BYTES;
+        if (recordLength > segmentBytes - LENGTH_BYTES) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (active.remaining() < recordLength) {
+                roll();
+            }
+            int offset = active.append(recordKey, clock.getAsLong(), encoded, bodyLength);
+            replaceLocation(recordKey.fingerprint(), location(active.id, offset));
+        } catch (IOException e) {
+            logger.warn("Failed to store translation in the persistent cache", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records of mostly-garbage segments into the active segment
+     * and deletes segments whose records have all expired.
+     */
+    void compact() throws IOException {
+        long oldestLive = clock.getAsLong() - ttlMillis;
+        List<Segment> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                if (segment != active && (segment.newestWrite < oldestLive
+                        || segment.deadBytes >= compactionThreshold * segment.writePosition)) {
+                    candidates.add(segment);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (Segment segment : candidates) {
+            // Sealed segments are never written again, so they can be scanned without the lock
+            int moved = 0;
+            int offset = 0;
+            int bodyLength;
+            while ((bodyLength = segment.bodyLengthAt(offset)) > 0) {
+                int recordLength = LENGTH_BYTES + bodyLength + CRC_BYTES;
+                if (segment.writtenAt(offset) >= oldestLive && moveIfLive(segment, offset, recordLength)) {
+                    moved++;
+                }
+                offset += recordLength;
+            }
+
+            lock.writeLock().lock();
+            try {
+                drop(segment);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            compactedSegments.incrementAndGet();
+            logger.debug("Compacted translation store segment {}, keeping {} records", segment.id, moved);
+        }
+        purgeIndex();
+    }
+
+    /**
+     * Number of keys in the index. Keys of dropped segments are counted until the
+     * next compaction purges them.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size() + (frozenIndex != null ? frozenIndex.size() : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes of the log holding records, live or not.
+     */
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Segment segment : segments.values()) {
+                bytes += segment.writePosition;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stops compaction and flushes the segments to disk.
+     */
+    @PreDestroy
+    public void close() {
+        if (compactionScheduler != null) {
+            compactionScheduler.shutdownNow();
+        }
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactSafely() {
+        try {
+            compact();
+        } catch (Exception e) {
+            logger.warn("Translation store compaction failed", e);
+        }
+    }
+
+    /**
+     * Copies a record into the active segment if the index still points at it.
+     * Called without the lock held.
+     */
+    private boolean moveIfLive(Segment segment, int offset, int recordLength) throws IOException {
+        long fingerprint = segment.fingerprintAt(offset);
+        lock.writeLock().lock();
+        try {
+            if (!segments.containsKey(segment.id) || locate(fingerprint) != location(segment.id, offset)) {
+                return false;
+            }
+            if (active.remaining() < recordLength) {
+                roll();
+            }
+            int newOffset = active.copyFrom(segment, offset, recordLength);
+            index.put(fingerprint, location(active.id, newOffset));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Points the index at a new record and accounts the record it replaces as garbage.
+     * Called with the write lock held.
+     */
+    private void replaceLocation(long fingerprint, long location) {
+        long previous = index.put(fingerprint, location);
+        if (previous < 0 && frozenIndex != null) {
+            previous = frozenIndex.get(fingerprint);
+        }
+        if (previous >= 0) {
+            Segment segment = segments.get(segmentId(previous));
+            if (segment != null) {
+                segment.deadBytes += LENGTH_BYTES + segment.bodyLengthAt(offset(previous)) + CRC_BYTES;
+            }
+        }
+    }
+
+    /**
+     * Seals the active segment and starts a new one, dropping the oldest segments
+     * when the log would exceed its byte budget. Called with the write lock held.
+     */
+    private void roll() throws IOException {
+        while ((long) (segments.size() + 1) * segmentBytes > maxBytes && segments.size() > 1) {
+            drop(segments.firstEntry().getValue());
+        }
+        active = Segment.create(directory, active.id + 1, segmentBytes);
+        segments.put(active.id, active);
+    }
+
+    /**
+     * Location of the latest record of a fingerprint, or -1. Called with the lock held.
+     */
+    private long locate(long fingerprint) {
+        long location = index.get(fingerprint);
+        return location < 0 && frozenIndex != null ? frozenIndex.get(fingerprint) : location;
+    }
+
+    /**
+     * Removes a segment, leaving its index entries to the next purge. Called with the write lock held.
+     */
+    private void drop(Segment segment) {
+        if (segments.remove(segment.id) == null) {
+            return;
+        }
+        staleEntries = true;
+        segment.close();
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete translation store segment {}", segment.path, e);
+        }
+    }
+
+    /**
+     * Removes the index entries of dropped segments. The index is frozen and filtered
+     * without the lock while new entries go to a fresh index, which is merged into the
+     * result under the write lock. Called without the lock held.
+     */
+    private void purgeIndex() {
+        FingerprintIndex frozen;
+        Set<Integer> liveSegments;
+        lock.writeLock().lock();
+        try {
+            if (!staleEntries || frozenIndex != null) {
+                return;
+            }
+            staleEntries = false;
+            frozen = index;
+            frozenIndex = frozen;
+            index = new FingerprintIndex(1024);
+            liveSegments = new HashSet<>(segments.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        FingerprintIndex retained = new FingerprintIndex(frozen.size());
+        frozen.forEach((fingerprint, location) -> {
+            if (liveSegments.contains(segmentId(location))) {
+                retained.put(fingerprint, location);
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            // Written since the freeze, so newer than what was retained; a segment dropped
+            // meanwhile has set staleEntries again for the next purge
+            index.forEach(retained::put);
+            index = retained;
+            frozenIndex = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Maps the existing segments and rebuilds the index from their records.
+     */
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        long oldestLive = clock.getAsLong() - ttlMillis;
+        try (var files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    Segment segment = Segment.open(path, Integer.parseInt(matcher.group(1)));
+                    segments.put(segment.id, segment);
+                }
+            }
+        }
+
+        Segment newest = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        for (Segment segment : segments.values()) {
+            // Older segments were complete when the next one was started
+            boolean mayBeTorn = segment == newest;
+            int offset = 0;
+            int bodyLength;
+            while ((bodyLength = segment.bodyLengthAt(offset)) > 0) {
+                if (mayBeTorn && !segment.isIntact(offset, bodyLength)) {
+                    logger.warn("Ignoring torn record at {} in {}", offset, segment.path);
+                    break;
+                }
+                long writtenAt = segment.writtenAt(offset);
+                segment.newestWrite = Math.max(segment.newestWrite, writtenAt);
+                int recordLength = LENGTH_BYTES + bodyLength + CRC_BYTES;
+                if (writtenAt >= oldestLive) {
+                    replaceLocation(segment.fingerprintAt(offset), location(segment.id, offset));
+                } else {
+                    segment.deadBytes += recordLength;
+                }
+                offset += recordLength;
+            }
+            segment.writePosition = offset;
+            segment.clearFrom(offset);
+        }
+
+        if (segments.isEmpty()) {
+            active = Segment.create(directory, 0, segmentBytes);
+            segments.put(active.id, active);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+        logger.info("Loaded {} translations from {} segments in {} ms",
+                index.size(), segments.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static long location(int segmentId, int offset) {
+        return ((long) segmentId << 32) | offset;
+    }
+
+    private static int segmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("translation.cache.persistent.gets", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Persistent translation cache lookups")
+                .register(registry);
+        FunctionCounter.builder("translation.cache.persistent.gets", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Persistent translation cache lookups")
+                .register(registry);
+        FunctionCounter.builder("translation.cache.persistent.compactions", compactedSegments, AtomicLong::get)
+                .description("Segments rewritten or removed by compaction")
+                .register(registry);
+        Gauge.builder("translation.cache.persistent.size", this, PersistentTranslationStore::size)
+                .description("Number of translations in the persistent cache")
+                .register(registry);
+        Gauge.builder("translation.cache.persistent.bytes", this, PersistentTranslationStore::sizeInBytes)
+                .description("Bytes of the persistent cache log in use")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * The encoded key of a record and its fingerprint in the index.
+     */
+    private record RecordKey(byte[] contentHash, byte[] sourceLanguage, byte[] targetLanguage, long fingerprint) {
+
+        static RecordKey of(TranslationKey key) {
+            byte[] contentHash = HexFormat.of().parseHex(key.contentHash());
+            byte[] sourceLanguage = languageBytes(key.sourceLanguage());
+            byte[] targetLanguage = languageBytes(key.targetLanguage());
+            return new RecordKey(contentHash, sourceLanguage, targetLanguage,
+                    fingerprint(contentHash, sourceLanguage, targetLanguage));
+        }
+
+        static long fingerprint(byte[] contentHash, byte[] sourceLanguage, byte[] targetLanguage) {
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (contentHash[i] & 0xFF);
+            }
+            long languages = 31L * Arrays.hashCode(sourceLanguage) + Arrays.hashCode(targetLanguage);
+            long fingerprint = hash ^ (languages * 0x9E3779B97F4A7C15L);
+            // Zero marks an empty slot in the index
+            return fingerprint != 0 ? fingerprint : 1;
+        }
+
+        int encodedLength() {
+            return HASH_BYTES + Long.BYTES + 1 + sourceLanguage.length + 1 + targetLanguage.length;
+        }
+
+        private static byte[] languageBytes(String language) {
+            byte[] bytes = (language != null ? language : "").getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Language code too long: " + language);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * One memory-mapped log file. Only the active segment is written to.
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private int writePosition;
+        private long deadBytes;
+        private long newestWrite = Long.MIN_VALUE;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, int id, int size) throws IOException {
+            Path path = directory.resolve(String.format("translations-%010d.log", id));
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        static Segment open(Path path, int id) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = Math.min(channel.size(), Integer.MAX_VALUE);
+            return new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        int remaining() {
+            // Keeps room for the zero length that terminates the log
+            return buffer.capacity() - writePosition - LENGTH_BYTES;
+        }
+
+        int bodyLengthAt(int offset) {
+            if (offset > buffer.capacity() - LENGTH_BYTES) {
+                return 0;
+            }
+            int bodyLength = buffer.getInt(offset);
+            return bodyLength > 0 && bodyLength <= buffer.capacity() - offset - LENGTH_BYTES - CRC_BYTES
+                    ? bodyLength
+                    : 0;
+        }
+
+        long writtenAt(int offset) {
+            return buffer.getLong(offset + LENGTH_BYTES + HASH_BYTES);
+        }
+
+        long fingerprintAt(int offset) {
+            int position = offset + LENGTH_BYTES;
+            byte[] contentHash = new byte[HASH_BYTES];
+            buffer.get(position, contentHash);
+            position += HASH_BYTES + Long.BYTES;
+            byte[] sourceLanguage = new byte[buffer.get(position)];
+            buffer.get(position + 1, sourceLanguage);
+            position += 1 + sourceLanguage.length;
+            byte[] targetLanguage = new byte[buffer.get(position)];
+            buffer.get(position + 1, targetLanguage);
+            return RecordKey.fingerprint(contentHash, sourceLanguage, targetLanguage);
+        }
+
+        boolean isIntact(int offset, int bodyLength) {
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(offset + LENGTH_BYTES, bodyLength));
+            return (int) crc.getValue() == buffer.getInt(offset + LENGTH_BYTES + bodyLength);
+        }
+
+        /**
+         * Reads the value of the record at offset if it belongs to the key, was
+         * written at or after oldestLive and matches its CRC.
+         */
+        String readValue(int offset, RecordKey key, long oldestLive) {
+            int bodyLength = bodyLengthAt(offset);
+            if (bodyLength == 0 || writtenAt(offset) < oldestLive) {
+                return null;
+            }
+            int position = offset + LENGTH_BYTES;
+            if (!matches(position, key.contentHash())) {
+                return null;
+            }
+            position += HASH_BYTES + Long.BYTES;
+            if (buffer.get(position) != key.sourceLanguage().length
+                    || !matches(position + 1, key.sourceLanguage())) {
+                return null;
+            }
+            position += 1 + key.sourceLanguage().length;
+            if (buffer.get(position) != key.targetLanguage().length
+                    || !matches(position + 1, key.targetLanguage())) {
+                return null;
+            }
+            position += 1 + key.targetLanguage().length;
+            if (!isIntact(offset, bodyLength)) {
+                logger.warn("Ignoring corrupt record at {} in {}", offset, path);
+                return null;
+            }
+
+            byte[] value = new byte[offset + LENGTH_BYTES + bodyLength - position];
+            buffer.get(position, value);
+            return new String(value, StandardCharsets.UTF_8);
+        }
+
+        int append(RecordKey key, long writtenAt, byte[] value, int bodyLength) {
+            int offset = writePosition;
+            int position = offset + LENGTH_BYTES;
+            buffer.put(position, key.contentHash());
+            position += HASH_BYTES;
+            buffer.putLong(position, writtenAt);
+            position += Long.BYTES;
+            buffer.put(position++, (byte) key.sourceLanguage().length);
+            buffer.put(position, key.sourceLanguage());
+            position += key.sourceLanguage().length;
+            buffer.put(position++, (byte) key.targetLanguage().length);
+            buffer.put(position, key.targetLanguage());
+            position += key.targetLanguage().length;
+            buffer.put(position, value);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(offset + LENGTH_BYTES, bodyLength));
+            buffer.putInt(offset + LENGTH_BYTES + bodyLength, (int) crc.getValue());
+            commit(offset, bodyLength, writtenAt);
+            return offset;
+        }
+
+        int copyFrom(Segment source, int sourceOffset, int recordLength) {
+            int offset = writePosition;
+            int bodyLength = recordLength - LENGTH_BYTES - CRC_BYTES;
+            buffer.put(offset + LENGTH_BYTES, source.buffer, sourceOffset + LENGTH_BYTES, bodyLength + CRC_BYTES);
+            commit(offset, bodyLength, source.writtenAt(sourceOffset));
+            return offset;
+        }
+
+        void clearFrom(int offset) {
+            if (offset <= buffer.capacity() - LENGTH_BYTES) {
+                buffer.putInt(offset, 0);
+            }
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException | UncheckedIOException e) {
+                logger.warn("Failed to close translation store segment {}", path, e);
+            }
+        }
+
+        private void commit(int offset, int bodyLength, long writtenAt) {
+            writePosition = offset + LENGTH_BYTES + bodyLength + CRC_BYTES;
+            clearFrom(writePosition);
+            // Published last, so a record torn by a crash reads as the end of the log
+            buffer.putInt(offset, bodyLength);
+            newestWrite = Math.max(newestWrite, writtenAt);
+        }
+
+        private boolean matches(int position, byte[] expected) {
+            for (int i = 0; i < expected.length; i++) {
+                if (buffer.get(position + i) != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Open-addressing map from key fingerprint to record location, stored in two
+     * primitive arrays so it costs 16 bytes per slot and nothing for the collector to trace.
+     */
+    private static final class FingerprintIndex {
+        private long[] fingerprints;
+        private long[] locations;
+        private int mask;
+        private int size;
+
+        FingerprintIndex(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 16) * 2) * 2;
+            this.fingerprints = new long[capacity];
+            this.locations = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        long get(long fingerprint) {
+            int slot = slotFor(fingerprint);
+            long candidate;
+            while ((candidate = fingerprints[slot]) != 0) {
+                if (candidate == fingerprint) {
+                    return locations[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * @return The previous location of the fingerprint, or -1 if it was not present
+         */
+        long put(long fingerprint, long location) {
+            if ((size + 1) * 2L > fingerprints.length) {
+                grow();
+            }
+            int slot = slotFor(fingerprint);
+            long candidate;
+            while ((candidate = fingerprints[slot]) != 0) {
+                if (candidate == fingerprint) {
+                    long previous = locations[slot];
+                    locations[slot] = location;
+                    return previous;
+                }
+                slot = (slot + 1) & mask;
+            }
+            fingerprints[slot] = fingerprint;
+            locations[slot] = location;
+            size++;
+            return -1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEach(EntryConsumer consumer) {
+            for (int slot = 0; slot < fingerprints.length; slot++) {
+                if (fingerprints[slot] != 0) {
+                    consumer.accept(fingerprints[slot], locations[slot]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldFingerprints = fingerprints;
+            long[] oldLocations = locations;
+            fingerprints = new long[oldFingerprints.length * 2];
+            locations = new long[oldLocations.length * 2];
+            mask = fingerprints.length - 1;
+            size = 0;
+            for (int slot = 0; slot < oldFingerprints.length; slot++) {
+                if (oldFingerprints[slot] != 0) {
+                    put(oldFingerprints[slot], oldLocations[slot]);
+                }
+            }
+        }
+
+        private int slotFor(long fingerprint) {
+            long hash = fingerprint * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        interface EntryConsumer {
+            void accept(long fingerprint, long location);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.multilingo.translation;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits content into sentences using the locale rules of its language.
+ */
+final class SentenceSplitter {
+
+    private SentenceSplitter() {
+    }
+
+    /**
+     * Splits content into alternating separators and sentences.
+     * The result always has an odd size: even indices hold the whitespace around
+     * sentences (possibly empty) and odd indices hold the sentences themselves,
+     * so concatenating all elements reproduces the content exactly.
+     *
+     * @param content The content to split
+     * @param language The language the content is written in
+     * @return The separators and sentences in order
+     */
+    static List<String> split(String content, String language) {
+        BreakIterator sentences = BreakIterator.getSentenceInstance(
+                language != null ? Locale.forLanguageTag(language) : Locale.ROOT);
+        sentences.setText(content);
+
+        List<String> parts = new ArrayList<>();
+        int separatorStart = 0;
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            int coreStart = start;
+            while (coreStart < end && Character.isWhitespace(content.charAt(coreStart))) {
+                coreStart++;
+            }
+            int coreEnd = end;
+            while (coreEnd > coreStart && Character.isWhitespace(content.charAt(coreEnd - 1))) {
+                coreEnd--;
+            }
+            if (coreStart == coreEnd) {
+                // Whitespace only; it becomes part of the next separator
+                continue;
+            }
+            parts.add(content.substring(separatorStart, coreStart));
+            parts.add(content.substring(coreStart, coreEnd));
+            separatorStart = coreEnd;
+        }
+        parts.add(content.substring(separatorStart));
+        return parts;
+    }
+}
@@ -0,0 +1,64 @@
+package com.multilingo.translation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic in-process translation provider for development and tests.
+ * Each batch call sleeps for a configurable latency to simulate a remote backend.
+ */
+@Component
+@ConditionalOnProperty(name = "translation.provider", havingValue = "stub", matchIfMissing = true)
+public class StubTranslationProvider implements TranslationProvider {
+
+    private final Duration latency;
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong segmentCount = new AtomicLong();
+
+    @Autowired
+    public StubTranslationProvider(@Value("${translation.stub.latency:0ms}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public List<String> translateBatch(List<String> segments, String sourceLanguage, String targetLanguage) {
+        callCount.incrementAndGet();
+        segmentCount.addAndGet(segments.size());
+
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis(), latency.toNanosPart() % 1_000_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Translation interrupted", e);
+            }
+        }
+
+        List<String> translations = new ArrayList<>(segments.size());
+        for (String segment : segments) {
+            translations.add("Translated: " + segment + " (from " + sourceLanguage + " to " + targetLanguage + ")");
+        }
+        return translations;
+    }
+
+    /**
+     * Number of batch calls made to this provider.
+     */
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    /**
+     * Number of segments translated by this provider.
+     */
+    public long getSegmentCount() {
+        return segmentCount.get();
+    }
+}
@@ -0,0 +1,68 @@
+package com.multilingo.translation;
+
+/**
+ * Token bucket refilled continuously up to its capacity.
+ * Not thread-safe; callers synchronize access.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity Maximum number of tokens, or zero or less for no limit
+     * @param refillPeriodNanos Time in which an empty bucket refills completely
+     * @param now Current time in nanoseconds
+     */
+    TokenBucket(double capacity, long refillPeriodNanos, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = capacity > 0 ? capacity / refillPeriodNanos : 0;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    boolean isLimited() {
+        return capacity > 0;
+    }
+
+    /**
+     * Time until {@code amount} tokens can be taken while leaving {@code reserve}
+     * (a fraction of the capacity) in the bucket. Requests larger than the
+     * capacity only wait for a full bucket.
+     *
+     * @return Zero when the tokens are available now
+     */
+    long nanosUntilAvailable(double amount, double reserve, long now) {
+        if (!isLimited()) {
+            return 0;
+        }
+        refill(now);
+        double needed = Math.min(capacity, Math.min(amount, capacity) + reserve * capacity);
+        if (tokens >= needed) {
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((needed - tokens) / tokensPerNano));
+    }
+
+    void take(double amount, long now) {
+        if (!isLimited()) {
+            return;
+        }
+        refill(now);
+        tokens -= Math.min(amount, capacity);
+    }
+
+    double available(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.multilingo.translation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent translation requests into batches per language pair.
+ * A batch is sent to the {@link TranslationProvider}, through the
+ * {@link TranslationProviderGuard}, once it holds the maximum number of distinct
+ * segments or once the batching window has elapsed since its first request,
+ * whichever comes first.
+ */
+@Component
+public class TranslationBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationBatcher.class);
+
+    private final TranslationProviderGuard providerGuard;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by itself; holds the currently open batch for each language pair
+    private final Map<LanguagePair, PendingBatch> openBatches = new HashMap<>();
+
+    private final Counter batchCounter;
+    private final DistributionSummary batchSizes;
+
+    @Autowired
+    public TranslationBatcher(
+            TranslationProviderGuard providerGuard,
+            @Value("${translation.batch.window:10ms}") Duration window,
+            @Value("${translation.batch.max-size:32}") int maxBatchSize,
+            MeterRegistry meterRegistry) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Maximum batch size must be positive");
+        }
+        this.providerGuard = providerGuard;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+
+        CustomizableThreadFactory schedulerThreads = new CustomizableThreadFactory("translation-batch-timer-");
+        schedulerThreads.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(schedulerThreads);
+
+        this.batchCounter = Counter.builder("translation.batch.requests")
+                .description("Batches sent to the translation provider")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("translation.batch.size")
+                .description("Distinct segments per provider batch call")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Submits a segment for translation as part of the next batch for its language pair.
+     *
+     * @param segment The segment to translate
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @return A future completed with the translated segment
+     */
+    public CompletableFuture<String> submit(String segment, String sourceLanguage, String targetLanguage) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        LanguagePair pair = new LanguagePair(sourceLanguage, targetLanguage);
+        PendingBatch fullBatch = null;
+
+        synchronized (openBatches) {
+            PendingBatch batch = openBatches.get(pair);
+            if (batch == null) {
+                batch = new PendingBatch(pair);
+                openBatches.put(pair, batch);
+                PendingBatch scheduled = batch;
+                scheduler.schedule(() -> flush(scheduled), windowNanos, TimeUnit.NANOSECONDS);
+            }
+            batch.add(segment, future);
+            if (batch.size() >= maxBatchSize) {
+                openBatches.remove(pair);
+                fullBatch = batch;
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return future;
+    }
+
+    /**
+     * Whether a segment for this language pair would join an already open batch
+     * rather than start a new provider call.
+     */
+    public boolean hasOpenBatch(String sourceLanguage, String targetLanguage) {
+        synchronized (openBatches) {
+            PendingBatch batch = openBatches.get(new LanguagePair(sourceLanguage, targetLanguage));
+            return batch != null && batch.size() < maxBatchSize;
+        }
+    }
+
+    /**
+     * Sends any open batches and stops batching.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        List<PendingBatch> remaining;
+        synchronized (openBatches) {
+            remaining = new ArrayList<>(openBatches.values());
+            openBatches.clear();
+        }
+        remaining.forEach(this::dispatch);
+    }
+
+    private void flush(PendingBatch batch) {
+        synchronized (openBatches) {
+            // The batch may already have been sent because it filled up
+            if (openBatches.get(batch.pair) != batch) {
+                return;
+            }
+            openBatches.remove(batch.pair);
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(PendingBatch batch) {
+        List<String> segments = batch.segments();
+        batchCounter.increment();
+        batchSizes.record(segments.size());
+        providerGuard.translateBatch(segments, batch.pair.sourceLanguage(), batch.pair.targetLanguage())
+                .whenComplete((translations, failure) -> {
+                    if (failure != null) {
+                        logger.warn("Translation batch failed for {} segments from {} to {}: {}",
+                                segments.size(), batch.pair.sourceLanguage(), batch.pair.targetLanguage(),
+                                failure.toString());
+                        batch.fail(failure);
+                    } else if (translations == null || translations.size() != segments.size()) {
+                        batch.fail(new IllegalStateException("Translation provider returned "
+                                + (translations == null ? "no" : translations.size()) + " results for "
+                                + segments.size() + " segments"));
+                    } else {
+                        batch.complete(translations);
+                    }
+                });
+    }
+
+    private record LanguagePair(String sourceLanguage, String targetLanguage) {
+    }
+
+    /**
+     * Requests collected for one language pair. Identical segments share a single slot.
+     */
+    private static final class PendingBatch {
+        private final LanguagePair pair;
+        private final Map<String, List<CompletableFuture<String>>> waiters = new LinkedHashMap<>();
+
+        private PendingBatch(LanguagePair pair) {
+            this.pair = pair;
+        }
+
+        void add(String segment, CompletableFuture<String> future) {
+            waiters.computeIfAbsent(segment, s -> new ArrayList<>(1)).add(future);
+        }
+
+        int size() {
+            return waiters.size();
+        }
+
+        List<String> segments() {
+            return new ArrayList<>(waiters.keySet());
+        }
+
+        void complete(List<String> translations) {
+            int i = 0;
+            for (List<CompletableFuture<String>> futures : waiters.values()) {
+                String translation = translations.get(i++);
+                futures.forEach(future -> future.complete(translation));
+            }
+        }
+
+        void fail(Throwable cause) {
+            waiters.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(cause)));
+        }
+    }
+}
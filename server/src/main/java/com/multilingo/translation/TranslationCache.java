@@ -0,0 +1,248 @@
+package com.multilingo.translation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, time-expiring LRU cache of translated content.
+ * The cache is limited both by number of entries and by an estimate of the
+ * memory held by the cached strings, whichever limit is reached first.
+ * <p>
+ * When a {@link PersistentTranslationStore} is configured it acts as a second
+ * tier: misses are looked up there and promoted, and new translations are
+ * written through to it, so a restarted node starts with a warm cache.
+ */
+@Component
+public class TranslationCache {
+
+    /**
+     * Rough per-entry overhead of the map node, key record and entry object.
+     */
+    static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final PersistentTranslationStore persistentStore;
+
+    // Access-ordered so iteration starts at the least recently used entry
+    private final LinkedHashMap<TranslationKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Autowired
+    public TranslationCache(
+            @Value("${translation.cache.max-entries:10000}") int maxEntries,
+            @Value("${translation.cache.max-bytes:16777216}") long maxBytes,
+            @Value("${translation.cache.ttl:1h}") Duration ttl,
+            Optional<PersistentTranslationStore> persistentStore,
+            MeterRegistry meterRegistry) {
+        this(maxEntries, maxBytes, ttl, System::nanoTime, persistentStore.orElse(null));
+        registerMetrics(meterRegistry);
+    }
+
+    public TranslationCache(int maxEntries, long maxBytes, Duration ttl, MeterRegistry meterRegistry) {
+        this(maxEntries, maxBytes, ttl, Optional.empty(), meterRegistry);
+    }
+
+    TranslationCache(int maxEntries, long maxBytes, Duration ttl, LongSupplier clock) {
+        this(maxEntries, maxBytes, ttl, clock, null);
+    }
+
+    TranslationCache(
+            int maxEntries,
+            long maxBytes,
+            Duration ttl,
+            LongSupplier clock,
+            PersistentTranslationStore persistentStore) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum entries must be positive");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Maximum bytes must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.persistentStore = persistentStore;
+    }
+
+    /**
+     * Gets a cached translation.
+     *
+     * @param key The translation key
+     * @return The translated content, or null if not cached or expired
+     */
+    public String get(TranslationKey key) {
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && entry.isExpired(clock.getAsLong())) {
+                remove(key, entry);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.value();
+            }
+            misses.incrementAndGet();
+        }
+
+        // Read outside the lock; the store has its own
+        String stored = persistentStore != null ? persistentStore.get(key) : null;
+        if (stored != null) {
+            putInMemory(key, stored);
+        }
+        return stored;
+    }
+
+    /**
+     * Gets a translation held in memory without counting a lookup or reading the
+     * persistent tier, for callers that have just missed and check again.
+     *
+     * @param key The translation key
+     * @return The translated content, or null if not in memory or expired
+     */
+    synchronized String getInMemory(TranslationKey key) {
+        CacheEntry entry = entries.get(key);
+        return entry != null && !entry.isExpired(clock.getAsLong()) ? entry.value() : null;
+    }
+
+    /**
+     * Caches a translation, evicting least recently used entries as needed.
+     * Translations larger than the whole byte budget are not cached.
+     *
+     * @param key The translation key
+     * @param value The translated content
+     */
+    public void put(TranslationKey key, String value) {
+        putInMemory(key, value);
+        if (persistentStore != null) {
+            persistentStore.put(key, value);
+        }
+    }
+
+    /**
+     * Removes all cached translations from memory. The persistent tier is kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    private void putInMemory(TranslationKey key, String value) {
+        long size = estimateSize(key, value);
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            CacheEntry previous = entries.put(key, new CacheEntry(value, size, clock.getAsLong() + ttlNanos));
+            if (previous != null) {
+                currentBytes -= previous.size();
+            }
+            currentBytes += size;
+            evictIfNeeded();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long sizeInBytes() {
+        return currentBytes;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<TranslationKey, CacheEntry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+            CacheEntry eldest = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= eldest.size();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(TranslationKey key, CacheEntry entry) {
+        entries.remove(key);
+        currentBytes -= entry.size();
+    }
+
+    private static long estimateSize(TranslationKey key, String value) {
+        // Strings are counted at two bytes per char to stay conservative for non-Latin text
+        long chars = (long) value.length()
+                + key.contentHash().length()
+                + length(key.sourceLanguage())
+                + length(key.targetLanguage());
+        return ENTRY_OVERHEAD_BYTES + 2 * chars;
+    }
+
+    private static int length(String s) {
+        return s != null ? s.length() : 0;
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("translation.cache.gets", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Translation cache lookups")
+                .register(registry);
+        FunctionCounter.builder("translation.cache.gets", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Translation cache lookups")
+                .register(registry);
+        FunctionCounter.builder("translation.cache.evictions", evictions, AtomicLong::get)
+                .description("Entries evicted to stay within the size limits")
+                .register(registry);
+        FunctionCounter.builder("translation.cache.expirations", expirations, AtomicLong::get)
+                .description("Entries dropped because their time to live elapsed")
+                .register(registry);
+        Gauge.builder("translation.cache.size", this, TranslationCache::size)
+                .description("Number of cached translations")
+                .register(registry);
+        Gauge.builder("translation.cache.bytes", this, TranslationCache::sizeInBytes)
+                .description("Estimated memory held by cached translations")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private record CacheEntry(String value, long size, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.multilingo.translation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Identifies a translation of some content from a source to a target language.
+ * The content itself is represented by its SHA-256 hash so keys stay small.
+ */
+public record TranslationKey(String contentHash, String sourceLanguage, String targetLanguage) {
+
+    /**
+     * Creates a key for the given content and language pair.
+     *
+     * @param content The content to translate
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @return The translation key
+     */
+    public static TranslationKey of(String content, String sourceLanguage, String targetLanguage) {
+        return new TranslationKey(hash(content), sourceLanguage, targetLanguage);
+    }
+
+    /**
+     * Computes the hex encoded SHA-256 hash of the given content.
+     */
+    public static String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
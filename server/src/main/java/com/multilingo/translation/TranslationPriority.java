@@ -0,0 +1,11 @@
+package com.multilingo.translation;
+
+/**
+ * Scheduling lane of a translation request. Lanes are served in declaration order.
+ */
+public enum TranslationPriority {
+    /** Live chat traffic that a recipient is waiting for. */
+    INTERACTIVE,
+    /** Bulk work such as re-translating history; only uses capacity live traffic leaves over. */
+    BACKFILL
+}
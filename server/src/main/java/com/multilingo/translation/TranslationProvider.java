@@ -0,0 +1,28 @@
+package com.multilingo.translation;
+
+import java.util.List;
+
+/**
+ * Service provider interface for machine translation backends.
+ * Implementations translate many segments for a single language pair per call,
+ * which lets callers amortize the per-request overhead of remote backends.
+ */
+public interface TranslationProvider {
+
+    /**
+     * Translates a batch of segments from the source to the target language.
+     *
+     * @param segments The segments to translate
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @return The translated segments, in the same order as the input
+     */
+    List<String> translateBatch(List<String> segments, String sourceLanguage, String targetLanguage);
+
+    /**
+     * Translates a single segment from the source to the target language.
+     */
+    default String translate(String segment, String sourceLanguage, String targetLanguage) {
+        return translateBatch(List.of(segment), sourceLanguage, targetLanguage).get(0);
+    }
+}
@@ -0,0 +1,198 @@
+package com.multilingo.translation;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shields callers from a slow or failing {@link TranslationProvider}.
+ * <p>
+ * Every batch call runs on a dedicated pool under a time limit, a bulkhead caps
+ * the number of provider calls in progress, and a circuit breaker rejects calls
+ * outright while the provider keeps failing or timing out. Rejected calls complete
+ * exceptionally without waiting, so messages fall back to their original content.
+ * <p>
+ * The circuit breaker, bulkhead and time limiter are the {@value #INSTANCE}
+ * instances configured under {@code resilience4j.*}.
+ */
+@Component
+public class TranslationProviderGuard {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationProviderGuard.class);
+
+    static final String INSTANCE = "translation";
+
+    private final TranslationProvider translationProvider;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final TimeLimiter timeLimiter;
+    private final ThreadPoolExecutor callExecutor;
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+    private final Counter timeouts;
+
+    @Autowired
+    public TranslationProviderGuard(
+            TranslationProvider translationProvider,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            BulkheadRegistry bulkheadRegistry,
+            TimeLimiterRegistry timeLimiterRegistry,
+            MeterRegistry meterRegistry) {
+        this.translationProvider = translationProvider;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(INSTANCE);
+        this.bulkhead = bulkheadRegistry.bulkhead(INSTANCE);
+        this.timeLimiter = timeLimiterRegistry.timeLimiter(INSTANCE);
+
+        // The bulkhead admits at most this many calls, so the queue only absorbs thread start-up
+        int maxCalls = bulkhead.getBulkheadConfig().getMaxConcurrentCalls();
+        this.callExecutor = new ThreadPoolExecutor(
+                maxCalls, maxCalls, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("translation-provider-"));
+        this.callExecutor.allowCoreThreadTimeOut(true);
+
+        CustomizableThreadFactory timeoutThreads = new CustomizableThreadFactory("translation-timeout-");
+        timeoutThreads.setDaemon(true);
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(timeoutThreads);
+
+        this.circuitOpenRejections = Counter.builder("translation.provider.rejections")
+                .tag("reason", "circuit_open")
+                .description("Provider calls rejected without being attempted")
+                .register(meterRegistry);
+        this.bulkheadRejections = Counter.builder("translation.provider.rejections")
+                .tag("reason", "bulkhead_full")
+                .description("Provider calls rejected without being attempted")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("translation.provider.timeouts")
+                .description("Provider calls abandoned after exceeding the time limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Translates a batch of segments through the protected provider.
+     *
+     * @param segments The segments to translate
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @return A future completed with the translated segments, or failed with
+     *         {@link CallNotPermittedException}, {@link BulkheadFullException} or
+     *         {@link TimeoutException} when the call was rejected or took too long
+     */
+    public CompletableFuture<List<String>> translateBatch(
+            List<String> segments, String sourceLanguage, String targetLanguage) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitOpenRejections.increment();
+            return CompletableFuture.failedFuture(CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+        }
+
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            bulkheadRejections.increment();
+            return CompletableFuture.failedFuture(BulkheadFullException.createBulkheadFullException(bulkhead));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<List<String>> call = new CompletableFuture<>();
+        // Claimed by whichever comes first: the task starting, or the time limit abandoning it while queued
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> task;
+        try {
+            task = callExecutor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    call.complete(translationProvider.translateBatch(segments, sourceLanguage, targetLanguage));
+                } catch (Throwable e) {
+                    call.completeExceptionally(e);
+                } finally {
+                    // Released only once the provider returns, so hung calls keep counting against the limit
+                    bulkhead.onComplete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.onComplete();
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return timeLimiter.executeCompletionStage(timeoutScheduler, () -> call)
+                .toCompletableFuture()
+                .whenComplete((translations, failure) -> {
+                    long elapsed = System.nanoTime() - start;
+                    if (failure == null) {
+                        circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                            ? failure.getCause()
+                            : failure;
+                    if (cause instanceof TimeoutException) {
+                        timeouts.increment();
+                        if (claimed.compareAndSet(false, true)) {
+                            // Still queued, so it will never run and release its bulkhead permit itself
+                            task.cancel(false);
+                            bulkhead.onComplete();
+                        } else {
+                            // Interrupt the provider call; its bulkhead permit is released when it exits
+                            task.cancel(true);
+                        }
+                    }
+                    circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, cause);
+                });
+    }
+
+    /**
+     * Current state of the provider circuit breaker.
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Stops accepting provider calls and waits briefly for running ones.
+     */
+    @PreDestroy
+    public void shutdown() {
+        timeoutScheduler.shutdownNow();
+        callExecutor.shutdown();
+        try {
+            if (!callExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Translation provider calls still running at shutdown");
+                callExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
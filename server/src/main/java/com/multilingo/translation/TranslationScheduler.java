@@ -0,0 +1,326 @@
+package com.multilingo.translation;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Releases translation requests to the {@link TranslationBatcher} within the
+ * provider's quotas.
+ * <p>
+ * Requests wait in one lane per {@link TranslationPriority}. A lane is only served
+ * while every higher-priority lane is empty, and within a lane conversations take
+ * turns so one busy conversation cannot hold back the others. Two token buckets
+ * enforce the provider quotas: one is charged per provider call (a request that
+ * joins an open batch is free) and one per character sent. Backfill requests
+ * additionally leave a reserve in both buckets for interactive traffic.
+ */
+@Component
+public class TranslationScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationScheduler.class);
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    // Queue key for requests that do not belong to a conversation
+    private static final Object NO_CONVERSATION = new Object();
+
+    private final TranslationBatcher translationBatcher;
+    private final double backfillReserve;
+    private final int queueCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    // Guarded by lock
+    private final Map<TranslationPriority, Lane> lanes = new EnumMap<>(TranslationPriority.class);
+    private final TokenBucket requestBucket;
+    private final TokenBucket characterBucket;
+    private boolean running = true;
+
+    private final Thread dispatchThread;
+
+    @Autowired
+    public TranslationScheduler(
+            TranslationBatcher translationBatcher,
+            @Value("${translation.scheduler.requests-per-second:0}") double requestsPerSecond,
+            @Value("${translation.scheduler.characters-per-minute:0}") long charactersPerMinute,
+            @Value("${translation.scheduler.backfill-reserve:0.2}") double backfillReserve,
+            @Value("${translation.scheduler.queue-capacity:10000}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        if (backfillReserve < 0 || backfillReserve >= 1) {
+            throw new IllegalArgumentException("Backfill reserve must be at least 0 and less than 1");
+        }
+        this.translationBatcher = translationBatcher;
+        this.backfillReserve = backfillReserve;
+        this.queueCapacity = queueCapacity;
+
+        long now = System.nanoTime();
+        this.requestBucket = new TokenBucket(requestsPerSecond, NANOS_PER_SECOND, now);
+        this.characterBucket = new TokenBucket(charactersPerMinute, NANOS_PER_MINUTE, now);
+
+        for (TranslationPriority priority : TranslationPriority.values()) {
+            String laneName = priority.name().toLowerCase();
+            Lane lane = new Lane(priority, Timer.builder("translation.scheduler.wait")
+                    .tag("lane", laneName)
+                    .description("Time translation requests spend queued before release to the provider")
+                    .register(meterRegistry));
+            Gauge.builder("translation.scheduler.queue.depth", lane.depth, AtomicInteger::get)
+                    .tag("lane", laneName)
+                    .description("Translation requests waiting for provider capacity")
+                    .register(meterRegistry);
+            lanes.put(priority, lane);
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("translation-scheduler-");
+        threadFactory.setDaemon(true);
+        this.dispatchThread = threadFactory.newThread(this::dispatchLoop);
+        this.dispatchThread.start();
+    }
+
+    /**
+     * Queues a segment for translation.
+     *
+     * @param segment The segment to translate
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @param priority The lane to queue the request in
+     * @param conversationId The conversation the request belongs to, used for fair queuing; may be null
+     * @return A future completed with the translated segment
+     */
+    public CompletableFuture<String> submit(
+            String segment,
+            String sourceLanguage,
+            String targetLanguage,
+            TranslationPriority priority,
+            Long conversationId) {
+        Request request = new Request(segment, sourceLanguage, targetLanguage,
+                conversationId != null ? conversationId : NO_CONVERSATION, System.nanoTime());
+        lock.lock();
+        try {
+            if (!running) {
+                request.future.completeExceptionally(new RejectedExecutionException("Translation scheduler is shut down"));
+                return request.future;
+            }
+            Lane lane = lanes.get(priority);
+            if (lane.depth.get() >= queueCapacity) {
+                request.future.completeExceptionally(new RejectedExecutionException(
+                        "Translation queue for " + priority + " requests is full"));
+                return request.future;
+            }
+            lane.add(request);
+            stateChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+        return request.future;
+    }
+
+    /**
+     * Stops dispatching and fails requests that are still queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Request> abandoned = new ArrayList<>();
+        lock.lock();
+        try {
+            running = false;
+            for (Lane lane : lanes.values()) {
+                Request request;
+                while ((request = lane.poll()) != null) {
+                    abandoned.add(request);
+                }
+            }
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        RejectedExecutionException cause = new RejectedExecutionException("Translation scheduler is shut down");
+        abandoned.forEach(request -> request.future.completeExceptionally(cause));
+
+        // Let a request that is being released reach the batcher before it shuts down
+        try {
+            dispatchThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Number of requests waiting in a lane.
+     */
+    int queuedCount(TranslationPriority priority) {
+        return lanes.get(priority).depth.get();
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            Request request;
+            lock.lock();
+            try {
+                request = awaitReleasableRequest();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (request == null) {
+                return;
+            }
+
+            try {
+                translationBatcher.submit(request.segment, request.sourceLanguage, request.targetLanguage)
+                        .whenComplete((translated, failure) -> {
+                            if (failure == null) {
+                                request.future.complete(translated);
+                            } else {
+                                request.future.completeExceptionally(failure);
+                            }
+                        });
+            } catch (RuntimeException e) {
+                logger.error("Failed to hand translation request to the batcher", e);
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Waits until the next request in priority and conversation order fits within
+     * the rate limits, then charges the buckets and dequeues it. Called with the lock held.
+     *
+     * @return The request to release, or null once the scheduler is shut down
+     */
+    private Request awaitReleasableRequest() throws InterruptedException {
+        while (running) {
+            Lane lane = firstNonEmptyLane();
+            if (lane == null) {
+                stateChanged.await();
+                continue;
+            }
+
+            Request next = lane.peek();
+            long now = System.nanoTime();
+            double reserve = lane.priority == TranslationPriority.INTERACTIVE ? 0 : backfillReserve;
+            boolean startsProviderCall = requestBucket.isLimited()
+                    && !translationBatcher.hasOpenBatch(next.sourceLanguage, next.targetLanguage);
+            long waitNanos = characterBucket.nanosUntilAvailable(next.segment.length(), reserve, now);
+            if (startsProviderCall) {
+                waitNanos = Math.max(waitNanos, requestBucket.nanosUntilAvailable(1, reserve, now));
+            }
+
+            if (waitNanos > 0) {
+                // Woken early when a request arrives, possibly in a higher-priority lane
+                stateChanged.awaitNanos(waitNanos);
+                continue;
+            }
+
+            if (startsProviderCall) {
+                requestBucket.take(1, now);
+            }
+            characterBucket.take(next.segment.length(), now);
+            lane.poll();
+            lane.waitTimer.record(now - next.enqueuedAt, TimeUnit.NANOSECONDS);
+            return next;
+        }
+        return null;
+    }
+
+    private Lane firstNonEmptyLane() {
+        for (Lane lane : lanes.values()) {
+            if (lane.depth.get() > 0) {
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    private static final class Request {
+        private final String segment;
+        private final String sourceLanguage;
+        private final String targetLanguage;
+        private final Object conversationKey;
+        private final long enqueuedAt;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        private Request(String segment, String sourceLanguage, String targetLanguage,
+                        Object conversationKey, long enqueuedAt) {
+            this.segment = segment;
+            this.sourceLanguage = sourceLanguage;
+            this.targetLanguage = targetLanguage;
+            this.conversationKey = conversationKey;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Requests of one priority, queued per conversation and served round-robin.
+     */
+    private static final class Lane {
+        private final TranslationPriority priority;
+        private final Timer waitTimer;
+        private final Map<Object, ArrayDeque<Request>> queues = new HashMap<>();
+        private final ArrayDeque<Object> rotation = new ArrayDeque<>();
+        private final AtomicInteger depth = new AtomicInteger();
+
+        private Lane(TranslationPriority priority, Timer waitTimer) {
+            this.priority = priority;
+            this.waitTimer = waitTimer;
+        }
+
+        void add(Request request) {
+            ArrayDeque<Request> queue = queues.get(request.conversationKey);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(request.conversationKey, queue);
+                rotation.addLast(request.conversationKey);
+            }
+            queue.addLast(request);
+            depth.incrementAndGet();
+        }
+
+        Request peek() {
+            Object key = rotation.peekFirst();
+            return key == null ? null : queues.get(key).peekFirst();
+        }
+
+        Request poll() {
+            Object key = rotation.pollFirst();
+            if (key == null) {
+                return null;
+            }
+            ArrayDeque<Request> queue = queues.get(key);
+            Request request = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(key);
+            } else {
+                // The conversation goes to the back of the line for its next request
+                rotation.addLast(key);
+            }
+            depth.decrementAndGet();
+            return request;
+        }
+    }
+}
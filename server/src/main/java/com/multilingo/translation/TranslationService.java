@@ -0,0 +1,239 @@
+package com.multilingo.translation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Entry point for translating content.
+ * Serves translations from the cache when possible and otherwise queues them
+ * with the {@link TranslationScheduler}, which releases them to the configured
+ * {@link TranslationProvider} within its rate limits. Concurrent requests of the
+ * same priority for the same content and language pair share a single in-flight
+ * translation.
+ * <p>
+ * Long content is handled as a translation memory: it is split into sentences,
+ * each sentence is looked up and cached on its own, and only the sentences not
+ * seen before are sent to the provider. Repeated signatures, templates and pasted
+ * instructions are therefore translated once.
+ */
+@Service
+public class TranslationService {
+
+    private final TranslationCache translationCache;
+    private final TranslationScheduler translationScheduler;
+    private final boolean memoryEnabled;
+    private final int memoryMinLength;
+
+    // Translations currently being fetched; entries are removed as soon as they complete
+    private final ConcurrentMap<FlightKey, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedRequests;
+    private final Counter segmentHits;
+    private final Counter segmentMisses;
+
+    @Autowired
+    public TranslationService(
+            TranslationCache translationCache,
+            TranslationScheduler translationScheduler,
+            @Value("${translation.memory.enabled:true}") boolean memoryEnabled,
+            @Value("${translation.memory.min-length:80}") int memoryMinLength,
+            MeterRegistry meterRegistry) {
+        this.translationCache = translationCache;
+        this.translationScheduler = translationScheduler;
+        this.memoryEnabled = memoryEnabled;
+        this.memoryMinLength = memoryMinLength;
+        this.coalescedRequests = Counter.builder("translation.requests.coalesced")
+                .description("Translation requests that joined an identical in-flight request")
+                .register(meterRegistry);
+        Gauge.builder("translation.requests.in-flight", inFlight, ConcurrentMap::size)
+                .description("Distinct translations currently being fetched")
+                .register(meterRegistry);
+        this.segmentHits = Counter.builder("translation.memory.segments")
+                .tag("result", "hit")
+                .description("Sentences of long content looked up in the translation memory")
+                .register(meterRegistry);
+        this.segmentMisses = Counter.builder("translation.memory.segments")
+                .tag("result", "miss")
+                .description("Sentences of long content looked up in the translation memory")
+                .register(meterRegistry);
+        Gauge.builder("translation.memory.hit.ratio", this, TranslationService::segmentHitRatio)
+                .description("Share of sentences served from the translation memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Translates content from source language to target language as interactive traffic.
+     *
+     * @param content The content to translate
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @return A future completed with the translated content
+     */
+    public CompletableFuture<String> translate(String content, String sourceLanguage, String targetLanguage) {
+        return translate(content, sourceLanguage, targetLanguage, TranslationPriority.INTERACTIVE, null);
+    }
+
+    /**
+     * Translates content from source language to target language.
+     *
+     * @param content The content to translate
+     * @param sourceLanguage The source language
+     * @param targetLanguage The target language
+     * @param priority The scheduling lane for the provider call
+     * @param conversationId The conversation the content belongs to, used for fair queuing; may be null
+     * @return A future completed with the translated content
+     */
+    public CompletableFuture<String> translate(
+            String content,
+            String sourceLanguage,
+            String targetLanguage,
+            TranslationPriority priority,
+            Long conversationId) {
+        if (content == null) {
+            throw new IllegalArgumentException("Content cannot be null");
+        }
+
+        if (sourceLanguage == null) {
+            throw new IllegalArgumentException("Source language cannot be null");
+        }
+
+        if (targetLanguage == null) {
+            throw new IllegalArgumentException("Target language cannot be null");
+        }
+
+        if (priority == null) {
+            throw new IllegalArgumentException("Priority cannot be null");
+        }
+
+        // If languages are the same, no translation needed
+        if (sourceLanguage.equals(targetLanguage)) {
+            return CompletableFuture.completedFuture(content);
+        }
+
+        if (memoryEnabled && content.length() >= memoryMinLength) {
+            List<String> parts = SentenceSplitter.split(content, sourceLanguage);
+            if (parts.size() > 3) {
+                return translateSentences(parts, sourceLanguage, targetLanguage, priority, conversationId);
+            }
+        }
+
+        TranslationKey key = TranslationKey.of(content, sourceLanguage, targetLanguage);
+        String cached = translationCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return fetch(key, content, sourceLanguage, targetLanguage, priority, conversationId);
+    }
+
+    /**
+     * Translates each sentence separately and reassembles them with the original separators.
+     *
+     * @param parts Separators and sentences as returned by {@link SentenceSplitter#split}
+     */
+    private CompletableFuture<String> translateSentences(
+            List<String> parts,
+            String sourceLanguage,
+            String targetLanguage,
+            TranslationPriority priority,
+            Long conversationId) {
+        List<CompletableFuture<String>> sentences = new ArrayList<>(parts.size() / 2);
+        for (int i = 1; i < parts.size(); i += 2) {
+            String sentence = parts.get(i);
+            TranslationKey key = TranslationKey.of(sentence, sourceLanguage, targetLanguage);
+            String cached = translationCache.get(key);
+            if (cached != null) {
+                segmentHits.increment();
+                sentences.add(CompletableFuture.completedFuture(cached));
+            } else {
+                // Misses of one message reach the batcher together and share a provider call
+                segmentMisses.increment();
+                sentences.add(fetch(key, sentence, sourceLanguage, targetLanguage, priority, conversationId));
+            }
+        }
+
+        return CompletableFuture.allOf(sentences.toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    StringBuilder translated = new StringBuilder(parts.get(0));
+                    for (int i = 0; i < sentences.size(); i++) {
+                        translated.append(sentences.get(i).join()).append(parts.get(2 * i + 2));
+                    }
+                    return translated.toString();
+                });
+    }
+
+    /**
+     * Fetches a translation that is not cached, joining an identical in-flight request if there is one.
+     */
+    private CompletableFuture<String> fetch(
+            TranslationKey key,
+            String content,
+            String sourceLanguage,
+            String targetLanguage,
+            TranslationPriority priority,
+            Long conversationId) {
+        // Flights are per priority so interactive requests never wait in the backfill lane
+        FlightKey flightKey = new FlightKey(key, priority);
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            coalescedRequests.increment();
+            return existing.copy();
+        }
+
+        // A flight that completed since our cache miss has left its translation in the cache
+        String cached = translationCache.getInMemory(key);
+        if (cached != null) {
+            inFlight.remove(flightKey, flight);
+            flight.complete(cached);
+            return flight.copy();
+        }
+
+        try {
+            translationScheduler.submit(content, sourceLanguage, targetLanguage, priority, conversationId)
+                    .whenComplete((translated, failure) -> {
+                        try {
+                            // Cache before leaving the in-flight map so later callers hit the cache
+                            if (failure == null) {
+                                translationCache.put(key, translated);
+                            }
+                        } finally {
+                            inFlight.remove(flightKey, flight);
+                            if (failure == null) {
+                                flight.complete(translated);
+                            } else {
+                                flight.completeExceptionally(failure);
+                            }
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlight.remove(flightKey, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.copy();
+    }
+
+    /**
+     * Number of distinct translations currently in flight.
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private double segmentHitRatio() {
+        double lookups = segmentHits.count() + segmentMisses.count();
+        return lookups == 0 ? 0 : segmentHits.count() / lookups;
+    }
+
+    private record FlightKey(TranslationKey key, TranslationPriority priority) {
+    }
+}
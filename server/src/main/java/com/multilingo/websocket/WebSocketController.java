@@ -2,6 +2,7 @@ package com.multilingo.websocket;
 
 import com.multilingo.Message.Message;
 import com.multilingo.Message.MessageDTO;
+import com.multilingo.Message.MessageReadService;
 import com.multilingo.Message.MessageService;
 import com.multilingo.Message.MessageType;
 import com.multilingo.User.User;
@@ -13,6 +14,8 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 
+import java.util.List;
+
 /**
  * Simplified controller for handling WebSocket messages
  */
@@ -22,6 +25,9 @@ public class WebSocketController {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private MessageReadService messageReadService;
+
     @Autowired
     private UserService userService;
 
@@ -57,7 +63,22 @@ public class WebSocketController {
         if (authentication != null && authentication.isAuthenticated()) {
             String username = authentication.getName();
             User user = userService.getUserByUsername(username);
-            messageService.markAsRead(readStatus.getMessageId(), user);
+            messageReadService.markReadUpTo(readStatus.getMessageId(), user);
+        } else {
+            throw new IllegalStateException("User not authenticated");
+        }
+    }
+
+    /**
+     * Handle a batch of read messages of one conversation, as sent while scrolling
+     */
+    @MessageMapping("/chat.markReadUpTo")
+    public void markMessagesAsRead(@Payload ReadRange readRange, SimpMessageHeaderAccessor headerAccessor) {
+        Authentication authentication = (Authentication) headerAccessor.getUser();
+        if (authentication != null && authentication.isAuthenticated()) {
+            String username = authentication.getName();
+            User user = userService.getUserByUsername(username);
+            messageReadService.markReadUpTo(readRange.getConversationId(), readRange.getMessageIds(), user);
         } else {
             throw new IllegalStateException("User not authenticated");
         }
@@ -116,4 +137,31 @@ public class WebSocketController {
             this.messageId = messageId;
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Read range DTO: the messages of a conversation a user has seen
+     */
+    public static class ReadRange {
+        private Long conversationId;
+        private List<Long> messageIds;
+
+        public ReadRange() {
+        }
+
+        public Long getConversationId() {
+            return conversationId;
+        }
+
+        public void setConversationId(Long conversationId) {
+            this.conversationId = conversationId;
+        }
+
+        public List<Long> getMessageIds() {
+            return messageIds;
+        }
+
+        public void setMessageIds(List<Long> messageIds) {
+            this.messageIds = messageIds;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.multilingo.websocket;
 
 import com.multilingo.Message.MessageDTO;
-import com.multilingo.Message.MessageStatusUpdate;
+import com.multilingo.Message.ReadReceiptUpdate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
@@ -36,16 +36,16 @@ public class WebSocketUtil {
     }
 
     /**
-     * Send a status update to a specific user
+     * Send the read receipts of a conversation to a specific user
      *
      * @param username The username of the recipient
-     * @param statusUpdate The status update to send
+     * @param update The read receipts to send
      */
-    public void sendMessageToUser(String username, MessageStatusUpdate statusUpdate) {
+    public void sendReadReceipts(String username, ReadReceiptUpdate update) {
         messagingTemplate.convertAndSendToUser(
                 username,
-                "/queue/status",
-                statusUpdate
+                "/queue/read-receipts",
+                update
         );
     }
 
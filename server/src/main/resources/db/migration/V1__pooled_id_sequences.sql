@@ -0,0 +1,28 @@
+-- Users, conversations and messages take their IDs from pooled sequences instead of
+-- identity columns, so Hibernate can assign IDs up front and batch inserts.
+-- Hibernate reserves the 50 IDs ending at each value it draws from a sequence.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS conversations_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS messages_seq START WITH 1 INCREMENT BY 50;
+
+-- On an existing database, continue after the highest ID and stop the identity columns
+-- from generating IDs of their own. A new database gets its tables from Hibernate later.
+DO $$
+DECLARE
+    entity RECORD;
+    max_id BIGINT;
+BEGIN
+    FOR entity IN SELECT * FROM (VALUES
+            ('users', 'users_seq'),
+            ('conversations', 'conversations_seq'),
+            ('messages', 'messages_seq')) AS t(table_name, sequence_name)
+    LOOP
+        IF to_regclass(entity.table_name) IS NOT NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', entity.table_name) INTO max_id;
+            PERFORM setval(entity.sequence_name, max_id + 50, false);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', entity.table_name);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', entity.table_name);
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,34 @@
+-- Read state moves from a single is_read flag per message, shared by every participant,
+-- to a watermark per user and conversation: the newest message, by (sent_at, id), the
+-- user has read. A new database gets the table from Hibernate later.
+DO $$
+BEGIN
+    IF to_regclass('messages') IS NULL THEN
+        RETURN;
+    END IF;
+
+    CREATE TABLE IF NOT EXISTS conversation_read_state (
+        user_id BIGINT NOT NULL,
+        conversation_id BIGINT NOT NULL,
+        last_read_message_id BIGINT NOT NULL,
+        last_read_sent_at TIMESTAMP(6) NOT NULL,
+        updated_at TIMESTAMP(6) NOT NULL,
+        PRIMARY KEY (user_id, conversation_id)
+    );
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'messages' AND column_name = 'is_read') THEN
+        -- The flag could not say who read a message, so every participant starts at
+        -- the newest message anyone had read
+        INSERT INTO conversation_read_state
+            (user_id, conversation_id, last_read_message_id, last_read_sent_at, updated_at)
+        SELECT DISTINCT ON (uc.user_id, uc.conversation_id)
+            uc.user_id, uc.conversation_id, m.id, m.sent_at, now()
+        FROM user_conversations uc
+        JOIN messages m ON m.conversation_id = uc.conversation_id AND m.is_read
+        ORDER BY uc.user_id, uc.conversation_id, m.sent_at DESC, m.id DESC
+        ON CONFLICT (user_id, conversation_id) DO NOTHING;
+
+        ALTER TABLE messages DROP COLUMN is_read;
+    END IF;
+END $$;
@@ -0,0 +1,27 @@
+-- Unread counts per user and conversation are maintained on send and read instead of
+-- being counted from the messages. Existing databases start from the counts their
+-- read watermarks imply. A new database gets the table from Hibernate later.
+DO $$
+BEGIN
+    IF to_regclass('conversation_read_state') IS NULL THEN
+        RETURN;
+    END IF;
+
+    CREATE TABLE IF NOT EXISTS conversation_unread_counts (
+        user_id BIGINT NOT NULL,
+        conversation_id BIGINT NOT NULL,
+        unread_count BIGINT NOT NULL,
+        PRIMARY KEY (user_id, conversation_id)
+    );
+
+    INSERT INTO conversation_unread_counts (user_id, conversation_id, unread_count)
+    SELECT uc.user_id, uc.conversation_id, COUNT(*)
+    FROM user_conversations uc
+    JOIN messages m ON m.conversation_id = uc.conversation_id AND m.sender_id <> uc.user_id
+    LEFT JOIN conversation_read_state r
+        ON r.user_id = uc.user_id AND r.conversation_id = uc.conversation_id
+    WHERE r.user_id IS NULL
+        OR (m.sent_at, m.id) > (r.last_read_sent_at, r.last_read_message_id)
+    GROUP BY uc.user_id, uc.conversation_id
+    ON CONFLICT (user_id, conversation_id) DO NOTHING;
+END $$;
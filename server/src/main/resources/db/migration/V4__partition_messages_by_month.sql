@@ -0,0 +1,109 @@
+-- Messages are range partitioned by sent_at, one partition per month, so history and
+-- unread queries that bound sent_at only touch recent partitions, each partition's
+-- indexes stay small enough to vacuum quickly, and old months are archived by detaching
+-- their partition instead of deleting rows.
+--
+-- Every unique constraint of a partitioned table must include the partition key, so
+-- the primary key becomes (id, sent_at). IDs still come from messages_seq and stay
+-- unique; a foreign key can no longer reference messages(id) alone, so
+-- message_translations loses its constraint to messages.
+
+CREATE SCHEMA IF NOT EXISTS message_archive;
+
+DO $$
+DECLARE
+    fk RECORD;
+    legacy_end TIMESTAMP;
+BEGIN
+    IF to_regclass('messages') IS NULL THEN
+        -- New database: the table Hibernate would have created, partitioned
+        CREATE TABLE messages (
+            id BIGINT NOT NULL,
+            created_at TIMESTAMP(6) NOT NULL,
+            updated_at TIMESTAMP(6) NOT NULL,
+            deleted BOOLEAN NOT NULL,
+            sender_id BIGINT NOT NULL,
+            conversation_id BIGINT NOT NULL,
+            content TEXT NOT NULL,
+            translated_content TEXT,
+            message_language VARCHAR(255) NOT NULL,
+            message_type VARCHAR(255) NOT NULL,
+            sent_at TIMESTAMP(6) NOT NULL,
+            translation_status VARCHAR(255) NOT NULL,
+            PRIMARY KEY (id, sent_at)
+        ) PARTITION BY RANGE (sent_at);
+        CREATE INDEX idx_messages_conversation_sent_at ON messages (conversation_id, sent_at, id);
+        CREATE INDEX idx_messages_sender ON messages (sender_id);
+    ELSIF (SELECT relkind FROM pg_class WHERE oid = 'messages'::regclass) = 'r' THEN
+        -- Existing database: the current table becomes the partition of everything up to
+        -- the end of this month, without copying a row. It is archived as a whole once
+        -- its newest month leaves the retention period.
+        FOR fk IN SELECT conrelid::regclass AS table_name, conname
+                  FROM pg_constraint
+                  WHERE confrelid = 'messages'::regclass AND contype = 'f'
+        LOOP
+            EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+        END LOOP;
+
+        ALTER TABLE messages RENAME TO messages_legacy;
+        ALTER TABLE messages_legacy RENAME CONSTRAINT messages_pkey TO messages_legacy_id_key;
+        ALTER INDEX IF EXISTS idx_messages_conversation_sent_at
+            RENAME TO idx_messages_legacy_conversation_sent_at;
+        ALTER INDEX IF EXISTS idx_messages_sender RENAME TO idx_messages_legacy_sender;
+
+        CREATE TABLE messages (LIKE messages_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+            PARTITION BY RANGE (sent_at);
+        ALTER TABLE messages ADD PRIMARY KEY (id, sent_at);
+        CREATE INDEX idx_messages_conversation_sent_at ON messages (conversation_id, sent_at, id);
+        CREATE INDEX idx_messages_sender ON messages (sender_id);
+
+        -- Also covers rows a skewed clock dated into the future
+        SELECT date_trunc('month', GREATEST(now()::timestamp, COALESCE(MAX(sent_at), now()::timestamp)))
+                + INTERVAL '1 month'
+            INTO legacy_end
+            FROM messages_legacy;
+
+        -- Attaching scans the table to check its rows fit the partition and builds every
+        -- index of messages it lacks, all under an ACCESS EXCLUSIVE lock. A validated
+        -- CHECK that implies the bound lets it skip the scan (VALIDATE only takes a SHARE
+        -- UPDATE EXCLUSIVE lock), and the key built beforehand is attached as it is.
+        EXECUTE format('ALTER TABLE messages_legacy ADD CONSTRAINT messages_legacy_sent_at_bound '
+                'CHECK (sent_at IS NOT NULL AND sent_at < %L) NOT VALID', legacy_end);
+        ALTER TABLE messages_legacy VALIDATE CONSTRAINT messages_legacy_sent_at_bound;
+        CREATE UNIQUE INDEX messages_legacy_id_sent_at_key ON messages_legacy (id, sent_at);
+
+        EXECUTE format('ALTER TABLE messages ATTACH PARTITION messages_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                legacy_end);
+        -- The partition bound now enforces the same, and the (id, sent_at) key serves lookups by ID as well
+        ALTER TABLE messages_legacy DROP CONSTRAINT messages_legacy_sent_at_bound;
+        ALTER TABLE messages_legacy DROP CONSTRAINT messages_legacy_id_key;
+    END IF;
+END $$;
+
+-- Creates the partitions of the current month and the next months_ahead months that
+-- do not exist yet, and returns how many it created. Months already covered by
+-- another partition are skipped. Called here and periodically by the application.
+CREATE OR REPLACE FUNCTION create_message_partitions(months_ahead INT) RETURNS INT AS $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', now()::timestamp);
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    FOR i IN 0..months_ahead LOOP
+        partition_name := 'messages_p' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            BEGIN
+                EXECUTE format('CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                        partition_name, month_start, month_start + INTERVAL '1 month');
+                created := created + 1;
+            EXCEPTION WHEN invalid_object_definition THEN
+                -- Overlaps an existing partition, such as messages_legacy
+                NULL;
+            END;
+        END IF;
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+    RETURN created;
+END $$ LANGUAGE plpgsql;
+
+SELECT create_message_partitions(3);
@@ -0,0 +1,64 @@
+-- Full-text search over messages and their stored translations. Each text is indexed
+-- with the text search configuration of its own language, in a generated tsvector
+-- column with a GIN index. On messages the index is created per monthly partition.
+--
+-- Message text may be stored compressed (MessageContentCodec, messages.compression.*).
+-- A stored value starting with chr(1) || 'L' holds Base64 LZ4 data, and one starting
+-- with chr(1) || 'P' holds the text after those two characters. The search columns
+-- index the text itself and leave compressed values out rather than index their
+-- Base64, so compressed messages and translations cannot be found by search.
+--
+-- Adding a stored generated column rewrites the table once.
+
+-- Text search configuration for an ISO 639-1 language code; 'simple' (no stemming,
+-- no stop words) for languages PostgreSQL has no dictionary for
+CREATE OR REPLACE FUNCTION message_search_config(language TEXT) RETURNS regconfig AS $$
+    SELECT CASE language
+        WHEN 'da' THEN 'danish'
+        WHEN 'de' THEN 'german'
+        WHEN 'en' THEN 'english'
+        WHEN 'es' THEN 'spanish'
+        WHEN 'fi' THEN 'finnish'
+        WHEN 'fr' THEN 'french'
+        WHEN 'hu' THEN 'hungarian'
+        WHEN 'it' THEN 'italian'
+        WHEN 'nl' THEN 'dutch'
+        WHEN 'no' THEN 'norwegian'
+        WHEN 'pt' THEN 'portuguese'
+        WHEN 'ro' THEN 'romanian'
+        WHEN 'ru' THEN 'russian'
+        WHEN 'sv' THEN 'swedish'
+        WHEN 'tr' THEN 'turkish'
+        ELSE 'simple'
+    END::regconfig
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+-- The searchable text of a stored message or translation; NULL when it is compressed
+CREATE OR REPLACE FUNCTION message_search_text(content TEXT) RETURNS TEXT AS $$
+    SELECT CASE
+        WHEN left(content, 2) = chr(1) || 'L' THEN NULL
+        WHEN left(content, 2) = chr(1) || 'P' THEN substr(content, 3)
+        ELSE content
+    END
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector(message_search_config(message_language), message_search_text(content))) STORED;
+CREATE INDEX IF NOT EXISTS idx_messages_search ON messages USING GIN (search_vector);
+
+-- A new database gets message_translations here rather than from Hibernate, so that
+-- it has the search column from the start
+CREATE TABLE IF NOT EXISTS message_translations (
+    message_id BIGINT NOT NULL,
+    language VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    deleted BOOLEAN NOT NULL,
+    translated_content TEXT NOT NULL,
+    translation_status VARCHAR(255) NOT NULL,
+    PRIMARY KEY (message_id, language)
+);
+
+ALTER TABLE message_translations ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector(message_search_config(language), message_search_text(translated_content))) STORED;
+CREATE INDEX IF NOT EXISTS idx_message_translations_search ON message_translations USING GIN (search_vector);
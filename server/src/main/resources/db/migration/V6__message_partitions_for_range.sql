@@ -0,0 +1,26 @@
+-- Imported history can predate every partition of messages, which only exist from the
+-- month V4 ran in (or from the end of messages_legacy). This creates the monthly
+-- partitions covering a range of sent_at values that do not exist yet, and returns how
+-- many it created. Months already covered by another partition are skipped.
+CREATE OR REPLACE FUNCTION create_message_partitions(from_time TIMESTAMP, to_time TIMESTAMP) RETURNS INT AS $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', from_time);
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    WHILE month_start <= to_time LOOP
+        partition_name := 'messages_p' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            BEGIN
+                EXECUTE format('CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                        partition_name, month_start, month_start + INTERVAL '1 month');
+                created := created + 1;
+            EXCEPTION WHEN invalid_object_definition THEN
+                -- Overlaps an existing partition, such as messages_legacy
+                NULL;
+            END;
+        END IF;
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+    RETURN created;
+END $$ LANGUAGE plpgsql;
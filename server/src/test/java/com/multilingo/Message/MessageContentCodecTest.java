@@ -0,0 +1,80 @@
+package com.multilingo.Message;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageContentCodecTest {
+
+    private final MessageContentCodec codec = new MessageContentCodec(true, 64);
+
+    @Test
+    void compressesLongRepetitiveText() {
+        String log = "2024-05-01 09:30:00 INFO [main] c.m.Message.MessageService - Loaded page\n".repeat(40);
+
+        String stored = codec.encode(log);
+
+        assertTrue(stored.startsWith("\u0001L"));
+        assertTrue(stored.length() < log.length() / 4);
+        assertEquals(log, MessageContentCodec.decode(stored));
+    }
+
+    @Test
+    void roundTripsMultibyteText() {
+        String text = "明日の会議は何時からですか。¿Puedes enviarme el documento? ".repeat(20);
+
+        String stored = codec.encode(text);
+
+        assertTrue(stored.getBytes(StandardCharsets.UTF_8).length < text.getBytes(StandardCharsets.UTF_8).length);
+        assertEquals(text, MessageContentCodec.decode(stored));
+    }
+
+    @Test
+    void onlyTextOfAtLeastMinLengthLeavesTheSearchIndex() {
+        // message_search_text (V5 migration) indexes values without a header and skips "\u0001L" ones
+        String belowMinimum = "ha".repeat(31) + "!";
+        String atMinimum = "ha".repeat(32);
+
+        assertSame(belowMinimum, codec.encode(belowMinimum));
+        assertTrue(codec.encode(atMinimum).startsWith("\u0001L"));
+    }
+
+    @Test
+    void keepsShortAndIncompressibleTextAsIs() {
+        String shortText = "See you tomorrow!";
+        StringBuilder random = new StringBuilder();
+        Random generator = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            random.append((char) ('!' + generator.nextInt(90)));
+        }
+
+        assertSame(shortText, codec.encode(shortText));
+        assertEquals(random.toString(), codec.encode(random.toString()));
+        assertEquals(shortText, new MessageContentCodec(false, 64).encode(shortText));
+    }
+
+    @Test
+    void escapesTextThatStartsWithTheHeader() {
+        String text = "\u0001L not compressed";
+
+        String stored = new MessageContentCodec(false, 64).encode(text);
+
+        assertEquals("\u0001P" + text, stored);
+        assertEquals(text, MessageContentCodec.decode(stored));
+    }
+
+    @Test
+    void readsLegacyAndMalformedValuesAsTheyAre() {
+        assertNull(MessageContentCodec.decode(null));
+        assertEquals("hello", MessageContentCodec.decode("hello"));
+        assertEquals("\u0001", MessageContentCodec.decode("\u0001"));
+        assertEquals("\u0001Lnot base64!", MessageContentCodec.decode("\u0001Lnot base64!"));
+        assertEquals("\u0001LAAAA", MessageContentCodec.decode("\u0001LAAAA"));
+    }
+}
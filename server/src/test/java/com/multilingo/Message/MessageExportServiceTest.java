@@ -0,0 +1,141 @@
+package com.multilingo.Message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.multilingo.Conversation.ConversationRepository;
+import com.multilingo.User.User;
+import com.multilingo.User.UserRole;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class MessageExportServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final PageRequest PAGE = PageRequest.of(0, 2);
+
+    private final User reader = user();
+
+    private MessageRepository messageRepository;
+    private ConversationRepository conversationRepository;
+    private ObjectMapper objectMapper;
+    private MessageExportService messageExportService;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        conversationRepository = mock(ConversationRepository.class);
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        messageExportService = service(1, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void writesOneLinePerMessageAcrossPages() throws Exception {
+        when(messageRepository.findEarliestHistoryPage(10L, 7L, "es", PAGE))
+                .thenReturn(List.of(dto(1L, "en", "hola"), dto(2L, "es", null)));
+        when(messageRepository.findHistoryPageAfter(10L, 7L, "es", START.plusMinutes(2), 2L, PAGE))
+                .thenReturn(List.of(dto(3L, "en", null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = messageExportService.exportConversation(10L, reader, out);
+
+        assertEquals(3, count);
+        assertEquals(line(1, "\"hola\"", "en", "COMPLETED")
+                        + line(2, "null", "es", "NOT_NEEDED")
+                        + line(3, "null", "en", "PENDING"),
+                out.toString(StandardCharsets.UTF_8));
+        // The last page was not full, so there is nothing after it
+        verify(messageRepository, never()).findHistoryPageAfter(10L, 7L, "es", START.plusMinutes(3), 3L, PAGE);
+    }
+
+    @Test
+    void stopsAtAnEmptyPageAfterAFullOne() throws Exception {
+        when(messageRepository.findEarliestHistoryPage(10L, 7L, "es", PAGE))
+                .thenReturn(List.of(dto(1L, "es", null), dto(2L, "es", null)));
+        when(messageRepository.findHistoryPageAfter(10L, 7L, "es", START.plusMinutes(2), 2L, PAGE))
+                .thenReturn(List.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, messageExportService.exportConversation(10L, reader, out));
+        assertEquals(line(1, "null", "es", "NOT_NEEDED") + line(2, "null", "es", "NOT_NEEDED"),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void refusesAnExportBeyondTheConcurrencyLimitAndReleasesItsSlot() throws Exception {
+        messageExportService = service(1, Duration.ZERO);
+        when(messageRepository.findEarliestHistoryPage(10L, 7L, "es", PAGE)).thenAnswer(invocation -> {
+            // The outer export holds the only slot
+            assertThrows(IllegalStateException.class,
+                    () -> messageExportService.exportConversation(10L, reader, new ByteArrayOutputStream()));
+            return List.of();
+        });
+
+        assertEquals(0, messageExportService.exportConversation(10L, reader, new ByteArrayOutputStream()));
+        assertEquals(0, messageExportService.exportConversation(10L, reader, new ByteArrayOutputStream()));
+        verify(messageRepository, times(2)).findEarliestHistoryPage(10L, 7L, "es", PAGE);
+    }
+
+    @Test
+    void onlyParticipantsAndAdminsMayExport() {
+        User admin = user();
+        admin.setId(8L);
+        admin.setRole(UserRole.ADMIN);
+        when(conversationRepository.isParticipant(10L, 7L)).thenReturn(true);
+        when(conversationRepository.isParticipant(11L, 7L)).thenReturn(false);
+
+        messageExportService.checkAccess(10L, reader);
+        messageExportService.checkAccess(11L, admin);
+        assertThrows(AccessDeniedException.class, () -> messageExportService.checkAccess(11L, reader));
+        verify(conversationRepository, never()).isParticipant(11L, 8L);
+    }
+
+    @Test
+    void rejectsMissingConversationOrReader() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IllegalArgumentException.class, () -> messageExportService.exportConversation(null, reader, out));
+        assertThrows(IllegalArgumentException.class, () -> messageExportService.exportConversation(10L, null, out));
+        assertThrows(IllegalArgumentException.class, () -> messageExportService.checkAccess(10L, null));
+        verifyNoInteractions(messageRepository, conversationRepository);
+    }
+
+    private MessageExportService service(int maxConcurrent, Duration maxWait) {
+        return new MessageExportService(
+                messageRepository, conversationRepository, objectMapper, PAGE.getPageSize(), maxConcurrent, maxWait);
+    }
+
+    private static String line(long id, String translatedContent, String language, String status) {
+        return "{\"id\":" + id + ",\"senderId\":2,\"senderUsername\":\"bruno\",\"conversationId\":10,"
+                + "\"content\":\"hello " + id + "\",\"translatedContent\":" + translatedContent + ","
+                + "\"messageLanguage\":\"" + language + "\",\"messageType\":\"TEXT\","
+                + "\"sentAt\":\"2024-05-01T12:0" + id + ":00\",\"read\":false,"
+                + "\"translationStatus\":\"" + status + "\"}\n";
+    }
+
+    private static MessageDTO dto(long id, String language, String translatedContent) {
+        return new MessageDTO(id, 2L, "bruno", 10L, "hello " + id, translatedContent, language,
+                MessageType.TEXT, START.plusMinutes(id), false, TranslationStatus.PENDING);
+    }
+
+    private static User user() {
+        User user = new User("ana", "Ana", "ana@example.com", "password", "es");
+        user.setId(7L);
+        return user;
+    }
+}
@@ -0,0 +1,135 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.Conversation;
+import com.multilingo.User.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the SQL statements behind history reads against an in-memory database,
+ * so that a mapping change that brings back per-row selects fails here.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class MessageHistoryQueryCountTest {
+
+    // A history page is one query: messages, senders and translations together
+    private static final long MAX_STATEMENTS_PER_PAGE = 1;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private MessageService messageService;
+    private Statistics statistics;
+    private User bruno;
+    private User chloe;
+    private Long conversationId;
+    private Long firstMessageId;
+
+    @BeforeEach
+    void setUp() {
+        User alice = entityManager.persist(new User("alice", "Alice", "alice@example.com", "password", "en"));
+        bruno = entityManager.persist(new User("bruno", "Bruno", "bruno@example.com", "password", "es"));
+        chloe = entityManager.persist(new User("chloe", "Chloe", "chloe@example.com", "password", "fr"));
+        Conversation conversation = entityManager.persist(new Conversation("Group Chat", Set.of(alice, bruno, chloe)));
+        conversationId = conversation.getId();
+
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        for (int i = 0; i < 60; i++) {
+            User sender = i % 3 == 0 ? alice : i % 3 == 1 ? bruno : chloe;
+            Message message = new Message(sender, conversation, "message " + i, sender.getPreferredLanguage());
+            message.setSentAt(start.plusMinutes(i));
+            entityManager.persist(message);
+            if (i == 0) {
+                firstMessageId = message.getId();
+            }
+            if (!"es".equals(message.getMessageLanguage())) {
+                entityManager.persist(new MessageTranslation(message, "es", "mensaje " + i));
+            }
+            if (i == 29) {
+                // Bruno has read the first half of the conversation
+                entityManager.persist(new ConversationReadState(
+                        bruno.getId(), conversationId, message.getId(), message.getSentAt()));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Only getMessagePage is exercised, which needs nothing but the repository
+        // Without the recent message cache, so every page is read from the database
+        messageService = new MessageService(messageRepository, null, null,
+                new RecentMessageCache(null, null, null, false, 64, 1 << 20, new SimpleMeterRegistry()), 200);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void historyPageIsASingleStatement() {
+        MessagePage newest = messageService.getMessagePage(conversationId, bruno, null, null, 50);
+
+        assertEquals(50, newest.messages().size());
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS_PER_PAGE,
+                "newest page took " + statistics.getPrepareStatementCount() + " statements");
+        statistics.clear();
+
+        MessagePage older = messageService.getMessagePage(conversationId, bruno, newest.olderCursor(), null, 50);
+
+        assertEquals(10, older.messages().size());
+        assertEquals("mensaje 0", older.messages().get(0).getTranslatedContent());
+        assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS_PER_PAGE,
+                "older page took " + statistics.getPrepareStatementCount() + " statements");
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void readStateFollowsTheReadersWatermark() {
+        List<MessageDTO> messages = messageService.getMessagePage(conversationId, bruno, null, null, 60).messages();
+
+        for (int i = 0; i < messages.size(); i++) {
+            // Up to the watermark, and Bruno's own messages after it
+            boolean read = i <= 29 || i % 3 == 1;
+            assertEquals(read, messages.get(i).isRead(), "message " + i);
+        }
+        // 30 later messages, 10 of them Bruno's own
+        assertEquals(20, messageRepository.countUnread(conversationId, bruno.getId()));
+        MessageDTO watermark = messages.get(29);
+        assertEquals(20, messageRepository.countUnreadAfter(
+                conversationId, bruno.getId(), watermark.getSentAt(), watermark.getId()));
+        // Chloe has read nothing, so every message but her own is unread
+        assertEquals(40, messageRepository.countUnread(conversationId, chloe.getId()));
+    }
+
+    @Test
+    void loadingMessageLeavesSenderAndConversationUnloaded() {
+        Message message = messageRepository.findById(firstMessageId).orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(Hibernate.isInitialized(message.getSender()));
+        assertFalse(Hibernate.isInitialized(message.getConversation()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.Conversation;
+import com.multilingo.User.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Reads history against an in-memory database to check that each message carries
+ * the stored translation into the reader's language and the status the reader sees.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+class MessageHistoryTranslationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private MessageService messageService;
+    private User bruno;
+    private Long conversationId;
+
+    @BeforeEach
+    void setUp() {
+        User alice = entityManager.persist(new User("alice", "Alice", "alice@example.com", "password", "en"));
+        bruno = entityManager.persist(new User("bruno", "Bruno", "bruno@example.com", "password", "es"));
+        Conversation conversation = entityManager.persist(new Conversation("Chat", Set.of(alice, bruno)));
+        conversationId = conversation.getId();
+
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Message translated = message(alice, conversation, "good morning", "en", start);
+        translated.setTranslationStatus(TranslationStatus.COMPLETED);
+        entityManager.persist(translated);
+        entityManager.persist(new MessageTranslation(translated, "es", "buenos días"));
+        // Only the reader's language is joined
+        entityManager.persist(new MessageTranslation(translated, "fr", "bonjour"));
+
+        Message pending = message(alice, conversation, "see you soon", "en", start.plusMinutes(1));
+        entityManager.persist(pending);
+        entityManager.persist(new MessageTranslation(pending, "fr", "à bientôt"));
+
+        entityManager.persist(message(alice, conversation, "hasta luego", "es", start.plusMinutes(2)));
+        entityManager.flush();
+        entityManager.clear();
+
+        messageService = new MessageService(messageRepository, null, null,
+                new RecentMessageCache(null, null, null, false, 64, 1 << 20, new SimpleMeterRegistry()), 200);
+    }
+
+    @Test
+    void joinsTheStoredTranslationIntoTheReadersLanguage() {
+        List<MessageDTO> messages = messageRepository.findHistoryForLanguage(conversationId, bruno.getId(), "es");
+
+        assertEquals(3, messages.size());
+        assertEquals("good morning", messages.get(0).getContent());
+        assertEquals("buenos días", messages.get(0).getTranslatedContent());
+        assertNull(messages.get(1).getTranslatedContent());
+        assertNull(messages.get(2).getTranslatedContent());
+        // The stored status, before it is adjusted for the reader
+        assertEquals(TranslationStatus.PENDING, messages.get(2).getTranslationStatus());
+    }
+
+    @Test
+    void reportsTheTranslationStatusAsTheReaderSeesIt() {
+        List<MessageDTO> messages = messageService.getMessagesForConversation(conversationId, bruno);
+
+        assertEquals(3, messages.size());
+        assertEquals(TranslationStatus.COMPLETED, messages.get(0).getTranslationStatus());
+        assertEquals("buenos días", messages.get(0).getTranslatedContent());
+        assertEquals(TranslationStatus.PENDING, messages.get(1).getTranslationStatus());
+        assertNull(messages.get(1).getTranslatedContent());
+        assertEquals(TranslationStatus.NOT_NEEDED, messages.get(2).getTranslationStatus());
+        assertEquals("hasta luego", messages.get(2).getContent());
+    }
+
+    private static Message message(
+            User sender, Conversation conversation, String content, String language, LocalDateTime sentAt) {
+        Message message = new Message(sender, conversation, content, language);
+        message.setSentAt(sentAt);
+        return message;
+    }
+}
@@ -0,0 +1,145 @@
+package com.multilingo.Message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MessagePartitionMaintainerTest {
+
+    private static final String EXPIRED_BOUND = "FOR VALUES FROM ('2020-01-01 00:00:00') TO ('2020-02-01 00:00:00')";
+    private static final String CURRENT_BOUND = "FOR VALUES FROM ('2999-01-01 00:00:00') TO ('2999-02-01 00:00:00')";
+
+    private JdbcTemplate jdbcTemplate;
+    private MessagePartitionMaintainer maintainer;
+
+    // Rows of the partition catalog query: schema, name, bound, detach pending
+    private final List<Object[]> partitions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        // Not started, so maintenance only runs when a test calls it
+        maintainer = new MessagePartitionMaintainer(jdbcTemplate, 3, 12, 2, Duration.ofHours(6), new SimpleMeterRegistry());
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenAnswer(invocation -> {
+            RowMapper<?> mapper = invocation.getArgument(1);
+            List<Object> rows = new ArrayList<>();
+            for (Object[] partition : partitions) {
+                rows.add(mapper.mapRow(catalogRow(partition), rows.size()));
+            }
+            return rows;
+        });
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void archivesExpiredPartitionsByMovingThemThenDetachingConcurrently() {
+        partitions.add(new Object[] {
+                "public", "messages_legacy", "FOR VALUES FROM (MINVALUE) TO ('2020-01-01 00:00:00')", false});
+        partitions.add(new Object[] {"public", "messages_p2020_01", EXPIRED_BOUND, false});
+        partitions.add(new Object[] {"public", "messages_p2999_01", CURRENT_BOUND, false});
+
+        maintainer.maintain();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE \"public\".\"messages_legacy\" SET SCHEMA message_archive");
+        inOrder.verify(jdbcTemplate).execute(
+                "ALTER TABLE messages DETACH PARTITION \"message_archive\".\"messages_legacy\" CONCURRENTLY");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE \"public\".\"messages_p2020_01\" SET SCHEMA message_archive");
+        inOrder.verify(jdbcTemplate).execute(
+                "ALTER TABLE messages DETACH PARTITION \"message_archive\".\"messages_p2020_01\" CONCURRENTLY");
+        verify(jdbcTemplate, never()).execute(contains("messages_p2999_01"));
+    }
+
+    @Test
+    void finishesADetachThatWasInterrupted() {
+        // Moved and half detached on an earlier pass
+        partitions.add(new Object[] {"message_archive", "messages_p2020_01", EXPIRED_BOUND, true});
+
+        maintainer.maintain();
+
+        verify(jdbcTemplate).execute(
+                "ALTER TABLE messages DETACH PARTITION \"message_archive\".\"messages_p2020_01\" FINALIZE");
+        verify(jdbcTemplate, never()).execute(contains("SET SCHEMA"));
+        verify(jdbcTemplate, never()).execute(contains("CONCURRENTLY"));
+    }
+
+    @Test
+    void purgesTranslationsOfArchivedTablesInBatchesThenMarksThem() {
+        String table = "\"message_archive\".\"messages_p2020_01\"";
+        String nextBatch = "SELECT MAX(id) FROM (SELECT id FROM " + table + " WHERE id > ? ORDER BY id LIMIT ?) ids";
+        String delete = "DELETE FROM message_translations WHERE message_id IN "
+                + "(SELECT id FROM " + table + " WHERE id > ? AND id <= ?)";
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(), any()))
+                .thenReturn(List.of("messages_p2020_01"));
+        when(jdbcTemplate.queryForObject(nextBatch, Long.class, Long.MIN_VALUE, 2)).thenReturn(12L);
+        when(jdbcTemplate.queryForObject(nextBatch, Long.class, 12L, 2)).thenReturn(15L);
+        when(jdbcTemplate.update(delete, Long.MIN_VALUE, 12L)).thenReturn(4);
+        when(jdbcTemplate.update(delete, 12L, 15L)).thenReturn(1);
+
+        maintainer.maintain();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).update(delete, Long.MIN_VALUE, 12L);
+        inOrder.verify(jdbcTemplate).update(delete, 12L, 15L);
+        inOrder.verify(jdbcTemplate).queryForObject(nextBatch, Long.class, 15L, 2);
+        inOrder.verify(jdbcTemplate).execute("COMMENT ON TABLE " + table + " IS 'translations purged'");
+    }
+
+    @Test
+    void keepsEveryPartitionWithoutARetention() {
+        maintainer = new MessagePartitionMaintainer(jdbcTemplate, 3, 0, 2, Duration.ofHours(6), new SimpleMeterRegistry());
+        partitions.add(new Object[] {"public", "messages_p2020_01", EXPIRED_BOUND, false});
+
+        maintainer.maintain();
+
+        verify(jdbcTemplate).queryForObject("SELECT create_message_partitions(?)", Integer.class, 3);
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void readsTheUpperBoundOfAMonthlyPartition() {
+        assertEquals(LocalDateTime.of(2024, 6, 1, 0, 0), MessagePartitionMaintainer.upperBound(
+                "FOR VALUES FROM ('2024-05-01 00:00:00') TO ('2024-06-01 00:00:00')"));
+    }
+
+    @Test
+    void readsTheUpperBoundOfTheLegacyPartition() {
+        assertEquals(LocalDateTime.of(2024, 6, 1, 0, 0), MessagePartitionMaintainer.upperBound(
+                "FOR VALUES FROM (MINVALUE) TO ('2024-06-01 00:00:00.5')"));
+    }
+
+    @Test
+    void partitionsWithoutAnUpperBoundNeverExpire() {
+        assertNull(MessagePartitionMaintainer.upperBound("FOR VALUES FROM ('2024-05-01 00:00:00') TO (MAXVALUE)"));
+        assertNull(MessagePartitionMaintainer.upperBound("DEFAULT"));
+    }
+
+    private static ResultSet catalogRow(Object[] partition) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(1)).thenReturn((String) partition[0]);
+        when(resultSet.getString(2)).thenReturn((String) partition[1]);
+        when(resultSet.getString(3)).thenReturn((String) partition[2]);
+        when(resultSet.getBoolean(4)).thenReturn((Boolean) partition[3]);
+        return resultSet;
+    }
+}
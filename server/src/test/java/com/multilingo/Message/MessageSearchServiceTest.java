@@ -0,0 +1,82 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class MessageSearchServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private final User searcher = user();
+
+    private MessageRepository messageRepository;
+    private MessageSearchService messageSearchService;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        messageSearchService = new MessageSearchService(messageRepository, Duration.ofDays(365), 50);
+    }
+
+    @Test
+    void continuesAfterTheLastResultOfAFullPage() {
+        List<MessageSearchHit> hits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            hits.add(hit(10L - i, 0.5f / (i + 1)));
+        }
+        when(messageRepository.search(eq(7L), eq("es"), eq("hola"), any(), isNull(), eq(3))).thenReturn(hits);
+
+        MessageSearchPage page = messageSearchService.search(searcher, " hola ", null, 2);
+
+        assertEquals(2, page.results().size());
+        SearchCursor cursor = SearchCursor.decode(page.nextCursor());
+        assertEquals(new SearchCursor(0.25f, START.minusMinutes(1), 9L), cursor);
+
+        messageSearchService.search(searcher, "hola", page.nextCursor(), 2);
+        verify(messageRepository).search(eq(7L), eq("es"), eq("hola"), any(), eq(cursor), eq(3));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(messageRepository.search(eq(7L), eq("es"), eq("hola"), any(), isNull(), eq(21)))
+                .thenReturn(List.of(hit(1L, 0.1f)));
+
+        assertNull(messageSearchService.search(searcher, "hola", null, 20).nextCursor());
+    }
+
+    @Test
+    void rejectsBlankOrOverlongQueries() {
+        assertThrows(IllegalArgumentException.class, () -> messageSearchService.search(searcher, " ", null, 20));
+        assertThrows(IllegalArgumentException.class, () -> messageSearchService.search(
+                searcher, "a".repeat(MessageSearchService.MAX_QUERY_LENGTH + 1), null, 20));
+        assertThrows(IllegalArgumentException.class, () -> messageSearchService.search(searcher, "hola", null, 51));
+        assertThrows(IllegalArgumentException.class, () -> messageSearchService.search(searcher, "hola", "nope", 20));
+        verifyNoInteractions(messageRepository);
+    }
+
+    private static MessageSearchHit hit(long id, float rank) {
+        return new MessageSearchHit(id, 1L, 2L, "bruno", "hello " + id, "hola " + id, "en",
+                START.minusMinutes(10 - id), rank, "<b>hola</b> " + id);
+    }
+
+    private static User user() {
+        User user = new User("ana", "Ana", "ana@example.com", "password", "es");
+        user.setId(7L);
+        return user;
+    }
+}
@@ -0,0 +1,528 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.Conversation;
+import com.multilingo.Conversation.ConversationRepository;
+import com.multilingo.User.User;
+import com.multilingo.User.UserRepository;
+import com.multilingo.translation.LanguageDetector;
+import com.multilingo.translation.StubTranslationProvider;
+import com.multilingo.translation.TranslationBatcher;
+import com.multilingo.translation.TranslationCache;
+import com.multilingo.translation.TranslationProvider;
+import com.multilingo.translation.TranslationProviderGuard;
+import com.multilingo.translation.TranslationScheduler;
+import com.multilingo.translation.TranslationService;
+import com.multilingo.websocket.WebSocketUtil;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MessageServiceTest {
+
+    private static final String[] LANGUAGES = {"en", "es", "fr", "de"};
+
+    private MessageRepository messageRepository;
+    private MessageTranslationRepository messageTranslationRepository;
+    private ConversationRepository conversationRepository;
+    private UserRepository userRepository;
+    private WebSocketUtil webSocketUtil;
+    private StubTranslationProvider translationProvider;
+    private TranslationProviderGuard providerGuard;
+    private TranslationBatcher translationBatcher;
+    private TranslationScheduler translationScheduler;
+    private final CountDownLatch providerReleased = new CountDownLatch(1);
+    private MessageTranslationService messageTranslationService;
+    private MessageWriteBuffer messageWriteBuffer;
+    private MessageService messageService;
+    private boolean recentCacheEnabled;
+    private boolean groupCommitEnabled;
+    private Duration translationTimeout = Duration.ofSeconds(30);
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        messageTranslationRepository = mock(MessageTranslationRepository.class);
+        conversationRepository = mock(ConversationRepository.class);
+        userRepository = mock(UserRepository.class);
+        webSocketUtil = mock(WebSocketUtil.class);
+
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> {
+            Message message = invocation.getArgument(0);
+            message.setId(1L);
+            return message;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        providerReleased.countDown();
+        messageWriteBuffer.shutdown();
+        translationScheduler.shutdown();
+        translationBatcher.shutdown();
+        providerGuard.shutdown();
+    }
+
+    @Test
+    void translatesOncePerDistinctTargetLanguage() {
+        createServices(false, Runnable::run);
+        User sender = user(0L, "en");
+        Set<User> users = new HashSet<>();
+        users.add(sender);
+        for (long i = 1; i < 300; i++) {
+            users.add(user(i, LANGUAGES[(int) (i % LANGUAGES.length)]));
+        }
+        givenConversation(new Conversation("Group Chat", users));
+
+        messageService.sendMessage(sender, 1L, "good morning");
+
+        // One provider call per distinct target language other than the sender's own
+        assertEquals(LANGUAGES.length - 1, translationProvider.getCallCount());
+        assertEquals(LANGUAGES.length - 1, translationProvider.getSegmentCount());
+        verify(webSocketUtil, times(299)).sendMessageToUser(anyString(), any(MessageDTO.class));
+    }
+
+    @Test
+    void directConversationTranslatesOnce() {
+        createServices(false, Runnable::run);
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+
+        Message message = messageService.sendMessage(sender, 1L, "hello");
+
+        assertEquals(1, translationProvider.getCallCount());
+        verify(webSocketUtil, times(1)).sendMessageToUser(eq("user2"), any(MessageDTO.class));
+        verify(messageTranslationRepository).upsertAll(
+                List.of(new MessageTranslationRow(1L, "es", "Translated: hello (from en to es)")));
+        assertEquals(TranslationStatus.COMPLETED, message.getTranslationStatus());
+    }
+
+    @Test
+    void skipsTranslationWhenWrittenInRecipientLanguage() {
+        createServices(false, Runnable::run);
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+
+        Message message = messageService.sendMessage(
+                sender, 1L, "¿Puedes enviarme el documento antes de la reunión de mañana?");
+
+        assertEquals("es", message.getMessageLanguage());
+        assertEquals(0, translationProvider.getCallCount());
+        ArgumentCaptor<MessageDTO> pushed = ArgumentCaptor.forClass(MessageDTO.class);
+        verify(webSocketUtil).sendMessageToUser(eq("user2"), pushed.capture());
+        assertEquals(TranslationStatus.NOT_NEEDED, pushed.getValue().getTranslationStatus());
+        verifyNoInteractions(messageTranslationRepository);
+        assertEquals(TranslationStatus.NOT_NEEDED, message.getTranslationStatus());
+    }
+
+    @Test
+    void asyncModeSkipsWorkerWhenNoTranslationNeeded() {
+        createServices(true, task -> { throw new AssertionError("No translation should be scheduled"); });
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+
+        Message message = messageService.sendMessage(sender, 1L, "Nos vemos mañana en la estación a las nueve");
+
+        verify(webSocketUtil, times(1)).sendMessageToUser(eq("user2"), any(MessageDTO.class));
+        assertEquals(TranslationStatus.NOT_NEEDED, message.getTranslationStatus());
+    }
+
+    @Test
+    void sendLatencyStaysFlatWhenProviderHangs() {
+        TranslationProvider hangingProvider = (segments, sourceLanguage, targetLanguage) -> {
+            while (providerReleased.getCount() > 0) {
+                try {
+                    providerReleased.await();
+                } catch (InterruptedException e) {
+                    // Simulate a client that ignores interrupts
+                }
+            }
+            return segments;
+        };
+        createServices(false, Runnable::run, hangingProvider,
+                CircuitBreakerConfig.custom()
+                        .slidingWindowSize(4)
+                        .minimumNumberOfCalls(4)
+                        .failureRateThreshold(50)
+                        .waitDurationInOpenState(Duration.ofMinutes(1))
+                        .build(),
+                TimeLimiterConfig.custom().timeoutDuration(Duration.ofMillis(300)).build());
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+
+        long[] latencies = new long[20];
+        for (int i = 0; i < latencies.length; i++) {
+            long start = System.nanoTime();
+            messageService.sendMessage(sender, 1L, "status update number " + i);
+            latencies[i] = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        }
+
+        // Never longer than the time limit, and immediate once the circuit has opened
+        for (int i = 0; i < latencies.length; i++) {
+            assertTrue(latencies[i] < 1000, "send " + i + " took " + latencies[i] + "ms");
+            if (i >= 4) {
+                assertTrue(latencies[i] < 150, "send " + i + " took " + latencies[i] + "ms");
+            }
+        }
+        ArgumentCaptor<MessageDTO> pushed = ArgumentCaptor.forClass(MessageDTO.class);
+        verify(webSocketUtil, times(latencies.length)).sendMessageToUser(eq("user2"), pushed.capture());
+        for (MessageDTO update : pushed.getAllValues()) {
+            assertEquals(TranslationStatus.FAILED, update.getTranslationStatus());
+            assertEquals(update.getContent(), update.getTranslatedContent());
+        }
+    }
+
+    @Test
+    void asyncModePushesOriginalBeforeTranslation() {
+        createServices(true, Runnable::run);
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+
+        Message message = messageService.sendMessage(sender, 1L, "hello");
+
+        ArgumentCaptor<MessageDTO> pushed = ArgumentCaptor.forClass(MessageDTO.class);
+        verify(webSocketUtil, times(2)).sendMessageToUser(eq("user2"), pushed.capture());
+        List<MessageDTO> updates = pushed.getAllValues();
+        assertEquals(TranslationStatus.PENDING, updates.get(0).getTranslationStatus());
+        assertEquals(TranslationStatus.COMPLETED, updates.get(1).getTranslationStatus());
+        assertEquals(TranslationStatus.PENDING, message.getTranslationStatus());
+        verify(messageRepository).updateTranslationStatus(eq(1L), any(LocalDateTime.class), eq(TranslationStatus.COMPLETED));
+    }
+
+    @Test
+    void asyncModeDoesNotTranslateOnSenderThread() {
+        createServices(true, task -> { });
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+
+        messageService.sendMessage(sender, 1L, "hello");
+
+        assertEquals(0, translationProvider.getCallCount());
+        verify(webSocketUtil, times(1)).sendMessageToUser(eq("user2"), any(MessageDTO.class));
+    }
+
+    @Test
+    void pagesHistoryBackwardsFromNewestMessage() {
+        createServices(false, Runnable::run);
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        User reader = user(2L, "es");
+        when(messageRepository.findLatestHistoryPage(eq(1L), eq(2L), eq("es"), any(Pageable.class)))
+                .thenReturn(List.of(history(30L, start.plusMinutes(3)), history(20L, start.plusMinutes(2)),
+                        history(10L, start.plusMinutes(1))));
+
+        MessagePage newest = messageService.getMessagePage(1L, reader, null, null, 2);
+
+        assertEquals(List.of(20L, 30L), newest.messages().stream().map(MessageDTO::getId).toList());
+        // Points at the newest message, so the reader can poll for what comes next
+        assertEquals(new MessageCursor(start.plusMinutes(3), 30L), MessageCursor.decode(newest.newerCursor()));
+        assertEquals(new MessageCursor(start.plusMinutes(2), 20L), MessageCursor.decode(newest.olderCursor()));
+
+        when(messageRepository.findHistoryPageBefore(
+                eq(1L), eq(2L), eq("es"), eq(start.plusMinutes(2)), eq(20L), any(Pageable.class)))
+                .thenReturn(List.of(history(10L, start.plusMinutes(1))));
+
+        MessagePage older = messageService.getMessagePage(1L, reader, newest.olderCursor(), null, 2);
+
+        assertEquals(List.of(10L), older.messages().stream().map(MessageDTO::getId).toList());
+        assertNull(older.olderCursor());
+        assertEquals(new MessageCursor(start.plusMinutes(1), 10L), MessageCursor.decode(older.newerCursor()));
+    }
+
+    @Test
+    void lastPageForwardStillPointsAtItsNewestMessage() {
+        createServices(false, Runnable::run);
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        User reader = user(2L, "es");
+        String after = new MessageCursor(start, 5L).encode();
+        when(messageRepository.findHistoryPageAfter(
+                eq(1L), eq(2L), eq("es"), eq(start), eq(5L), any(Pageable.class)))
+                .thenReturn(List.of(history(10L, start.plusMinutes(1)), history(20L, start.plusMinutes(2))));
+
+        MessagePage page = messageService.getMessagePage(1L, reader, null, after, 50);
+
+        assertEquals(List.of(10L, 20L), page.messages().stream().map(MessageDTO::getId).toList());
+        assertEquals(new MessageCursor(start.plusMinutes(1), 10L), MessageCursor.decode(page.olderCursor()));
+        assertEquals(new MessageCursor(start.plusMinutes(2), 20L), MessageCursor.decode(page.newerCursor()));
+    }
+
+    @Test
+    void emptyPageEchoesTheRequestCursor() {
+        createServices(false, Runnable::run);
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        User reader = user(2L, "es");
+        String cursor = new MessageCursor(start, 5L).encode();
+        when(messageRepository.findHistoryPageAfter(
+                eq(1L), eq(2L), eq("es"), eq(start), eq(5L), any(Pageable.class))).thenReturn(List.of());
+        when(messageRepository.findHistoryPageBefore(
+                eq(1L), eq(2L), eq("es"), eq(start), eq(5L), any(Pageable.class))).thenReturn(List.of());
+        when(messageRepository.findLatestHistoryPage(eq(1L), eq(2L), eq("es"), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Nothing newer yet: poll again from the same position
+        MessagePage newer = messageService.getMessagePage(1L, reader, null, cursor, 50);
+        assertTrue(newer.messages().isEmpty());
+        assertEquals(cursor, newer.newerCursor());
+        assertEquals(cursor, newer.olderCursor());
+
+        // Nothing older: the start of the history
+        MessagePage older = messageService.getMessagePage(1L, reader, cursor, null, 50);
+        assertTrue(older.messages().isEmpty());
+        assertEquals(cursor, older.newerCursor());
+        assertNull(older.olderCursor());
+
+        MessagePage empty = messageService.getMessagePage(1L, reader, null, null, 50);
+        assertNull(empty.newerCursor());
+        assertNull(empty.olderCursor());
+    }
+
+    @Test
+    void newestPageAfterSyncSendHasItsTranslationAndStatus() {
+        recentCacheEnabled = true;
+        createServices(false, Runnable::run);
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        // Reads in a language nobody in the conversation translates into
+        User outsider = user(3L, "de");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+        when(messageRepository.findRecentMessages(eq(1L), any(Pageable.class))).thenReturn(List.of());
+        // Opening the conversation caches it
+        messageService.getMessagePage(1L, recipient, null, null, 50);
+
+        inTransaction(() -> messageService.sendMessage(sender, 1L, "hello"));
+
+        MessageDTO translated = messageService.getMessagePage(1L, recipient, null, null, 50).messages().get(0);
+        assertEquals("Translated: hello (from en to es)", translated.getTranslatedContent());
+        assertEquals(TranslationStatus.COMPLETED, translated.getTranslationStatus());
+        MessageDTO untranslated = messageService.getMessagePage(1L, outsider, null, null, 50).messages().get(0);
+        assertNull(untranslated.getTranslatedContent());
+        assertEquals(TranslationStatus.COMPLETED, untranslated.getTranslationStatus());
+        verify(messageRepository, times(1)).findRecentMessages(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void sendsAndCachesTheStoredSenderRatherThanTheCallersCopy() {
+        recentCacheEnabled = true;
+        createServices(false, Runnable::run);
+        User sender = user(1L, "en");
+        User recipient = user(2L, "es");
+        givenConversation(new Conversation(Set.of(sender, recipient)));
+        when(messageRepository.findRecentMessages(eq(1L), any(Pageable.class))).thenReturn(List.of());
+        messageService.getMessagePage(1L, recipient, null, null, 50);
+        // As deserialized from a request body that only carries the sender's ID
+        User requestSender = new User();
+        requestSender.setId(1L);
+        requestSender.setPreferredLanguage("en");
+
+        Message message = messageService.sendMessage(requestSender, 1L, "hello");
+        inTransaction(() -> messageService.sendMessage(requestSender, 1L, "hello again"));
+
+        assertEquals(sender.getUsername(), message.getSender().getUsername());
+        ArgumentCaptor<MessageDTO> pushed = ArgumentCaptor.forClass(MessageDTO.class);
+        verify(webSocketUtil, atLeastOnce()).sendMessageToUser(eq("user2"), pushed.capture());
+        pushed.getAllValues().forEach(dto -> assertEquals("user1", dto.getSenderUsername()));
+        MessageDTO cached = messageService.getMessagePage(1L, recipient, null, null, 50).messages().get(0);
+        assertEquals("user1", cached.getSenderUsername());
+    }
+
+    @Test
+    void rejectsASenderThatDoesNotExist() {
+        createServices(false, Runnable::run);
+        givenConversation(new Conversation(Set.of(user(1L, "en"), user(2L, "es"))));
+
+        assertThrows(IllegalArgumentException.class, () -> messageService.sendMessage(user(9L, "en"), 1L, "hello"));
+        verify(messageRepository, never()).save(any(Message.class));
+    }
+
+    @Test
+    void failedPushAfterCommitNeitherRewritesTheBatchNorStopsTheRest() throws Exception {
+        groupCommitEnabled = true;
+        createServices(true, Runnable::run);
+        User sender = user(1L, "en");
+        givenConversation(new Conversation("Group Chat", Set.of(sender, user(2L, "es"), user(3L, "fr"))));
+        doThrow(new IllegalStateException("Session closed"))
+                .when(webSocketUtil).sendMessageToUser(eq("user2"), any(MessageDTO.class));
+
+        // Both sends fill one batch of two
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        try {
+            Future<Message> first = senders.submit(() -> messageService.sendMessage(sender, 1L, "good morning"));
+            Future<Message> second = senders.submit(() -> messageService.sendMessage(sender, 1L, "good night"));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            senders.shutdownNow();
+        }
+
+        verify(messageRepository, times(2)).save(any(Message.class));
+        // The original and its translation of both messages still reach the other recipient
+        verify(webSocketUtil, times(4)).sendMessageToUser(eq("user3"), any(MessageDTO.class));
+        verify(messageTranslationRepository, times(2)).upsertAll(any());
+    }
+
+    @Test
+    void deliversUntranslatedOnceTheTranslationIsOverdue() {
+        TranslationProvider hangingProvider = (segments, sourceLanguage, targetLanguage) -> {
+            try {
+                providerReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return segments;
+        };
+        // The provider's own time limit is far away, so only the delivery deadline can end the wait
+        translationTimeout = Duration.ofMillis(200);
+        createServices(false, Runnable::run, hangingProvider, CircuitBreakerConfig.ofDefaults(),
+                TimeLimiterConfig.custom().timeoutDuration(Duration.ofMinutes(1)).build());
+        User sender = user(1L, "en");
+        givenConversation(new Conversation(Set.of(sender, user(2L, "es"))));
+
+        long start = System.nanoTime();
+        Message message = messageService.sendMessage(sender, 1L, "hello");
+        long latency = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue(latency < 5000, "send took " + latency + "ms");
+        assertEquals(TranslationStatus.FAILED, message.getTranslationStatus());
+        ArgumentCaptor<MessageDTO> pushed = ArgumentCaptor.forClass(MessageDTO.class);
+        verify(webSocketUtil).sendMessageToUser(eq("user2"), pushed.capture());
+        assertEquals(TranslationStatus.FAILED, pushed.getValue().getTranslationStatus());
+        assertEquals("hello", pushed.getValue().getTranslatedContent());
+        verify(messageTranslationRepository, never()).upsertAll(any());
+    }
+
+    @Test
+    void rejectsInvalidPageRequests() {
+        createServices(false, Runnable::run);
+        User reader = user(2L, "es");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getMessagePage(1L, reader, "not a cursor", null, 50));
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getMessagePage(1L, reader, null, null, 201));
+        String cursor = new MessageCursor(LocalDateTime.now(), 1L).encode();
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getMessagePage(1L, reader, cursor, cursor, 50));
+        verifyNoInteractions(messageRepository);
+    }
+
+    private void createServices(boolean asyncEnabled, Executor executor) {
+        translationProvider = new StubTranslationProvider(Duration.ZERO);
+        createServices(asyncEnabled, executor, translationProvider,
+                CircuitBreakerConfig.ofDefaults(), TimeLimiterConfig.ofDefaults());
+    }
+
+    private void createServices(
+            boolean asyncEnabled,
+            Executor executor,
+            TranslationProvider provider,
+            CircuitBreakerConfig circuitBreakerConfig,
+            TimeLimiterConfig timeLimiterConfig) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TranslationCache translationCache = new TranslationCache(1000, 1 << 20, Duration.ofMinutes(10), meterRegistry);
+        providerGuard = new TranslationProviderGuard(
+                provider,
+                CircuitBreakerRegistry.of(circuitBreakerConfig),
+                BulkheadRegistry.ofDefaults(),
+                TimeLimiterRegistry.of(timeLimiterConfig),
+                meterRegistry);
+        translationBatcher = new TranslationBatcher(providerGuard, Duration.ofMillis(1), 32, meterRegistry);
+        translationScheduler = new TranslationScheduler(translationBatcher, 0, 0, 0.2, 1000, meterRegistry);
+        // Disabled unless a test enables it, so history pages are read through the repository
+        RecentMessageCache recentMessageCache = new RecentMessageCache(
+                messageRepository, messageTranslationRepository, mock(ConversationReadStateRepository.class),
+                recentCacheEnabled, 64, 1 << 20, meterRegistry);
+        messageTranslationService = new MessageTranslationService(
+                messageRepository,
+                messageTranslationRepository,
+                webSocketUtil,
+                new TranslationService(translationCache, translationScheduler, true, 80, meterRegistry),
+                executor,
+                asyncEnabled,
+                recentMessageCache,
+                translationTimeout);
+        messageWriteBuffer = new MessageWriteBuffer(
+                new MessageWriter(messageRepository, conversationRepository, userRepository,
+                        messageTranslationService,
+                        new UnreadCountService(mock(ConversationUnreadCountRepository.class),
+                                messageRepository, Duration.ofSeconds(30), 1000, meterRegistry),
+                        recentMessageCache),
+                groupCommitEnabled, Duration.ofSeconds(5), groupCommitEnabled ? 2 : 1, 10,
+                asyncEnabled, meterRegistry);
+        messageService = new MessageService(
+                messageRepository,
+                messageWriteBuffer,
+                new LanguageDetector(true, List.of("en", "es", "fr", "de")),
+                recentMessageCache,
+                200);
+    }
+
+    /**
+     * Runs the action as if in a transaction that then commits.
+     */
+    private static void inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void givenConversation(Conversation conversation) {
+        conversation.setId(1L);
+        when(conversationRepository.findConversationById(1L)).thenReturn(Optional.of(conversation));
+        for (User user : conversation.getUsers()) {
+            when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        }
+    }
+
+    private static MessageDTO history(long id, LocalDateTime sentAt) {
+        return new MessageDTO(id, 2L, "user2", 1L, "hello " + id, null, "en", MessageType.TEXT,
+                sentAt, false, TranslationStatus.PENDING);
+    }
+
+    private static User user(long id, String preferredLanguage) {
+        User user = new User("user" + id, "User " + id, "user" + id + "@example.com", "password", preferredLanguage);
+        user.setId(id);
+        return user;
+    }
+}
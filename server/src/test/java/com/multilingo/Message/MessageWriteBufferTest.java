@@ -0,0 +1,172 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageWriteBufferTest {
+
+    private static final long MISSING_CONVERSATION = 99L;
+
+    private final RecordingWriter writer = new RecordingWriter();
+    private final ExecutorService senders = Executors.newFixedThreadPool(16);
+    private MessageWriteBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        writer.release.countDown();
+        buffer.shutdown();
+        senders.shutdownNow();
+    }
+
+    @Test
+    void writesOnSenderThreadWhenDisabled() {
+        writer.release.countDown();
+        buffer = new MessageWriteBuffer(writer, false, Duration.ofSeconds(1), 100, 100, true, new SimpleMeterRegistry());
+
+        Message message = buffer.write(draft(1L, "hello"));
+
+        assertEquals("hello", message.getContent());
+        assertEquals(List.of(1), writer.batchSizes);
+        assertSame(Thread.currentThread(), writer.threads.get(0));
+    }
+
+    @Test
+    void commitsConcurrentSendsTogether() throws Exception {
+        buffer = new MessageWriteBuffer(writer, true, Duration.ZERO, 100, 100, true, new SimpleMeterRegistry());
+
+        // The first send holds the writer, so the others queue up behind its commit
+        Future<Message> first = senders.submit(() -> buffer.write(draft(1L, "first")));
+        assertTrue(writer.started.await(5, TimeUnit.SECONDS));
+        List<Future<Message>> queued = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String content = "queued " + i;
+            queued.add(senders.submit(() -> buffer.write(draft(1L, content))));
+        }
+        awaitQueued(10);
+        writer.release.countDown();
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getContent());
+        for (int i = 0; i < queued.size(); i++) {
+            assertEquals("queued " + i, queued.get(i).get(5, TimeUnit.SECONDS).getContent());
+        }
+        assertEquals(List.of(1, 10), writer.batchSizes);
+    }
+
+    @Test
+    void failedBatchOnlyFailsTheBadMessage() throws Exception {
+        writer.release.countDown();
+        // Two messages or a long wait, so both sends land in one batch
+        buffer = new MessageWriteBuffer(writer, true, Duration.ofSeconds(10), 2, 100, true, new SimpleMeterRegistry());
+
+        Future<Message> good = senders.submit(() -> buffer.write(draft(1L, "good")));
+        Future<Message> bad = senders.submit(() -> buffer.write(draft(MISSING_CONVERSATION, "bad")));
+
+        assertEquals("good", good.get(5, TimeUnit.SECONDS).getContent());
+        Exception failure = assertThrows(Exception.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalArgumentException);
+        assertEquals(List.of(2, 1, 1), writer.batchSizes);
+    }
+
+    @Test
+    void writesQueuedMessagesOnShutdownAndRejectsNewOnes() throws Exception {
+        buffer = new MessageWriteBuffer(writer, true, Duration.ZERO, 100, 100, true, new SimpleMeterRegistry());
+
+        Future<Message> first = senders.submit(() -> buffer.write(draft(1L, "first")));
+        assertTrue(writer.started.await(5, TimeUnit.SECONDS));
+        Future<Message> queued = senders.submit(() -> buffer.write(draft(1L, "queued")));
+        awaitQueued(1);
+
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(buffer::shutdown);
+        writer.release.countDown();
+        shutdown.get(5, TimeUnit.SECONDS);
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getContent());
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS).getContent());
+        assertThrows(RejectedExecutionException.class, () -> buffer.write(draft(1L, "late")));
+    }
+
+    @Test
+    void rejectsGroupCommitWithSynchronousTranslation() {
+        // Synchronous translation is fine while every sender writes in its own transaction
+        buffer = new MessageWriteBuffer(writer, false, Duration.ZERO, 100, 100, false, new SimpleMeterRegistry());
+
+        assertThrows(IllegalArgumentException.class, () -> new MessageWriteBuffer(
+                writer, true, Duration.ZERO, 100, 100, false, new SimpleMeterRegistry()));
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (buffer.queuedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, buffer.queuedCount());
+    }
+
+    private static MessageDraft draft(long conversationId, String content) {
+        User sender = new User("user1", "User 1", "user1@example.com", "password", "en");
+        sender.setId(1L);
+        return new MessageDraft(sender, conversationId, content, MessageType.TEXT, "en", LocalDateTime.now());
+    }
+
+    /**
+     * Records the batches it is given instead of writing them; the first write
+     * blocks until released.
+     */
+    private static class RecordingWriter extends MessageWriter {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicLong nextId = new AtomicLong(1);
+
+        RecordingWriter() {
+            super(null, null, null, null, null, null);
+        }
+
+        @Override
+        public List<Message> write(List<MessageDraft> drafts) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchSizes.add(drafts.size());
+            threads.add(Thread.currentThread());
+            List<Message> messages = new ArrayList<>(drafts.size());
+            for (MessageDraft draft : drafts) {
+                if (draft.conversationId() == MISSING_CONVERSATION) {
+                    throw new IllegalArgumentException("Conversation not found");
+                }
+                Message message = new Message();
+                message.setId(nextId.getAndIncrement());
+                message.setContent(draft.content());
+                messages.add(message);
+            }
+            return messages;
+        }
+    }
+}
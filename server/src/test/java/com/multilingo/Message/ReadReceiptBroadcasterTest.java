@@ -0,0 +1,91 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.ConversationRepository;
+import com.multilingo.User.User;
+import com.multilingo.websocket.WebSocketUtil;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReadReceiptBroadcasterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private final User alice = user(1L, "alice");
+    private final User bruno = user(2L, "bruno");
+
+    private ConversationRepository conversationRepository;
+    private WebSocketUtil webSocketUtil;
+    private ReadReceiptBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        conversationRepository = mock(ConversationRepository.class);
+        webSocketUtil = mock(WebSocketUtil.class);
+        when(conversationRepository.findParticipantUsernames(10L)).thenReturn(List.of("alice", "bruno", "chloe"));
+        // A window long enough that only shutdown closes it
+        broadcaster = new ReadReceiptBroadcaster(
+                conversationRepository, webSocketUtil, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void sendsEachParticipantOneFramePerWindow() {
+        for (long id = 1; id <= 20; id++) {
+            broadcaster.submit(position(id), alice);
+        }
+        broadcaster.submit(position(5), bruno);
+
+        broadcaster.shutdown();
+
+        verify(conversationRepository, times(1)).findParticipantUsernames(10L);
+        verify(webSocketUtil).sendReadReceipts("chloe", new ReadReceiptUpdate(10L, List.of(
+                new ReadReceipt(1L, "alice", 20L), new ReadReceipt(2L, "bruno", 5L))));
+        verify(webSocketUtil).sendReadReceipts("alice", new ReadReceiptUpdate(10L, List.of(
+                new ReadReceipt(2L, "bruno", 5L))));
+        verify(webSocketUtil).sendReadReceipts("bruno", new ReadReceiptUpdate(10L, List.of(
+                new ReadReceipt(1L, "alice", 20L))));
+        verifyNoMoreInteractions(webSocketUtil);
+    }
+
+    @Test
+    void keepsFurthestPositionWhenCommitsFinishOutOfOrder() {
+        broadcaster.submit(position(7), alice);
+        broadcaster.submit(position(6), alice);
+
+        broadcaster.shutdown();
+
+        verify(webSocketUtil).sendReadReceipts("bruno", new ReadReceiptUpdate(10L, List.of(
+                new ReadReceipt(1L, "alice", 7L))));
+        // The reader is never told about their own position
+        verify(webSocketUtil, never()).sendReadReceipts(eq("alice"), any(ReadReceiptUpdate.class));
+    }
+
+    @Test
+    void sendsNothingWithoutReceipts() {
+        broadcaster.shutdown();
+
+        verifyNoInteractions(conversationRepository);
+        verify(webSocketUtil, never()).sendReadReceipts(anyString(), any(ReadReceiptUpdate.class));
+    }
+
+    private static ReadPosition position(long messageId) {
+        return new ReadPosition(10L, messageId, START.plusSeconds(messageId));
+    }
+
+    private static User user(long id, String username) {
+        User user = new User(username, username, username + "@example.com", "password", "en");
+        user.setId(id);
+        return user;
+    }
+}
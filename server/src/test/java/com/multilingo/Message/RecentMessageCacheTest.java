@@ -0,0 +1,151 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.Conversation;
+import com.multilingo.User.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RecentMessageCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private final User ana = user(1L, "ana", "en");
+    private final User bruno = user(2L, "bruno", "es");
+
+    private MessageRepository messageRepository;
+    private MessageTranslationRepository messageTranslationRepository;
+    private ConversationReadStateRepository readStateRepository;
+    private RecentMessageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        messageTranslationRepository = mock(MessageTranslationRepository.class);
+        readStateRepository = mock(ConversationReadStateRepository.class);
+        cache = cache(4, 1 << 20);
+    }
+
+    @Test
+    void servesRepeatOpensWithoutQueries() {
+        when(messageRepository.findRecentMessages(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(recent(2L, 10L, 2), recent(1L, 10L, 1)));
+        when(messageTranslationRepository.findRows(any()))
+                .thenReturn(List.of(new MessageTranslationRow(2L, "es", "hola")));
+        when(readStateRepository.findByIdConversationId(10L))
+                .thenReturn(List.of(new ConversationReadState(2L, 10L, 1L, START.plusMinutes(1))));
+
+        cache.getLatest(10L, bruno, 3);
+        List<MessageDTO> latest = cache.getLatest(10L, bruno, 3);
+
+        assertEquals(List.of(2L, 1L), latest.stream().map(MessageDTO::getId).toList());
+        assertEquals("hola", latest.get(0).getTranslatedContent());
+        assertFalse(latest.get(0).isRead());
+        assertTrue(latest.get(1).isRead());
+        assertEquals(1, cache.getHitCount());
+        verify(messageRepository, times(1)).findRecentMessages(anyLong(), any(Pageable.class));
+        verify(readStateRepository, times(1)).findByIdConversationId(anyLong());
+    }
+
+    @Test
+    void keepsTheRingCurrentAfterWrites() {
+        when(messageRepository.findRecentMessages(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(recent(1L, 10L, 1)));
+        cache.getLatest(10L, bruno, 2);
+
+        // No transaction is active, so the send is applied immediately
+        cache.recordSent(List.of(message(3L, 10L, 3)));
+        cache.recordTranslations(List.of(new MessageTranslationRow(3L, "es", "hola 3")));
+        cache.recordTranslationStatus(3L, TranslationStatus.COMPLETED);
+        cache.recordRead(2L, new ReadPosition(10L, 3L, START.plusMinutes(3)));
+
+        List<MessageDTO> latest = cache.getLatest(10L, bruno, 2);
+        assertEquals(List.of(3L, 1L), latest.stream().map(MessageDTO::getId).toList());
+        assertEquals("hola 3", latest.get(0).getTranslatedContent());
+        assertEquals(TranslationStatus.COMPLETED, latest.get(0).getTranslationStatus());
+        assertTrue(latest.get(0).isRead());
+        assertTrue(cache.getLatest(10L, ana, 1).get(0).isRead());
+    }
+
+    @Test
+    void fallsBackWhenOlderMessagesExistBeyondTheRing() {
+        List<RecentMessage> newest = new ArrayList<>();
+        for (long id = 5; id >= 1; id--) {
+            newest.add(recent(id, 10L, (int) id));
+        }
+        when(messageRepository.findRecentMessages(eq(10L), any(Pageable.class))).thenReturn(newest);
+
+        assertEquals(4, cache.getLatest(10L, ana, 4).size());
+        assertNull(cache.getLatest(10L, ana, 5));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedConversationsOverBudget() {
+        long oneConversation = RecentMessageCache.RING_OVERHEAD_BYTES
+                + RecentMessageCache.MESSAGE_OVERHEAD_BYTES + 2L * ("hello".length() + "ana".length());
+        cache = cache(4, 2 * oneConversation);
+        for (long conversationId = 10; conversationId <= 12; conversationId++) {
+            when(messageRepository.findRecentMessages(eq(conversationId), any(Pageable.class)))
+                    .thenReturn(List.of(recent(conversationId, conversationId, 1)));
+        }
+
+        cache.getLatest(10L, ana, 1);
+        cache.getLatest(11L, ana, 1);
+        cache.getLatest(10L, ana, 1);
+        cache.getLatest(12L, ana, 1);
+
+        assertEquals(2, cache.size());
+        assertEquals(2 * oneConversation, cache.sizeInBytes());
+        cache.getLatest(10L, ana, 1);
+        verify(messageRepository, times(1)).findRecentMessages(eq(10L), any(Pageable.class));
+        verify(messageRepository, times(1)).findRecentMessages(eq(11L), any(Pageable.class));
+    }
+
+    @Test
+    void disabledCacheNeverAnswers() {
+        cache = new RecentMessageCache(messageRepository, messageTranslationRepository, readStateRepository,
+                false, 4, 1 << 20, new SimpleMeterRegistry());
+
+        assertNull(cache.getLatest(10L, ana, 1));
+        verifyNoInteractions(messageRepository, messageTranslationRepository, readStateRepository);
+    }
+
+    private RecentMessageCache cache(int messagesPerConversation, long maxBytes) {
+        return new RecentMessageCache(messageRepository, messageTranslationRepository, readStateRepository,
+                true, messagesPerConversation, maxBytes, new SimpleMeterRegistry());
+    }
+
+    private static RecentMessage recent(long id, long conversationId, int minute) {
+        return new RecentMessage(id, 1L, "ana", conversationId, "hello", "en", MessageType.TEXT,
+                START.plusMinutes(minute), TranslationStatus.PENDING);
+    }
+
+    private Message message(long id, long conversationId, int minute) {
+        Message message = new Message(ana, new Conversation(conversationId), "hello", "en");
+        message.setId(id);
+        message.setMessageType(MessageType.TEXT);
+        message.setSentAt(START.plusMinutes(minute));
+        return message;
+    }
+
+    private static User user(long id, String username, String language) {
+        User user = new User(username, username, username + "@example.com", "password", language);
+        user.setId(id);
+        return user;
+    }
+}
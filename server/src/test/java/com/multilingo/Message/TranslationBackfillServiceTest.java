@@ -0,0 +1,200 @@
+package com.multilingo.Message;
+
+import com.multilingo.User.User;
+import com.multilingo.translation.StubTranslationProvider;
+import com.multilingo.translation.TranslationBatcher;
+import com.multilingo.translation.TranslationCache;
+import com.multilingo.translation.TranslationProviderGuard;
+import com.multilingo.translation.TranslationScheduler;
+import com.multilingo.translation.TranslationService;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TranslationBackfillServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private TranslationBackfillRepository backfillRepository;
+    private MessageRepository messageRepository;
+    private MessageTranslationRepository messageTranslationRepository;
+    private StubTranslationProvider translationProvider;
+    private TranslationProviderGuard providerGuard;
+    private TranslationBatcher translationBatcher;
+    private TranslationScheduler translationScheduler;
+    private TranslationBackfillService backfillService;
+
+    // Messages received by the user, as stored in the database
+    private final List<BackfillMessage> history = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        backfillRepository = mock(TranslationBackfillRepository.class);
+        messageRepository = mock(MessageRepository.class);
+        messageTranslationRepository = mock(MessageTranslationRepository.class);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        translationProvider = new StubTranslationProvider(Duration.ZERO);
+        providerGuard = new TranslationProviderGuard(
+                translationProvider,
+                CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(),
+                TimeLimiterRegistry.ofDefaults(),
+                meterRegistry);
+        translationBatcher = new TranslationBatcher(providerGuard, Duration.ofMillis(1), 32, meterRegistry);
+        translationScheduler = new TranslationScheduler(translationBatcher, 0, 0, 0.2, 1000, meterRegistry);
+        TranslationService translationService = new TranslationService(
+                new TranslationCache(1000, 1 << 20, Duration.ofMinutes(10), meterRegistry),
+                translationScheduler, true, 80, meterRegistry);
+        backfillService = new TranslationBackfillService(
+                backfillRepository,
+                messageRepository,
+                messageTranslationRepository,
+                translationService,
+                new RecentMessageCache(null, null, null, false, 64, 1 << 20, meterRegistry),
+                Runnable::run,
+                2,
+                Duration.ofDays(30),
+                Duration.ZERO,
+                3,
+                meterRegistry);
+
+        for (long id = 1; id <= 5; id++) {
+            history.add(new BackfillMessage(id, 10L + id % 2, "message " + id, "en", NOW.minusMinutes(10 - id)));
+        }
+        when(messageRepository.findBackfillChunk(
+                anyLong(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> chunkBefore(
+                        invocation.getArgument(3), invocation.getArgument(4), invocation.getArgument(5)));
+        when(backfillRepository.saveCheckpoint(anyLong(), any(), anyLong(), anyLong(), anyLong(), any())).thenReturn(1);
+        when(backfillRepository.markCompleted(anyLong(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        translationScheduler.shutdown();
+        translationBatcher.shutdown();
+        providerGuard.shutdown();
+    }
+
+    @Test
+    void translatesHistoryNewestFirstAndCheckpointsEachChunk() {
+        when(messageRepository.countBackfillMessages(anyLong(), anyString(), any(), any())).thenReturn(5L);
+        AtomicReference<TranslationBackfill> stored = new AtomicReference<>();
+        when(backfillRepository.save(any(TranslationBackfill.class))).thenAnswer(invocation -> {
+            TranslationBackfill backfill = invocation.getArgument(0);
+            if (backfill.getId() == null) {
+                backfill.setId(7L);
+            }
+            stored.set(backfill);
+            return backfill;
+        });
+        when(backfillRepository.findById(7L)).thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+
+        TranslationBackfill backfill = backfillService.startBackfill(user(1L, "es"));
+
+        verify(backfillRepository).supersedeRunning(1L);
+        assertEquals(BackfillStatus.COMPLETED, backfill.getStatus());
+        assertEquals(5, backfill.getProcessedMessages());
+        assertEquals(0, backfill.getFailedMessages());
+        verify(messageTranslationRepository).upsertAll(List.of(translated(5L), translated(4L)));
+        verify(messageTranslationRepository).upsertAll(List.of(translated(3L), translated(2L)));
+        verify(messageTranslationRepository).upsertAll(List.of(translated(1L)));
+        // Three chunks of at most two messages, then the completion
+        verify(backfillRepository).save(backfill);
+        verify(backfillRepository).saveCheckpoint(eq(7L), eq(history.get(3).sentAt()), eq(4L), eq(2L), eq(0L), any());
+        verify(backfillRepository).saveCheckpoint(eq(7L), eq(history.get(1).sentAt()), eq(2L), eq(4L), eq(0L), any());
+        verify(backfillRepository).saveCheckpoint(eq(7L), eq(history.get(0).sentAt()), eq(1L), eq(5L), eq(0L), any());
+        verify(backfillRepository).markCompleted(7L, backfill.getCompletedAt());
+    }
+
+    @Test
+    void resumesAfterLastCheckpoint() {
+        TranslationBackfill backfill = new TranslationBackfill(1L, "es", NOW.minusDays(30), NOW);
+        backfill.setId(7L);
+        backfill.setTotalMessages(5);
+        backfill.advance(history.get(2), 2, 0);
+        when(backfillRepository.findById(7L)).thenReturn(Optional.of(backfill));
+
+        backfillService.run(7L);
+
+        verify(messageTranslationRepository).upsertAll(List.of(translated(2L), translated(1L)));
+        verifyNoMoreInteractions(messageTranslationRepository);
+        assertEquals(BackfillStatus.COMPLETED, backfill.getStatus());
+        assertEquals(4, backfill.getProcessedMessages());
+    }
+
+    @Test
+    void stopsWhenSupersededByNewerBackfill() {
+        TranslationBackfill backfill = new TranslationBackfill(1L, "es", NOW.minusDays(30), NOW);
+        backfill.setId(7L);
+        backfill.setStatus(BackfillStatus.SUPERSEDED);
+        when(backfillRepository.findById(7L)).thenReturn(Optional.of(backfill));
+
+        backfillService.run(7L);
+
+        assertEquals(0, translationProvider.getCallCount());
+        verifyNoInteractions(messageTranslationRepository);
+    }
+
+    @Test
+    void stopsWhenSupersededWhileTranslatingAChunk() {
+        TranslationBackfill backfill = new TranslationBackfill(1L, "es", NOW.minusDays(30), NOW);
+        backfill.setId(7L);
+        when(backfillRepository.findById(7L)).thenReturn(Optional.of(backfill));
+        // A newer backfill superseded this one after it was loaded, so its checkpoint matches no running row
+        when(backfillRepository.saveCheckpoint(anyLong(), any(), anyLong(), anyLong(), anyLong(), any())).thenReturn(0);
+
+        backfillService.run(7L);
+
+        verify(messageTranslationRepository).upsertAll(List.of(translated(5L), translated(4L)));
+        verifyNoMoreInteractions(messageTranslationRepository);
+        verify(backfillRepository).saveCheckpoint(eq(7L), any(), eq(4L), eq(2L), eq(0L), any());
+        verify(backfillRepository, never()).markCompleted(anyLong(), any());
+        verify(backfillRepository, never()).save(any());
+    }
+
+    /**
+     * Keyset query over the in-memory history, mirroring MessageRepository#findBackfillChunk.
+     */
+    private List<BackfillMessage> chunkBefore(LocalDateTime cursorSentAt, Long cursorMessageId, Pageable pageable) {
+        return history.stream()
+                .filter(message -> message.sentAt().isBefore(cursorSentAt)
+                        || (message.sentAt().isEqual(cursorSentAt) && message.id() < cursorMessageId))
+                .sorted(Comparator.comparing(BackfillMessage::sentAt).thenComparing(BackfillMessage::id).reversed())
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+
+    private static MessageTranslationRow translated(long messageId) {
+        return new MessageTranslationRow(messageId, "es", "Translated: message " + messageId + " (from en to es)");
+    }
+
+    private static User user(long id, String preferredLanguage) {
+        User user = new User("user" + id, "User " + id, "user" + id + "@example.com", "password", preferredLanguage);
+        user.setId(id);
+        return user;
+    }
+}
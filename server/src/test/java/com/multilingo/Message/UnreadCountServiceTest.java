@@ -0,0 +1,132 @@
+package com.multilingo.Message;
+
+import com.multilingo.Conversation.Conversation;
+import com.multilingo.User.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class UnreadCountServiceTest {
+
+    private final User alice = user(1L, "alice");
+    private final User bruno = user(2L, "bruno");
+    private final User chloe = user(3L, "chloe");
+
+    private ConversationUnreadCountRepository unreadCountRepository;
+    private MessageRepository messageRepository;
+    private UnreadCountService unreadCountService;
+    private Conversation group;
+
+    @BeforeEach
+    void setUp() {
+        unreadCountRepository = mock(ConversationUnreadCountRepository.class);
+        messageRepository = mock(MessageRepository.class);
+        unreadCountService = new UnreadCountService(
+                unreadCountRepository, messageRepository, Duration.ofHours(1), 1000, new SimpleMeterRegistry());
+        group = new Conversation("Group", Set.of(alice, bruno, chloe));
+        group.setId(10L);
+    }
+
+    @Test
+    void servesRepeatedLookupsFromMemory() {
+        when(unreadCountRepository.findByUserId(2L)).thenReturn(List.of(
+                new UnreadCount(10L, 4L), new UnreadCount(11L, 0L)));
+
+        assertEquals(Map.of(10L, 4L), unreadCountService.getUnreadCounts(2L));
+        assertEquals(Map.of(10L, 4L), unreadCountService.getUnreadCounts(2L));
+
+        verify(unreadCountRepository, times(1)).findByUserId(2L);
+    }
+
+    @Test
+    void sendsAddToTheOtherParticipantsCounts() {
+        when(unreadCountRepository.findByUserId(anyLong())).thenReturn(List.of());
+        unreadCountService.getUnreadCounts(1L);
+        unreadCountService.getUnreadCounts(2L);
+        unreadCountService.getUnreadCounts(3L);
+
+        unreadCountService.recordSent(List.of(
+                message(alice), message(alice), message(bruno)));
+
+        verify(unreadCountRepository).incrementForRecipients(10L, 1L, 2L);
+        verify(unreadCountRepository).incrementForRecipients(10L, 2L, 1L);
+        assertEquals(Map.of(10L, 1L), unreadCountService.getUnreadCounts(1L));
+        assertEquals(Map.of(10L, 2L), unreadCountService.getUnreadCounts(2L));
+        assertEquals(Map.of(10L, 3L), unreadCountService.getUnreadCounts(3L));
+        verify(unreadCountRepository, times(3)).findByUserId(anyLong());
+    }
+
+    @Test
+    void readsResetTheCountToTheMessagesAfterTheWatermark() {
+        when(unreadCountRepository.findByUserId(3L)).thenReturn(List.of(new UnreadCount(10L, 7L)));
+        LocalDateTime sentAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(messageRepository.countUnreadAfter(10L, 3L, sentAt, 42L)).thenReturn(0L);
+        unreadCountService.getUnreadCounts(3L);
+
+        unreadCountService.recordRead(3L, new ReadPosition(10L, 42L, sentAt));
+
+        verify(unreadCountRepository).set(3L, 10L, 0L);
+        assertEquals(Map.of(), unreadCountService.getUnreadCounts(3L));
+    }
+
+    @Test
+    void readsWaitForSendsAddingToTheCountBeforeCountingAgain() {
+        LocalDateTime sentAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        // Messages after chloe's new watermark that the read can see
+        AtomicLong visible = new AtomicLong();
+        // A send to chloe holds her count row; once it commits and the lock is granted, its message is visible
+        when(unreadCountRepository.lock(3L, 10L)).thenAnswer(invocation -> {
+            visible.incrementAndGet();
+            return 1;
+        });
+        when(messageRepository.countUnreadAfter(10L, 3L, sentAt, 42L)).thenAnswer(invocation -> visible.get());
+
+        unreadCountService.recordRead(3L, new ReadPosition(10L, 42L, sentAt));
+
+        InOrder order = inOrder(unreadCountRepository, messageRepository);
+        order.verify(unreadCountRepository).lock(3L, 10L);
+        order.verify(messageRepository).countUnreadAfter(10L, 3L, sentAt, 42L);
+        order.verify(unreadCountRepository).set(3L, 10L, 1L);
+    }
+
+    @Test
+    void expiredUsersAreReloaded() {
+        unreadCountService = new UnreadCountService(
+                unreadCountRepository, messageRepository, Duration.ZERO, 1000, new SimpleMeterRegistry());
+        when(unreadCountRepository.findByUserId(2L)).thenReturn(List.of(new UnreadCount(10L, 1L)));
+
+        unreadCountService.getUnreadCounts(2L);
+        unreadCountService.getUnreadCounts(2L);
+
+        verify(unreadCountRepository, times(2)).findByUserId(2L);
+    }
+
+    private Message message(User sender) {
+        Message message = new Message();
+        message.setSender(sender);
+        message.setConversation(group);
+        message.setContent("hello");
+        message.setSentAt(LocalDateTime.now());
+        return message;
+    }
+
+    private static User user(long id, String username) {
+        User user = new User(username, username, username + "@example.com", "password", "en");
+        user.setId(id);
+        return user;
+    }
+}
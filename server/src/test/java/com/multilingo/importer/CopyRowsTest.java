@@ -0,0 +1,29 @@
+package com.multilingo.importer;
+
+import com.multilingo.Message.MessageType;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CopyRowsTest {
+
+    @Test
+    void writesTabSeparatedRowsWithNulls() {
+        CopyRows rows = new CopyRows()
+                .column(1L).column(false).column(null).column(MessageType.TEXT).endRow()
+                .column(LocalDateTime.of(2019, 3, 1, 10, 0, 5)).column(true).endRow();
+
+        assertEquals("1\tf\t\\N\tTEXT\n2019-03-01T10:00:05\tt\n", rows.toString());
+        assertEquals(2, rows.rowCount());
+    }
+
+    @Test
+    void escapesSeparatorsAndBackslashes() {
+        CopyRows rows = new CopyRows().column("a\tb\nc\r\\N").endRow();
+
+        assertEquals("a\\tb\\nc\\r\\\\N\n", rows.toString());
+    }
+}
@@ -0,0 +1,46 @@
+package com.multilingo.importer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HistoryImportRepositoryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final HistoryImportRepository importRepository = new HistoryImportRepository(jdbcTemplate);
+
+    @Test
+    void takesWholeBlocksBelowEachValueDrawn() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("messages_seq"), eq(2)))
+                .thenReturn(List.of(151L, 201L));
+
+        List<Long> ids = importRepository.allocateIds("messages_seq", 60);
+
+        assertEquals(LongStream.rangeClosed(102, 201).boxed().toList(), ids);
+    }
+
+    @Test
+    void drawsAgainWhenANewSequenceStartsAtOne() {
+        // The first value of a new sequence only covers ID 1, as Hibernate's pooled optimizer sees it
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("users_seq"), eq(1)))
+                .thenReturn(List.of(1L), List.of(51L));
+
+        List<Long> ids = importRepository.allocateIds("users_seq", 3);
+
+        assertEquals(LongStream.rangeClosed(1, 51).boxed().toList(), ids);
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Long.class), eq("users_seq"), eq(1));
+    }
+
+    @Test
+    void allocatesNothingForNoRows() {
+        assertEquals(List.of(), importRepository.allocateIds("messages_seq", 0));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,129 @@
+package com.multilingo.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.multilingo.importer.HistoryImportRepository.ImportedConversation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class HistoryImportServiceTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2019, 3, 1, 9, 0);
+
+    private HistoryImportRepository importRepository;
+    // Each COPY as its statement followed by its rows
+    private final List<String> copies = new ArrayList<>();
+    private final Map<String, AtomicLong> sequences = Map.of(
+            "users_seq", new AtomicLong(100),
+            "conversations_seq", new AtomicLong(200),
+            "messages_seq", new AtomicLong(300));
+
+    @BeforeEach
+    void setUp() {
+        importRepository = mock(HistoryImportRepository.class);
+        when(importRepository.findUserIds(any())).thenReturn(Map.of("ana", 5L));
+        when(importRepository.findExistingEmails(any())).thenReturn(Set.of());
+        when(importRepository.allocateIds(anyString(), anyInt())).thenAnswer(invocation -> {
+            AtomicLong next = sequences.get((String) invocation.getArgument(0));
+            int count = invocation.getArgument(1);
+            return LongStream.range(0, count).mapToObj(i -> next.incrementAndGet()).toList();
+        });
+        when(importRepository.copyIn(anyString(), anyString())).thenAnswer(invocation -> {
+            copies.add(invocation.getArgument(0) + "\n" + invocation.getArgument(1));
+            return 0L;
+        });
+    }
+
+    @Test
+    void loadsValidLinesInDependencyOrderAndReportsTheRest() throws Exception {
+        HistoryImportProgress progress = service(100).importHistory(input(
+                "{\"type\":\"user\",\"ref\":\"u1\",\"username\":\"ana\"}",
+                "{\"type\":\"user\",\"ref\":\"u2\",\"username\":\"bruno\",\"email\":\"b@example.com\","
+                        + "\"preferredLanguage\":\"en\"}",
+                "{\"type\":\"user\",\"ref\":\"u3\",\"username\":\"chloe\"}",
+                "{\"type\":\"conversation\",\"ref\":\"c1\",\"name\":\"Team\",\"members\":[\"u1\",\"u2\"]}",
+                "{\"type\":\"message\",\"conversation\":\"c1\",\"sender\":\"u1\",\"content\":\"hola\\tmundo\","
+                        + "\"language\":\"es\",\"sentAt\":\"2019-03-01T10:00:00\"}",
+                "{\"type\":\"message\",\"conversation\":\"c1\",\"sender\":\"u3\",\"content\":\"salut\","
+                        + "\"language\":\"fr\",\"sentAt\":\"2019-03-01T10:00:00\"}",
+                "not json",
+                "",
+                "{\"type\":\"message\",\"conversation\":\"c1\",\"sender\":\"u2\",\"content\":\"hi\","
+                        + "\"language\":\"en\",\"sentAt\":\"2019-03-01T09:00:00\"}"));
+
+        assertEquals(ImportStatus.COMPLETED, progress.status());
+        assertEquals(9, progress.linesRead());
+        assertEquals(1, progress.usersImported());
+        assertEquals(1, progress.conversationsImported());
+        assertEquals(2, progress.membershipsImported());
+        assertEquals(2, progress.messagesImported());
+        assertEquals(3, progress.rejectedLines());
+        // Unparseable lines are rejected as they are read, the rest when their batch is validated
+        assertEquals(List.of(7L, 3L, 6L), progress.errors().stream().map(HistoryImportError::line).toList());
+
+        assertEquals(4, copies.size());
+        assertTrue(copies.get(0).startsWith(HistoryImportService.COPY_USERS));
+        assertTrue(copies.get(0).contains("\n101\t"));
+        assertTrue(copies.get(0).endsWith("\tbruno\tbruno\tb@example.com\t!\ten\tUSER\n"));
+        assertEquals(HistoryImportService.COPY_MEMBERSHIPS + "\n201\t5\n201\t101\n", copies.get(2));
+        assertTrue(copies.get(3).startsWith(HistoryImportService.COPY_MESSAGES));
+        assertTrue(copies.get(3).contains("\t5\t201\thola\\tmundo\tes\tTEXT\t2019-03-01T10:00\tPENDING\n"));
+
+        verify(importRepository).createMessagePartitions(MORNING, MORNING.plusHours(1));
+        verify(importRepository).finishConversations(List.of(new ImportedConversation(201L, 301L, MORNING.plusHours(1))));
+    }
+
+    @Test
+    void resolvesRefsAcrossBatches() throws Exception {
+        HistoryImportProgress progress = service(1).importHistory(input(
+                "{\"type\":\"user\",\"ref\":\"u1\",\"username\":\"ana\"}",
+                "{\"type\":\"conversation\",\"ref\":\"c1\",\"members\":[\"u1\"]}",
+                "{\"type\":\"message\",\"conversation\":\"c1\",\"sender\":\"u1\",\"content\":\"uno\","
+                        + "\"language\":\"es\",\"sentAt\":\"2019-03-01T09:00:00\"}",
+                "{\"type\":\"message\",\"conversation\":\"c1\",\"sender\":\"u1\",\"content\":\"dos\","
+                        + "\"language\":\"es\",\"sentAt\":\"2019-03-01T09:00:00\"}"));
+
+        assertEquals(2, progress.messagesImported());
+        assertEquals(0, progress.rejectedLines());
+        verify(importRepository, times(2)).createMessagePartitions(MORNING, MORNING);
+        // Equal sent times: the higher ID is the newer message
+        verify(importRepository).finishConversations(List.of(new ImportedConversation(201L, 302L, MORNING)));
+    }
+
+    private HistoryImportService service(int batchSize) {
+        return new HistoryImportService(
+                importRepository,
+                TransactionOperations.withoutTransaction(),
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                batchSize,
+                Duration.ofSeconds(10),
+                false,
+                1024,
+                new SimpleMeterRegistry());
+    }
+
+    private static ByteArrayInputStream input(String... lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
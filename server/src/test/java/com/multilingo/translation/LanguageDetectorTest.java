@@ -0,0 +1,61 @@
+package com.multilingo.translation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LanguageDetectorTest {
+
+    private final LanguageDetector detector =
+            new LanguageDetector(true, List.of("en", "es", "fr", "de", "it", "pt", "nl"));
+
+    @Test
+    void detectsLatinScriptLanguages() {
+        assertEquals("en", detector.detect("Could you send me the document before tomorrow's meeting?", "es"));
+        assertEquals("es", detector.detect("¿Puedes enviarme el documento antes de la reunión de mañana?", "en"));
+        assertEquals("fr", detector.detect("Peux-tu m'envoyer le document avant la réunion de demain ?", "en"));
+        assertEquals("de", detector.detect("Kannst du mir das Dokument vor dem Treffen morgen schicken?", "en"));
+        assertEquals("it", detector.detect("Puoi mandarmi il documento prima della riunione di domani?", "en"));
+        assertEquals("pt", detector.detect("Você pode me mandar o documento antes da reunião de amanhã?", "es"));
+        assertEquals("nl", detector.detect("Kun je me het document voor de vergadering van morgen sturen?", "de"));
+    }
+
+    @Test
+    void fallsBackForShortOrUnscoredText() {
+        assertEquals("es", detector.detect("ok", "es"));
+        assertEquals("fr", detector.detect("hello", "fr"));
+        assertEquals("de", detector.detect("123 :-)", "de"));
+        assertEquals("en", detector.detect(null, "en"));
+    }
+
+    @Test
+    void detectsByScript() {
+        assertEquals("ko", detector.detect("오늘 날씨가 좋네요", "en"));
+        assertEquals("ja", detector.detect("明日の会議は何時からですか", "en"));
+        assertEquals("zh", detector.detect("今天天气很好", "en"));
+        assertEquals("ru", detector.detect("Привет, как дела?", "en"));
+        // Script alone cannot tell these apart, so the sender's language wins
+        assertEquals("uk", detector.detect("Привіт, як справи?", "uk"));
+        assertEquals("ja", detector.detect("東京", "ja"));
+    }
+
+    @Test
+    void latinTextIsNotAttributedToNonLatinFallback() {
+        assertEquals("en", detector.detect("I don't know if I can come tomorrow", "ja"));
+    }
+
+    @Test
+    void returnsFallbackWhenDisabled() {
+        LanguageDetector disabled = new LanguageDetector(false, List.of("en", "es"));
+
+        assertEquals("en", disabled.detect("¿Puedes enviarme el documento antes de la reunión de mañana?", "en"));
+    }
+
+    @Test
+    void rejectsMissingProfile() {
+        assertThrows(IllegalStateException.class, () -> new LanguageDetector(true, List.of("xx")));
+    }
+}
@@ -0,0 +1,211 @@
+package com.multilingo.translation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentTranslationStoreTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private PersistentTranslationStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void storesAndReturnsTranslations() {
+        store = open();
+
+        store.put(key("hello", "en", "es"), "hola");
+        store.put(key("hello", "en", "fr"), "bonjour");
+
+        assertEquals("hola", store.get(key("hello", "en", "es")));
+        assertEquals("bonjour", store.get(key("hello", "en", "fr")));
+        assertNull(store.get(key("hello", "en", "de")));
+    }
+
+    @Test
+    void survivesRestart() {
+        store = open();
+        for (int i = 0; i < 200; i++) {
+            store.put(key("message " + i, "en", "es"), "mensaje " + i);
+        }
+        store.put(key("message 7", "en", "es"), "mensaje siete");
+        store.close();
+
+        store = open();
+
+        assertEquals(200, store.size());
+        assertEquals("mensaje siete", store.get(key("message 7", "en", "es")));
+        assertEquals("mensaje 199", store.get(key("message 199", "en", "es")));
+        assertTrue(store.segmentCount() > 1);
+    }
+
+    @Test
+    void ignoresTornRecordAfterCrash() throws IOException {
+        store = open();
+        store.put(key("first", "en", "es"), "primero");
+        store.put(key("second", "en", "es"), "segundo");
+        store.close();
+        store = null;
+
+        // Corrupt the body of the last record as if the process died while writing it
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int second = 4 + buffer.getInt(0) + 4;
+            buffer.put(second + 4 + 40, (byte) 0x7F);
+            buffer.force();
+        }
+
+        store = open();
+        assertEquals("primero", store.get(key("first", "en", "es")));
+        assertNull(store.get(key("second", "en", "es")));
+
+        // Writing resumes over the torn record
+        store.put(key("third", "en", "es"), "tercero");
+        store.close();
+        store = open();
+        assertEquals("tercero", store.get(key("third", "en", "es")));
+    }
+
+    @Test
+    void checksRecordsOfOlderSegmentsWhenRead() throws IOException {
+        store = open();
+        for (int i = 0; i < 100; i++) {
+            store.put(key("message " + i, "en", "es"), "mensaje " + i);
+        }
+        store.close();
+        store = null;
+
+        // Corrupt the body of the first record of the oldest segment, which startup does not check
+        Path oldest = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(oldest, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.put(4 + 40 + 4, (byte) 0x7F);
+            buffer.force();
+        }
+
+        store = open();
+        assertEquals(100, store.size());
+        assertNull(store.get(key("message 0", "en", "es")));
+        assertEquals("mensaje 1", store.get(key("message 1", "en", "es")));
+        assertEquals("mensaje 99", store.get(key("message 99", "en", "es")));
+    }
+
+    @Test
+    void skipsExpiredTranslations() {
+        store = open();
+        store.put(key("hello", "en", "es"), "hola");
+
+        now.addAndGet(Duration.ofDays(2).toMillis());
+
+        assertNull(store.get(key("hello", "en", "es")));
+    }
+
+    @Test
+    void compactionKeepsOnlyLatestRecords() throws IOException {
+        store = open();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 20; i++) {
+                store.put(key("message " + i, "en", "es"), "mensaje " + i + " v" + round);
+            }
+        }
+        long before = store.sizeInBytes();
+
+        store.compact();
+
+        assertTrue(store.sizeInBytes() < before);
+        for (int i = 0; i < 20; i++) {
+            assertEquals("mensaje " + i + " v9", store.get(key("message " + i, "en", "es")));
+        }
+        store.close();
+        store = open();
+        assertEquals(20, store.size());
+        assertEquals("mensaje 3 v9", store.get(key("message 3", "en", "es")));
+    }
+
+    @Test
+    void dropsOldestSegmentWhenFull() {
+        store = open();
+        for (int i = 0; i < 1000; i++) {
+            store.put(key("message " + i, "en", "es"), "mensaje " + i);
+        }
+
+        assertTrue(store.segmentCount() <= 4);
+        assertNull(store.get(key("message 0", "en", "es")));
+        assertEquals("mensaje 999", store.get(key("message 999", "en", "es")));
+    }
+
+    @Test
+    void compactionPurgesIndexEntriesOfDroppedSegments() throws IOException {
+        store = open();
+        for (int i = 0; i < 1000; i++) {
+            store.put(key("message " + i, "en", "es"), "mensaje " + i);
+        }
+        assertEquals(1000, store.size());
+
+        store.compact();
+
+        int readable = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (store.get(key("message " + i, "en", "es")) != null) {
+                readable++;
+            }
+        }
+        assertEquals(readable, store.size());
+        assertTrue(readable < 1000);
+        store.put(key("message 0", "en", "es"), "mensaje cero");
+        assertEquals("mensaje cero", store.get(key("message 0", "en", "es")));
+    }
+
+    @Test
+    void translationCacheStartsWarmFromStore() {
+        store = open();
+        new TranslationCache(100, 1 << 20, Duration.ofMinutes(10), System::nanoTime, store)
+                .put(key("hello", "en", "es"), "hola");
+        store.close();
+        store = open();
+
+        TranslationCache restarted = new TranslationCache(100, 1 << 20, Duration.ofMinutes(10), System::nanoTime, store);
+
+        assertEquals("hola", restarted.get(key("hello", "en", "es")));
+        assertEquals(1, restarted.size());
+    }
+
+    private PersistentTranslationStore open() {
+        return new PersistentTranslationStore(directory, SEGMENT_BYTES, 4L * SEGMENT_BYTES, Duration.ofDays(1), 0.5, now::get);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static TranslationKey key(String content, String sourceLanguage, String targetLanguage) {
+        return TranslationKey.of(content, sourceLanguage, targetLanguage);
+    }
+}
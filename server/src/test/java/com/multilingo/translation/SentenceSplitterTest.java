@@ -0,0 +1,28 @@
+package com.multilingo.translation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SentenceSplitterTest {
+
+    @Test
+    void alternatesSeparatorsAndSentences() {
+        List<String> parts = SentenceSplitter.split("  Hello there. How are you?\n\nSee you soon!  ", "en");
+
+        assertEquals(List.of("  ", "Hello there.", " ", "How are you?", "\n\n", "See you soon!", "  "), parts);
+        assertEquals("  Hello there. How are you?\n\nSee you soon!  ", String.join("", parts));
+    }
+
+    @Test
+    void keepsSingleSentenceWhole() {
+        assertEquals(List.of("", "No punctuation at all", ""), SentenceSplitter.split("No punctuation at all", "en"));
+    }
+
+    @Test
+    void handlesBlankContent() {
+        assertEquals(List.of("   "), SentenceSplitter.split("   ", "en"));
+    }
+}
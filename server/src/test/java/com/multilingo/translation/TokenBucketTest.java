@@ -0,0 +1,51 @@
+package com.multilingo.translation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void refillsContinuouslyUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(10, SECOND, 0);
+        bucket.take(10, 0);
+
+        assertEquals(SECOND / 10, bucket.nanosUntilAvailable(1, 0, 0));
+        assertEquals(0, bucket.nanosUntilAvailable(1, 0, SECOND / 10));
+        assertEquals(10, bucket.available(5 * SECOND), 1e-9);
+    }
+
+    @Test
+    void keepsReserveForOtherCallers() {
+        TokenBucket bucket = new TokenBucket(10, SECOND, 0);
+        bucket.take(7, 0);
+
+        // Three tokens left: enough for one without a reserve, but not while keeping 20% back
+        assertEquals(0, bucket.nanosUntilAvailable(1, 0, 0));
+        assertTrue(bucket.nanosUntilAvailable(2, 0.2, 0) > 0);
+        assertEquals(0, bucket.nanosUntilAvailable(1, 0.2, 0));
+    }
+
+    @Test
+    void oversizedRequestsOnlyWaitForAFullBucket() {
+        TokenBucket bucket = new TokenBucket(100, SECOND, 0);
+
+        assertEquals(0, bucket.nanosUntilAvailable(1000, 0, 0));
+        bucket.take(1000, 0);
+        assertEquals(SECOND, bucket.nanosUntilAvailable(1000, 0, 0));
+    }
+
+    @Test
+    void neverWaitsWithoutLimit() {
+        TokenBucket bucket = new TokenBucket(0, SECOND, 0);
+        bucket.take(1_000_000, 0);
+
+        assertEquals(0, bucket.nanosUntilAvailable(1_000_000, 0.5, 0));
+    }
+}
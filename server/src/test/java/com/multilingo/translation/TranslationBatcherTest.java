@@ -0,0 +1,82 @@
+package com.multilingo.translation;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TranslationBatcherTest {
+
+    private TranslationProviderGuard providerGuard;
+    private TranslationBatcher translationBatcher;
+
+    @AfterEach
+    void tearDown() {
+        translationBatcher.shutdown();
+        providerGuard.shutdown();
+    }
+
+    @Test
+    void coalescesRequestsWithinWindow() {
+        StubTranslationProvider provider = new StubTranslationProvider(Duration.ZERO);
+        translationBatcher = createBatcher(provider, Duration.ofMillis(50), 100);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(translationBatcher.submit("message " + i, "en", "es"));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals("Translated: message " + i + " (from en to es)", futures.get(i).join());
+        }
+        assertEquals(1, provider.getCallCount());
+        assertEquals(10, provider.getSegmentCount());
+    }
+
+    @Test
+    void sendsBatchAsSoonAsItIsFull() {
+        StubTranslationProvider provider = new StubTranslationProvider(Duration.ZERO);
+        translationBatcher = createBatcher(provider, Duration.ofMinutes(1), 4);
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(translationBatcher.submit("message " + i, "en", "es"));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        assertEquals(2, provider.getCallCount());
+    }
+
+    @Test
+    void separatesLanguagePairsAndSharesIdenticalSegments() {
+        StubTranslationProvider provider = new StubTranslationProvider(Duration.ZERO);
+        translationBatcher = createBatcher(provider, Duration.ofMillis(20), 100);
+
+        CompletableFuture<String> first = translationBatcher.submit("ok", "en", "es");
+        CompletableFuture<String> second = translationBatcher.submit("ok", "en", "es");
+        CompletableFuture<String> french = translationBatcher.submit("ok", "en", "fr");
+
+        assertEquals("Translated: ok (from en to es)", first.join());
+        assertEquals("Translated: ok (from en to es)", second.join());
+        assertEquals("Translated: ok (from en to fr)", french.join());
+        assertEquals(2, provider.getCallCount());
+        assertEquals(2, provider.getSegmentCount());
+    }
+
+    private TranslationBatcher createBatcher(TranslationProvider provider, Duration window, int maxBatchSize) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        providerGuard = new TranslationProviderGuard(provider, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults(), meterRegistry);
+        return new TranslationBatcher(providerGuard, window, maxBatchSize, meterRegistry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.multilingo.translation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TranslationCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void evictsLeastRecentlyUsedEntryBeyondMaxEntries() {
+        TranslationCache cache = new TranslationCache(2, 1 << 20, TTL, now::get);
+        cache.put(key("one"), "uno");
+        cache.put(key("two"), "dos");
+
+        // Reading "one" makes "two" the least recently used
+        assertEquals("uno", cache.get(key("one")));
+        cache.put(key("three"), "tres");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(key("two")));
+        assertEquals("uno", cache.get(key("one")));
+        assertEquals("tres", cache.get(key("three")));
+    }
+
+    @Test
+    void staysWithinTheByteBudget() {
+        String value = "x".repeat(32);
+        long entryBytes = entrySize(value);
+        TranslationCache cache = new TranslationCache(100, 2 * entryBytes + entryBytes / 2, TTL, now::get);
+
+        cache.put(key("one"), value);
+        cache.put(key("two"), value);
+        assertEquals(2 * entryBytes, cache.sizeInBytes());
+
+        cache.put(key("three"), value);
+
+        assertEquals(2, cache.size());
+        assertEquals(2 * entryBytes, cache.sizeInBytes());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get(key("one")));
+    }
+
+    @Test
+    void replacingAnEntryAccountsForItsNewSize() {
+        TranslationCache cache = new TranslationCache(100, 1 << 20, TTL, now::get);
+        cache.put(key("one"), "uno");
+
+        cache.put(key("one"), "uno, otra vez");
+
+        assertEquals(1, cache.size());
+        assertEquals(entrySize("uno, otra vez"), cache.sizeInBytes());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void doesNotCacheTranslationsLargerThanTheByteBudget() {
+        TranslationCache cache = new TranslationCache(100, entrySize("uno") + 10, TTL, now::get);
+        cache.put(key("one"), "uno");
+
+        cache.put(key("long"), "x".repeat(100));
+
+        // The oversized entry is skipped rather than evicting everything else
+        assertNull(cache.get(key("long")));
+        assertEquals("uno", cache.get(key("one")));
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void expiresEntriesOnceTheirTimeToLiveElapses() {
+        TranslationCache cache = new TranslationCache(100, 1 << 20, TTL, now::get);
+        cache.put(key("one"), "uno");
+
+        now.addAndGet(TTL.minusNanos(1).toNanos());
+        assertEquals("uno", cache.get(key("one")));
+
+        // Reads do not extend the time to live
+        now.addAndGet(1);
+        assertNull(cache.get(key("one")));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.sizeInBytes());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void replacingAnEntryRestartsItsTimeToLive() {
+        TranslationCache cache = new TranslationCache(100, 1 << 20, TTL, now::get);
+        cache.put(key("one"), "uno");
+
+        now.addAndGet(TTL.dividedBy(2).toNanos());
+        cache.put(key("one"), "uno");
+        now.addAndGet(TTL.dividedBy(2).toNanos());
+
+        assertEquals("uno", cache.get(key("one")));
+        assertEquals(0, cache.getExpirationCount());
+    }
+
+    private static TranslationKey key(String content) {
+        return TranslationKey.of(content, "en", "es");
+    }
+
+    private static long entrySize(String value) {
+        // A SHA-256 hex hash and two language codes, at two bytes per char
+        return TranslationCache.ENTRY_OVERHEAD_BYTES + 2L * (value.length() + 64 + 2 + 2);
+    }
+}
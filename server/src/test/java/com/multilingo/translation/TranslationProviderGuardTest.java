@@ -0,0 +1,119 @@
+package com.multilingo.translation;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranslationProviderGuardTest {
+
+    private final CountDownLatch providerReleased = new CountDownLatch(1);
+    private final AtomicInteger providerCalls = new AtomicInteger();
+    private TranslationProviderGuard providerGuard;
+
+    @AfterEach
+    void tearDown() {
+        providerReleased.countDown();
+        providerGuard.shutdown();
+    }
+
+    @Test
+    void abandonsCallsThatExceedTheTimeLimit() {
+        providerGuard = createGuard(Duration.ofMillis(100), 10, 100);
+
+        long start = System.nanoTime();
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> providerGuard.translateBatch(List.of("hello"), "en", "es").join());
+
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+    }
+
+    @Test
+    void opensCircuitAfterRepeatedTimeoutsAndFailsFast() {
+        providerGuard = createGuard(Duration.ofMillis(50), 10, 2);
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<List<String>> call = providerGuard.translateBatch(List.of("hello " + i), "en", "es");
+            assertThrows(CompletionException.class, call::join);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, providerGuard.getCircuitState());
+
+        long start = System.nanoTime();
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> providerGuard.translateBatch(List.of("hello again"), "en", "es").join());
+
+        assertInstanceOf(CallNotPermittedException.class, failure.getCause());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 50);
+        assertEquals(2, providerCalls.get());
+    }
+
+    @Test
+    void rejectsCallsBeyondTheBulkheadLimit() {
+        providerGuard = createGuard(Duration.ofSeconds(30), 1, 100);
+        CompletableFuture<List<String>> hanging = providerGuard.translateBatch(List.of("first"), "en", "es");
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> providerGuard.translateBatch(List.of("second"), "en", "es").join());
+
+        assertInstanceOf(BulkheadFullException.class, failure.getCause());
+        providerReleased.countDown();
+        assertEquals(List.of("first"), hanging.join());
+    }
+
+    /**
+     * Guards a provider that ignores interrupts and only returns once released.
+     */
+    private TranslationProviderGuard createGuard(Duration timeout, int maxConcurrentCalls, int minimumCalls) {
+        TranslationProvider hangingProvider = (segments, sourceLanguage, targetLanguage) -> {
+            providerCalls.incrementAndGet();
+            boolean interrupted = false;
+            while (providerReleased.getCount() > 0) {
+                try {
+                    providerReleased.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return segments;
+        };
+        return new TranslationProviderGuard(
+                hangingProvider,
+                CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                        .slidingWindowSize(minimumCalls)
+                        .minimumNumberOfCalls(minimumCalls)
+                        .failureRateThreshold(50)
+                        .waitDurationInOpenState(Duration.ofMinutes(1))
+                        .build()),
+                BulkheadRegistry.of(BulkheadConfig.custom()
+                        .maxConcurrentCalls(maxConcurrentCalls)
+                        .maxWaitDuration(Duration.ZERO)
+                        .build()),
+                TimeLimiterRegistry.of(TimeLimiterConfig.custom().timeoutDuration(timeout).build()),
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,106 @@
+package com.multilingo.translation;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TranslationSchedulerTest {
+
+    private final List<String> providerLog = Collections.synchronizedList(new ArrayList<>());
+    private TranslationProviderGuard providerGuard;
+    private TranslationBatcher translationBatcher;
+    private TranslationScheduler translationScheduler;
+
+    @AfterEach
+    void tearDown() {
+        translationScheduler.shutdown();
+        translationBatcher.shutdown();
+        providerGuard.shutdown();
+    }
+
+    @Test
+    void interactiveRequestsOvertakeQueuedBackfill() {
+        createScheduler(5, 0, 10);
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(translationScheduler.submit("backfill " + i, "en", "es", TranslationPriority.BACKFILL, 1L));
+        }
+        futures.add(translationScheduler.submit("live 0", "en", "es", TranslationPriority.INTERACTIVE, 2L));
+        futures.add(translationScheduler.submit("live 1", "en", "es", TranslationPriority.INTERACTIVE, 2L));
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        // The initial burst may release some backfill, but live traffic skips the rest of the queue
+        assertTrue(providerLog.indexOf("live 0") < 6, providerLog.toString());
+        assertTrue(providerLog.indexOf("live 1") < 7, providerLog.toString());
+    }
+
+    @Test
+    void conversationsTakeTurnsWithinALane() {
+        createScheduler(5, 0, 100);
+        for (int i = 0; i < 12; i++) {
+            translationScheduler.submit("busy " + i, "en", "es", TranslationPriority.INTERACTIVE, 1L);
+        }
+
+        translationScheduler.submit("quiet", "en", "es", TranslationPriority.INTERACTIVE, 2L).join();
+
+        // Released right after the busy conversation's next turn rather than after all of its requests
+        assertTrue(providerLog.indexOf("quiet") <= 6, providerLog.toString());
+    }
+
+    @Test
+    void holdsRequestsUntilCharacterQuotaRefills() {
+        createScheduler(0, 6000, 10);
+        translationScheduler.submit("x".repeat(6000), "en", "es", TranslationPriority.INTERACTIVE, 1L).join();
+
+        long start = System.nanoTime();
+        translationScheduler.submit("y".repeat(50), "en", "es", TranslationPriority.INTERACTIVE, 1L).join();
+
+        // 100 characters per second, so 50 characters take about half a second to refill
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 400);
+    }
+
+    @Test
+    void rejectsRequestsWhenLaneIsFull() {
+        createScheduler(1, 0, 1);
+        translationScheduler.submit("first", "en", "es", TranslationPriority.INTERACTIVE, 1L).join();
+        translationScheduler.submit("second", "en", "es", TranslationPriority.INTERACTIVE, 1L);
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> translationScheduler.submit("third", "en", "es", TranslationPriority.INTERACTIVE, 1L).join());
+
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(1, translationScheduler.queuedCount(TranslationPriority.INTERACTIVE));
+    }
+
+    private void createScheduler(double requestsPerSecond, long charactersPerMinute, int queueCapacity) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TranslationProvider recordingProvider = (segments, sourceLanguage, targetLanguage) -> {
+            providerLog.addAll(segments);
+            return segments;
+        };
+        providerGuard = new TranslationProviderGuard(recordingProvider, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults(), meterRegistry);
+        // A batch size of one makes every released request its own provider call
+        translationBatcher = new TranslationBatcher(providerGuard, Duration.ZERO, 1, meterRegistry);
+        translationScheduler = new TranslationScheduler(
+                translationBatcher, requestsPerSecond, charactersPerMinute, 0.2, queueCapacity, meterRegistry);
+    }
+}
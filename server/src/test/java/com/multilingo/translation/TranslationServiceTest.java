@@ -0,0 +1,182 @@
+package com.multilingo.translation;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TranslationServiceTest {
+
+    private static final int CALLERS = 32;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TranslationProviderGuard providerGuard;
+    private TranslationBatcher translationBatcher;
+    private TranslationScheduler translationScheduler;
+
+    @AfterEach
+    void tearDown() {
+        translationScheduler.shutdown();
+        translationBatcher.shutdown();
+        providerGuard.shutdown();
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneProviderCall() throws Exception {
+        StubTranslationProvider provider = new StubTranslationProvider(Duration.ofMillis(200));
+        TranslationService translationService = createService(provider);
+
+        List<String> results = translateConcurrently(translationService, "Announcement: office closed Friday");
+
+        assertEquals(1, provider.getCallCount());
+        for (String result : results) {
+            assertEquals("Translated: Announcement: office closed Friday (from en to es)", result);
+        }
+        assertEquals(0, translationService.inFlightCount());
+    }
+
+    @Test
+    void failedRequestsDoNotLeakInFlightEntries() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        TranslationProvider failingProvider = (segments, sourceLanguage, targetLanguage) -> {
+            calls.incrementAndGet();
+            sleep(100);
+            throw new IllegalStateException("Provider unavailable");
+        };
+        TranslationService translationService = createService(failingProvider);
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<CompletableFuture<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return translationService.translate("hello", "en", "es");
+                }));
+            }
+            start.countDown();
+            for (Future<CompletableFuture<String>> future : futures) {
+                assertThrows(CompletionException.class, () -> future.get().join());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(0, translationService.inFlightCount());
+
+        // A later request is not stuck behind the failed one
+        assertThrows(CompletionException.class, () -> translationService.translate("hello", "en", "es").join());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void joinsATranslationCachedJustAfterTheCacheMiss() {
+        StubTranslationProvider provider = new StubTranslationProvider(Duration.ZERO);
+        TranslationCache translationCache = new TranslationCache(100, 1 << 20, Duration.ofMinutes(1), meterRegistry) {
+            @Override
+            public String get(TranslationKey key) {
+                // Another flight completes between this miss and the in-flight check
+                String missed = super.get(key);
+                put(key, "hola");
+                return missed;
+            }
+        };
+        TranslationService translationService = createService(provider, translationCache);
+
+        assertEquals("hola", translationService.translate("hello", "en", "es").join());
+        assertEquals(0, provider.getCallCount());
+        assertEquals(0, translationService.inFlightCount());
+    }
+
+    @Test
+    void translatesOnlySentencesNotSeenBefore() {
+        StubTranslationProvider provider = new StubTranslationProvider(Duration.ZERO);
+        TranslationService translationService = createService(provider);
+        String signature = "Kind regards, the support team. Please do not reply to this automated message.";
+
+        translationService.translate("Your order has shipped. " + signature, "en", "es").join();
+        assertEquals(3, provider.getSegmentCount());
+
+        String translated = translationService.translate("Your refund was issued.\n\n" + signature, "en", "es").join();
+
+        // Only the new first sentence reaches the provider; the signature comes from memory
+        assertEquals(4, provider.getSegmentCount());
+        assertEquals("Translated: Your refund was issued. (from en to es)\n\n"
+                + "Translated: Kind regards, the support team. (from en to es) "
+                + "Translated: Please do not reply to this automated message. (from en to es)", translated);
+    }
+
+    @Test
+    void translatesShortContentAsOneSegment() {
+        StubTranslationProvider provider = new StubTranslationProvider(Duration.ZERO);
+        TranslationService translationService = createService(provider);
+
+        assertEquals("Translated: Hi. How are you? (from en to es)",
+                translationService.translate("Hi. How are you?", "en", "es").join());
+        assertEquals(1, provider.getSegmentCount());
+    }
+
+    private TranslationService createService(TranslationProvider provider) {
+        return createService(provider, new TranslationCache(100, 1 << 20, Duration.ofMinutes(1), meterRegistry));
+    }
+
+    private TranslationService createService(TranslationProvider provider, TranslationCache translationCache) {
+        // A batch size of one sends every submission on its own, so only single-flight can merge them
+        providerGuard = new TranslationProviderGuard(provider, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults(), meterRegistry);
+        translationBatcher = new TranslationBatcher(providerGuard, Duration.ZERO, 1, meterRegistry);
+        translationScheduler = new TranslationScheduler(translationBatcher, 0, 0, 0.2, 1000, meterRegistry);
+        return new TranslationService(translationCache, translationScheduler, true, 80, meterRegistry);
+    }
+
+    private static List<String> translateConcurrently(TranslationService translationService, String content)
+            throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<CompletableFuture<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return translationService.translate(content, "en", "es");
+                }));
+            }
+            start.countDown();
+
+            List<String> results = new ArrayList<>();
+            for (Future<CompletableFuture<String>> future : futures) {
+                results.add(future.get().join());
+            }
+            return results;
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}